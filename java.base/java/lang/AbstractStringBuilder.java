@@ -245,6 +245,38 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         }
     }
 
+    /**
+     * Empties this sequence, like {@code setLength(0)}, and releases the
+     * storage if it can hold more than {@code maxCapacity} characters.
+     * This is meant for builders that are kept and reused, such as pooled
+     * or thread-local ones: after building one very large string such a
+     * builder would otherwise keep the large array for as long as it lives.
+     * A builder that was widened to hold non-Latin-1 characters also goes
+     * back to the compact representation, reusing its current array when
+     * that is small enough.
+     *
+     * @param   maxCapacity   the largest capacity that may be retained.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException  if {@code maxCapacity} is negative.
+     * @since   11
+     */
+    public AbstractStringBuilder reset(int maxCapacity) {
+        if (maxCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + maxCapacity);
+        }
+        count = 0;
+        if (COMPACT_STRINGS) {
+            // the sequence is empty, so the array can be reinterpreted as Latin1
+            coder = LATIN1;
+            if (value.length > maxCapacity) {
+                value = new byte[maxCapacity];
+            }
+        } else if ((value.length >> 1) > maxCapacity) {
+            value = StringUTF16.newBytesFor(maxCapacity);
+        }
+        return this;
+    }
+
     /**
      * Sets the length of the character sequence.
      * The sequence is changed to a new character sequence
@@ -0,0 +1,660 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.lang;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.Objects;
+import sun.nio.cs.ISO_8859_1;
+import sun.nio.cs.US_ASCII;
+import sun.nio.cs.UTF_8;
+
+import static java.lang.String.COMPACT_STRINGS;
+import static java.lang.String.LATIN1;
+import static java.lang.String.UTF16;
+
+/**
+ * 分块的字符串构建器：追加时只分配新块，从不复制已写入的内容
+ *
+ * <p>A {@link StringBuilder} keeps its characters in one array that is
+ * copied into an array twice as large whenever it fills up, and
+ * {@code toString()} copies the characters once more, so building a string
+ * of <i>n</i> characters may need room for about 4<i>n</i> characters at
+ * its peak.  This builder appends into a list of chunks instead: when the
+ * current chunk is full a new one is added, as large as everything
+ * appended so far but at most {@value #MAX_CHUNK_SIZE} characters, and
+ * nothing already appended is ever moved.  {@link #toString()} copies the
+ * characters once into an array of the exact size, and the
+ * {@code writeTo} methods send them to a {@link Writer}, an
+ * {@link OutputStream} or a {@link WritableByteChannel} chunk by chunk,
+ * without creating a {@code String} at all.
+ *
+ * <p>Like strings and string builders, each chunk stores Latin-1 text one
+ * byte per character and is widened to two bytes per character only when
+ * a character outside Latin-1 is appended to it.  Latin-1 chunks are
+ * written to a stream directly, without encoding, when the charset is
+ * ISO-8859-1, or when it is US-ASCII or UTF-8 and the chunk is pure ASCII.
+ *
+ * <p>This class supports appending only; characters can be read with
+ * {@link #charAt(int)}, which locates the chunk by binary search, or as a
+ * whole.  Instances are not safe for use by multiple threads.  Unless
+ * otherwise noted, passing a {@code null} argument to a method of this
+ * class causes a {@link NullPointerException} to be thrown.
+ *
+ * @see StringBuilder
+ */
+public final class ChunkedStringBuilder implements Appendable, CharSequence {
+
+    /** The largest number of characters held in one chunk */
+    static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    /** 第一个块的默认容量 */
+    static final int DEFAULT_CAPACITY = 256;
+
+    /** writeTo 使用的转换缓冲区大小，按字符计 */
+    static final int SCRATCH_SIZE = 8192;
+
+    /** 所有块，只有最后一个块（当前块）还在追加 */
+    private byte[][] chunks;
+
+    /** 每个块的编码，LATIN1 或 UTF16 */
+    private byte[] coders;
+
+    /** 每个块之前的字符总数，用于 charAt 二分查找 */
+    private int[] starts;
+
+    /** 块的数量，至少为1 */
+    private int nchunks;
+
+    /** 当前块，即 chunks[nchunks - 1] */
+    private byte[] cur;
+
+    /** 当前块的编码 */
+    private byte curCoder;
+
+    /** 当前块已用的字符数 */
+    private int curCount;
+
+    /** 当前块的容量，按字符计 */
+    private int curCapacity;
+
+    /** 当前块之前的字符总数 */
+    private int base;
+
+    /**
+     * Constructs an empty builder whose first chunk holds 256 characters.
+     */
+    public ChunkedStringBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty builder whose first chunk holds the given number
+     * of characters.  Later chunks grow geometrically regardless.
+     *
+     * @param  initialCapacity  the capacity of the first chunk.
+     * @throws IllegalArgumentException if {@code initialCapacity} is not
+     *         positive.
+     */
+    public ChunkedStringBuilder(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        chunks = new byte[4][];
+        coders = new byte[4];
+        starts = new int[4];
+        newChunk(Math.min(initialCapacity, MAX_CHUNK_SIZE));
+    }
+
+    /**
+     * Returns the number of characters appended so far.
+     *
+     * @return the number of characters in this sequence
+     */
+    @Override
+    public int length() {
+        return base + curCount;
+    }
+
+    /**
+     * Returns the {@code char} value at the specified index.
+     *
+     * @param  index  the index of the desired {@code char} value.
+     * @return the {@code char} value at the specified index.
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not
+     *         less than {@code length()}.
+     */
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length());
+        int i = chunkOf(index);
+        int off = index - starts[i];
+        return (coders[i] == LATIN1)
+            ? (char)(chunks[i][off] & 0xff)
+            : StringUTF16.getChar(chunks[i], off);
+    }
+
+    /**
+     * Returns a new string holding the characters in the given range.
+     *
+     * @param  start  the start index, inclusive.
+     * @param  end    the end index, exclusive.
+     * @return the specified subsequence, as a {@code String}.
+     * @throws IndexOutOfBoundsException if {@code start} or {@code end} are
+     *         negative, if {@code end} is greater than {@code length()}, or
+     *         if {@code start} is greater than {@code end}.
+     */
+    @Override
+    public String subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    /**
+     * Returns a new string holding the characters in the given range.
+     *
+     * @param  start  the start index, inclusive.
+     * @param  end    the end index, exclusive.
+     * @return the new string.
+     * @throws IndexOutOfBoundsException if {@code start} or {@code end} are
+     *         negative, if {@code end} is greater than {@code length()}, or
+     *         if {@code start} is greater than {@code end}.
+     */
+    public String substring(int start, int end) {
+        Objects.checkFromToIndex(start, end, length());
+        int len = end - start;
+        if (len == 0) {
+            return "";
+        }
+        int first = chunkOf(start);
+        int last = chunkOf(end - 1);
+        boolean latin1 = true;
+        for (int i = first; i <= last; i++) {
+            latin1 &= coders[i] == LATIN1;
+        }
+        byte coder = latin1 ? LATIN1 : UTF16;
+        byte[] val = new byte[len << coder];
+        int pos = start;
+        for (int i = first, dst = 0; i <= last; i++) {
+            int off = pos - starts[i];
+            int n = Math.min(chunkLength(i) - off, end - pos);
+            if (coders[i] == coder) {
+                System.arraycopy(chunks[i], off << coder, val, dst << coder, n << coder);
+            } else {
+                StringLatin1.inflate(chunks[i], off, val, dst, n);
+            }
+            dst += n;
+            pos += n;
+        }
+        if (coder == UTF16 && COMPACT_STRINGS) {
+            // 宽字符的块里也可能全是 Latin1 字符，String 要求此时必须压缩
+            byte[] buf = StringUTF16.compress(val, 0, len);
+            if (buf != null) {
+                return new String(buf, LATIN1);
+            }
+        }
+        return new String(val, coder);
+    }
+
+    /**
+     * Returns a string holding all characters of this builder.  The
+     * characters are copied once, into an array of the exact size.
+     *
+     * @return a string representation of this sequence of characters.
+     */
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    /**
+     * Discards all characters, keeping only the first chunk for reuse.
+     */
+    public void clear() {
+        Arrays.fill(chunks, 1, nchunks, null);
+        nchunks = 1;
+        cur = chunks[0];
+        curCoder = coders[0];
+        curCapacity = cur.length >> curCoder;
+        curCount = 0;
+        base = 0;
+    }
+
+    // ----------------------------------------------------------------
+    // Appending
+
+    /**
+     * Appends the specified string.  If {@code str} is {@code null}, the
+     * four characters {@code "null"} are appended.
+     *
+     * @param  str  a string.
+     * @return a reference to this object.
+     */
+    public ChunkedStringBuilder append(String str) {
+        if (str == null) {
+            str = "null";
+        }
+        appendValue(str.value(), str.coder(), 0, str.length());
+        return this;
+    }
+
+    /**
+     * Appends the specified character sequence.  If {@code s} is
+     * {@code null}, the four characters {@code "null"} are appended.
+     *
+     * @param  s  the sequence to append.
+     * @return a reference to this object.
+     */
+    @Override
+    public ChunkedStringBuilder append(CharSequence s) {
+        if (s == null) {
+            return append("null");
+        }
+        return append(s, 0, s.length());
+    }
+
+    /**
+     * Appends a subsequence of the specified character sequence.  If
+     * {@code s} is {@code null}, characters are appended as if {@code s}
+     * contained the four characters {@code "null"}.
+     *
+     * @param  s      the sequence to append.
+     * @param  start  the starting index of the subsequence to be appended.
+     * @param  end    the end index of the subsequence to be appended.
+     * @return a reference to this object.
+     * @throws IndexOutOfBoundsException if {@code start} is negative, or
+     *         {@code start} is greater than {@code end} or {@code end} is
+     *         greater than {@code s.length()}.
+     */
+    @Override
+    public ChunkedStringBuilder append(CharSequence s, int start, int end) {
+        if (s == null) {
+            s = "null";
+        }
+        Objects.checkFromToIndex(start, end, s.length());
+        if (s instanceof String) {
+            String str = (String)s;
+            appendValue(str.value(), str.coder(), start, end - start);
+        } else if (s instanceof AbstractStringBuilder) {
+            AbstractStringBuilder asb = (AbstractStringBuilder)s;
+            appendValue(asb.getValue(), asb.getCoder(), start, end - start);
+        } else {
+            for (int i = start; i < end; i++) {
+                append(s.charAt(i));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the characters of the specified array.
+     *
+     * @param  str  the characters to append.
+     * @return a reference to this object.
+     */
+    public ChunkedStringBuilder append(char[] str) {
+        return append(str, 0, str.length);
+    }
+
+    /**
+     * Appends {@code len} characters of the specified array, starting at
+     * index {@code offset}.
+     *
+     * @param  str     the characters to append.
+     * @param  offset  the index of the first {@code char} to append.
+     * @param  len     the number of {@code char}s to append.
+     * @return a reference to this object.
+     * @throws IndexOutOfBoundsException if {@code offset < 0} or
+     *         {@code len < 0} or {@code offset+len > str.length}
+     */
+    public ChunkedStringBuilder append(char[] str, int offset, int len) {
+        Objects.checkFromIndexSize(offset, len, str.length);
+        while (len > 0) {
+            int n = Math.min(len, room());
+            if (curCoder == LATIN1 && StringUTF16.compress(str, offset, cur, curCount, n) != n) {
+                inflateCurrent();
+            }
+            if (curCoder == UTF16) {
+                StringUTF16.putCharsSB(cur, curCount, str, offset, offset + n);
+            }
+            curCount += n;
+            offset += n;
+            len -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Appends the specified character.
+     *
+     * @param  c  a {@code char}.
+     * @return a reference to this object.
+     */
+    @Override
+    public ChunkedStringBuilder append(char c) {
+        if (curCount == curCapacity) {
+            nextChunk();
+        }
+        if (curCoder == LATIN1) {
+            if (StringLatin1.canEncode(c)) {
+                cur[curCount++] = (byte)c;
+                return this;
+            }
+            inflateCurrent();
+        }
+        StringUTF16.putChar(cur, curCount++, c);
+        return this;
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument.
+     *
+     * @param  i  an {@code int}.
+     * @return a reference to this object.
+     */
+    public ChunkedStringBuilder append(int i) {
+        int n = Integer.stringSize(i);
+        if (room() < n) {
+            nextChunk();
+        }
+        int end = curCount + n;
+        if (curCoder == LATIN1) {
+            Integer.getChars(i, end, cur);
+        } else {
+            StringUTF16.getChars(i, end, cur);
+        }
+        curCount = end;
+        return this;
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument.
+     *
+     * @param  l  a {@code long}.
+     * @return a reference to this object.
+     */
+    public ChunkedStringBuilder append(long l) {
+        int n = Long.stringSize(l);
+        if (room() < n) {
+            nextChunk();
+        }
+        int end = curCount + n;
+        if (curCoder == LATIN1) {
+            Long.getChars(l, end, cur);
+        } else {
+            StringUTF16.getChars(l, end, cur);
+        }
+        curCount = end;
+        return this;
+    }
+
+    /**
+     * Appends the string representation of the {@code boolean} argument.
+     *
+     * @param  b  a {@code boolean}.
+     * @return a reference to this object.
+     */
+    public ChunkedStringBuilder append(boolean b) {
+        return append(b ? "true" : "false");
+    }
+
+    /**
+     * Appends the string representation of the {@code double} argument, as
+     * given by {@link Double#toString(double)}.
+     *
+     * @param  d  a {@code double}.
+     * @return a reference to this object.
+     */
+    public ChunkedStringBuilder append(double d) {
+        return append(Double.toString(d));
+    }
+
+    /**
+     * Appends the string representation of the {@code Object} argument, as
+     * given by {@link String#valueOf(Object)}.
+     *
+     * @param  obj  an {@code Object}.
+     * @return a reference to this object.
+     */
+    public ChunkedStringBuilder append(Object obj) {
+        return append(String.valueOf(obj));
+    }
+
+    /*
+     * Appends len characters of a String or StringBuilder value, starting
+     * at off, filling the current chunk before starting a new one.
+     */
+    private void appendValue(byte[] val, byte coder, int off, int len) {
+        while (len > 0) {
+            int n = Math.min(len, room());
+            if (coder == curCoder) {
+                System.arraycopy(val, off << coder, cur, curCount << coder, n << coder);
+            } else if (coder == LATIN1) {
+                StringLatin1.inflate(val, off, cur, curCount, n);
+            } else if (StringUTF16.compress(val, off, cur, curCount, n) != n) {
+                inflateCurrent();
+                System.arraycopy(val, off << 1, cur, curCount << 1, n << 1);
+            }
+            curCount += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /*
+     * Returns the room left in the current chunk, after starting a new
+     * chunk if it is full.
+     */
+    private int room() {
+        if (curCount == curCapacity) {
+            nextChunk();
+        }
+        return curCapacity - curCount;
+    }
+
+    private void nextChunk() {
+        int len = length();
+        if (len > Integer.MAX_VALUE - curCapacity) {
+            throw new OutOfMemoryError("Required length exceeds implementation limit");
+        }
+        base = len;
+        if (curCount == 0) {
+            // 当前块为空（初始容量小于要写入的数字），直接替换，保证 starts 严格递增
+            nchunks--;
+        }
+        // 新块与已有内容一样大，块数随长度对数增长，直到块大小达到上限
+        newChunk(Math.min(Math.max(len, DEFAULT_CAPACITY), MAX_CHUNK_SIZE));
+    }
+
+    private void newChunk(int capacity) {
+        if (nchunks == chunks.length) {
+            int n = nchunks << 1;
+            chunks = Arrays.copyOf(chunks, n);
+            coders = Arrays.copyOf(coders, n);
+            starts = Arrays.copyOf(starts, n);
+        }
+        curCoder = COMPACT_STRINGS ? LATIN1 : UTF16;
+        cur = new byte[capacity << curCoder];
+        curCapacity = capacity;
+        curCount = 0;
+        chunks[nchunks] = cur;
+        coders[nchunks] = curCoder;
+        starts[nchunks] = base;
+        nchunks++;
+    }
+
+    // 只复制当前块，已写满的块不受影响
+    private void inflateCurrent() {
+        byte[] buf = StringUTF16.newBytesFor(curCapacity);
+        StringLatin1.inflate(cur, 0, buf, 0, curCount);
+        cur = buf;
+        curCoder = UTF16;
+        chunks[nchunks - 1] = buf;
+        coders[nchunks - 1] = UTF16;
+    }
+
+    private int chunkLength(int i) {
+        return (i == nchunks - 1) ? curCount : starts[i + 1] - starts[i];
+    }
+
+    // index 所在的块：starts 中不大于 index 的最后一个
+    private int chunkOf(int index) {
+        int i = Arrays.binarySearch(starts, 0, nchunks, index);
+        return (i >= 0) ? i : -i - 2;
+    }
+
+    // ----------------------------------------------------------------
+    // Writing
+
+    /**
+     * Writes all characters of this builder to the given writer.
+     *
+     * @param  out  the writer.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(Writer out) throws IOException {
+        Objects.requireNonNull(out);
+        char[] buf = new char[Math.min(Math.max(length(), 1), SCRATCH_SIZE)];
+        for (int i = 0; i < nchunks; i++) {
+            byte[] val = chunks[i];
+            int count = chunkLength(i);
+            for (int off = 0; off < count; ) {
+                int n = Math.min(count - off, buf.length);
+                if (coders[i] == LATIN1) {
+                    StringLatin1.getChars(val, off, off + n, buf, 0);
+                } else {
+                    StringUTF16.getChars(val, off, off + n, buf, 0);
+                }
+                out.write(buf, 0, n);
+                off += n;
+            }
+        }
+    }
+
+    /**
+     * Writes all characters of this builder to the given stream, encoded
+     * with the given charset.  Malformed input and unmappable characters
+     * are replaced with the charset's default replacement, as by
+     * {@link String#getBytes(Charset)}.
+     *
+     * @param  out      the output stream.
+     * @param  charset  the charset used to encode the characters.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(OutputStream out, Charset charset) throws IOException {
+        encodeTo(Objects.requireNonNull(out), charset);
+    }
+
+    /**
+     * Writes all characters of this builder to the given channel, encoded
+     * with the given charset.  Malformed input and unmappable characters
+     * are replaced with the charset's default replacement, as by
+     * {@link String#getBytes(Charset)}.  The channel is expected to be in
+     * blocking mode; this method returns only after all bytes have been
+     * written.
+     *
+     * @param  ch       the channel.
+     * @param  charset  the charset used to encode the characters.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(WritableByteChannel ch, Charset charset) throws IOException {
+        encodeTo(Objects.requireNonNull(ch), charset);
+    }
+
+    private void encodeTo(Object out, Charset cs) throws IOException {
+        boolean iso = cs == ISO_8859_1.INSTANCE;
+        boolean ascii = cs == UTF_8.INSTANCE || cs == US_ASCII.INSTANCE;
+        CharsetEncoder ce = null;
+        CharBuffer cb = null;
+        ByteBuffer bb = null;
+        for (int i = 0; i < nchunks; i++) {
+            byte[] val = chunks[i];
+            int count = chunkLength(i);
+            // 编码器中没有残留的高代理项时，Latin1 块可以原样写出
+            if (coders[i] == LATIN1 && (cb == null || cb.position() == 0)
+                && (iso || ascii && !StringCoding.hasNegatives(val, 0, count))) {
+                if (bb != null) {
+                    drain(out, bb);
+                }
+                writeBytes(out, val, 0, count);
+                continue;
+            }
+            if (ce == null) {
+                ce = cs.newEncoder()
+                       .onMalformedInput(CodingErrorAction.REPLACE)
+                       .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                cb = CharBuffer.allocate(SCRATCH_SIZE);
+                bb = ByteBuffer.allocate((int)(SCRATCH_SIZE * ce.maxBytesPerChar()));
+            }
+            for (int off = 0; off < count; ) {
+                int p = cb.position();
+                int n = Math.min(count - off, cb.remaining());
+                if (coders[i] == LATIN1) {
+                    StringLatin1.getChars(val, off, off + n, cb.array(), p);
+                } else {
+                    StringUTF16.getChars(val, off, off + n, cb.array(), p);
+                }
+                cb.position(p + n);
+                off += n;
+                cb.flip();
+                encode(out, ce, cb, bb, false);
+                cb.compact();
+            }
+        }
+        if (ce != null) {
+            cb.flip();
+            encode(out, ce, cb, bb, true);
+            while (ce.flush(bb).isOverflow()) {
+                drain(out, bb);
+            }
+            drain(out, bb);
+        }
+    }
+
+    private static void encode(Object out, CharsetEncoder ce, CharBuffer cb,
+                               ByteBuffer bb, boolean endOfInput)
+        throws IOException
+    {
+        for (;;) {
+            CoderResult cr = ce.encode(cb, bb, endOfInput);
+            if (cr.isUnderflow()) {
+                return;
+            }
+            if (cr.isOverflow()) {
+                drain(out, bb);
+            } else {
+                cr.throwException();
+            }
+        }
+    }
+
+    private static void drain(Object out, ByteBuffer bb) throws IOException {
+        writeBytes(out, bb.array(), 0, bb.position());
+        bb.clear();
+    }
+
+    private static void writeBytes(Object out, byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (out instanceof OutputStream) {
+            ((OutputStream)out).write(b, off, len);
+        } else {
+            WritableByteChannel ch = (WritableByteChannel)out;
+            ByteBuffer src = ByteBuffer.wrap(b, off, len);
+            while (src.hasRemaining()) {
+                ch.write(src);
+            }
+        }
+    }
+}
@@ -5,6 +5,11 @@
 
 package java.lang;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import jdk.internal.math.DoubleToDecimal;
+import jdk.internal.math.FastDoubleParser;
 import jdk.internal.math.FloatingDecimal;
 import jdk.internal.math.DoubleConsts;
 import jdk.internal.HotSpotIntrinsicCandidate;
@@ -37,6 +42,29 @@ public final class Double extends Number implements Comparable<Double> {
         return FloatingDecimal.toJavaFormatString(d);
     }
 
+    /**
+     * 把d的十进制表示以ASCII写入dst，从index开始，返回写入的长度，不分配对象。
+     * 使用Schubfach算法取最短的能还原为d的十进制数，格式同toString，个别值比toString更短
+     * （如1.0E23），空间不足时抛出IndexOutOfBoundsException且不写入任何内容
+     */
+    public static int toBytes(double d, byte[] dst, int index) {
+        return DoubleToDecimal.toBytes(d, dst, index);
+    }
+
+    /**
+     * 同toBytes(double, byte[], int)，写入char数组
+     */
+    public static int toChars(double d, char[] dst, int index) {
+        return DoubleToDecimal.toChars(d, dst, index);
+    }
+
+    /**
+     * 同toBytes(double, byte[], int)，写入dst的绝对下标index处，不改变position，结果不能超过limit
+     */
+    public static int toBytes(double d, ByteBuffer dst, int index) {
+        return DoubleToDecimal.toBytes(d, dst, index);
+    }
+
     public static String toHexString(double d) {
         /*
          * Modeled after the "a" conversion specifier in C99, section
@@ -100,7 +128,22 @@ public final class Double extends Number implements Comparable<Double> {
     }
 
     public static double parseDouble(String s) throws NumberFormatException {
-        return FloatingDecimal.parseDouble(s);
+        // 普通十进制数走Eisel-Lemire快速路径，其余交给FloatingDecimal
+        return FastDoubleParser.parseDouble(s, 0, s.length());
+    }
+
+    /**
+     * 解析s中[beginIndex, endIndex)部分，不创建子串，语法与结果同parseDouble(String)
+     */
+    public static double parseDouble(CharSequence s, int beginIndex, int endIndex) throws NumberFormatException {
+        return FastDoubleParser.parseDouble(Objects.requireNonNull(s), beginIndex, endIndex);
+    }
+
+    /**
+     * 解析ISO-8859-1字节数组中[beginIndex, endIndex)部分，不创建字符串，语法与结果同parseDouble(String)
+     */
+    public static double parseDouble(byte[] bytes, int beginIndex, int endIndex) throws NumberFormatException {
+        return FastDoubleParser.parseDouble(Objects.requireNonNull(bytes), beginIndex, endIndex);
     }
 
     public static boolean isNaN(double v) {
@@ -25,6 +25,11 @@
 
 package java.lang;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import jdk.internal.math.FloatToDecimal;
+import jdk.internal.math.FastDoubleParser;
 import jdk.internal.math.FloatingDecimal;
 import jdk.internal.HotSpotIntrinsicCandidate;
 
@@ -56,6 +61,29 @@ public final class Float extends Number implements Comparable<Float> {
         return FloatingDecimal.toJavaFormatString(f);
     }
 
+    /**
+     * 把f的十进制表示以ASCII写入dst，从index开始，返回写入的长度，不分配对象。
+     * 使用Schubfach算法取最短的能还原为f的十进制数，格式同toString，个别值比toString更短，
+     * 空间不足时抛出IndexOutOfBoundsException且不写入任何内容
+     */
+    public static int toBytes(float f, byte[] dst, int index) {
+        return FloatToDecimal.toBytes(f, dst, index);
+    }
+
+    /**
+     * 同toBytes(float, byte[], int)，写入char数组
+     */
+    public static int toChars(float f, char[] dst, int index) {
+        return FloatToDecimal.toChars(f, dst, index);
+    }
+
+    /**
+     * 同toBytes(float, byte[], int)，写入dst的绝对下标index处，不改变position，结果不能超过limit
+     */
+    public static int toBytes(float f, ByteBuffer dst, int index) {
+        return FloatToDecimal.toBytes(f, dst, index);
+    }
+
     public static String toHexString(float f) {
         if (Math.abs(f) < Float.MIN_NORMAL
             &&  f != 0.0f ) {// float subnormal
@@ -82,7 +110,22 @@ public final class Float extends Number implements Comparable<Float> {
     }
 
     public static float parseFloat(String s) throws NumberFormatException {
-        return FloatingDecimal.parseFloat(s);
+        // 普通十进制数走Eisel-Lemire快速路径，其余交给FloatingDecimal
+        return FastDoubleParser.parseFloat(s, 0, s.length());
+    }
+
+    /**
+     * 解析s中[beginIndex, endIndex)部分，不创建子串，语法与结果同parseFloat(String)
+     */
+    public static float parseFloat(CharSequence s, int beginIndex, int endIndex) throws NumberFormatException {
+        return FastDoubleParser.parseFloat(Objects.requireNonNull(s), beginIndex, endIndex);
+    }
+
+    /**
+     * 解析ISO-8859-1字节数组中[beginIndex, endIndex)部分，不创建字符串，语法与结果同parseFloat(String)
+     */
+    public static float parseFloat(byte[] bytes, int beginIndex, int endIndex) throws NumberFormatException {
+        return FastDoubleParser.parseFloat(Objects.requireNonNull(bytes), beginIndex, endIndex);
     }
 
     public static boolean isNaN(float v) {
@@ -26,6 +26,7 @@
 package java.lang;
 
 import java.lang.annotation.Native;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import jdk.internal.HotSpotIntrinsicCandidate;
@@ -246,6 +247,81 @@ public final class Integer extends Number implements Comparable<Integer> {
         return 10 + d;
     }
 
+    /**
+     * 把i的十进制表示以ASCII写入dst，从index开始，返回写入的长度。不分配对象，
+     * 空间不足时抛出IndexOutOfBoundsException且不写入任何内容
+     */
+    public static int toBytes(int i, byte[] dst, int index) {
+        int size = stringSize(i);
+        Objects.checkFromIndexSize(index, size, dst.length);
+        getChars(i, index + size, dst);
+        return size;
+    }
+
+    /**
+     * 同toBytes(int, byte[], int)，写入char数组
+     */
+    public static int toChars(int i, char[] dst, int index) {
+        int size = stringSize(i);
+        Objects.checkFromIndexSize(index, size, dst.length);
+        getChars(i, index + size, dst);
+        return size;
+    }
+
+    /**
+     * 同toBytes(int, byte[], int)，写入dst的绝对下标index处，不改变position，结果不能超过limit
+     */
+    public static int toBytes(int i, ByteBuffer dst, int index) {
+        int size = stringSize(i);
+        Objects.checkFromIndexSize(index, size, dst.limit());
+        if (dst.hasArray()) {
+            getChars(i, dst.arrayOffset() + index + size, dst.array());
+        } else {
+            // 直接缓冲区逐字节写入，负数的余数取反
+            int p = index + size;
+            int q = i;
+            do {
+                dst.put(--p, (byte)('0' + Math.abs(q % 10)));
+                q /= 10;
+            } while (q != 0);
+            if (i < 0)
+                dst.put(--p, (byte)'-');
+        }
+        return size;
+    }
+
+    // getChars(int, int, byte[])的char[]版本
+    static int getChars(int i, int index, char[] buf) {
+        int q, r;
+        int charPos = index;
+
+        boolean negative = i < 0;
+        if (!negative) {
+            i = -i;
+        }
+
+        while (i <= -100) {
+            q = i / 100;
+            r = (q * 100) - i;
+            i = q;
+            buf[--charPos] = (char)DigitOnes[r];
+            buf[--charPos] = (char)DigitTens[r];
+        }
+
+        q = i / 10;
+        r = (q * 10) - i;
+        buf[--charPos] = (char)('0' + r);
+
+        if (q < 0) {
+            buf[--charPos] = (char)('0' - q);
+        }
+
+        if (negative) {
+            buf[--charPos] = '-';
+        }
+        return charPos;
+    }
+
     /** 
      *
      * @date 2022/6/13 21:54 
@@ -27,6 +27,7 @@ package java.lang;
 
 import java.lang.annotation.Native;
 import java.math.*;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import jdk.internal.HotSpotIntrinsicCandidate;
 
@@ -300,6 +301,91 @@ public final class Long extends Number implements Comparable<Long> {
         return 19 + d;
     }
 
+    /**
+     * 把i的十进制表示以ASCII写入dst，从index开始，返回写入的长度。不分配对象，
+     * 空间不足时抛出IndexOutOfBoundsException且不写入任何内容
+     */
+    public static int toBytes(long i, byte[] dst, int index) {
+        int size = stringSize(i);
+        Objects.checkFromIndexSize(index, size, dst.length);
+        getChars(i, index + size, dst);
+        return size;
+    }
+
+    /**
+     * 同toBytes(long, byte[], int)，写入char数组
+     */
+    public static int toChars(long i, char[] dst, int index) {
+        int size = stringSize(i);
+        Objects.checkFromIndexSize(index, size, dst.length);
+        getChars(i, index + size, dst);
+        return size;
+    }
+
+    /**
+     * 同toBytes(long, byte[], int)，写入dst的绝对下标index处，不改变position，结果不能超过limit
+     */
+    public static int toBytes(long i, ByteBuffer dst, int index) {
+        int size = stringSize(i);
+        Objects.checkFromIndexSize(index, size, dst.limit());
+        if (dst.hasArray()) {
+            getChars(i, dst.arrayOffset() + index + size, dst.array());
+        } else {
+            int p = index + size;
+            long q = i;
+            do {
+                dst.put(--p, (byte)('0' + Math.abs(q % 10)));
+                q /= 10;
+            } while (q != 0);
+            if (i < 0)
+                dst.put(--p, (byte)'-');
+        }
+        return size;
+    }
+
+    // getChars(long, int, byte[])的char[]版本
+    static int getChars(long i, int index, char[] buf) {
+        long q;
+        int r;
+        int charPos = index;
+
+        boolean negative = (i < 0);
+        if (!negative) {
+            i = -i;
+        }
+
+        while (i <= Integer.MIN_VALUE) {
+            q = i / 100;
+            r = (int)((q * 100) - i);
+            i = q;
+            buf[--charPos] = (char)Integer.DigitOnes[r];
+            buf[--charPos] = (char)Integer.DigitTens[r];
+        }
+
+        int q2;
+        int i2 = (int)i;
+        while (i2 <= -100) {
+            q2 = i2 / 100;
+            r  = (q2 * 100) - i2;
+            i2 = q2;
+            buf[--charPos] = (char)Integer.DigitOnes[r];
+            buf[--charPos] = (char)Integer.DigitTens[r];
+        }
+
+        q2 = i2 / 10;
+        r  = (q2 * 10) - i2;
+        buf[--charPos] = (char)('0' + r);
+
+        if (q2 < 0) {
+            buf[--charPos] = (char)('0' - q2);
+        }
+
+        if (negative) {
+            buf[--charPos] = '-';
+        }
+        return charPos;
+    }
+
     public static long parseLong(String s, int radix)
               throws NumberFormatException
     {
@@ -8,6 +8,7 @@ package java.lang;
 import java.io.ObjectStreamField;
 import java.io.UnsupportedEncodingException;
 import java.lang.annotation.Native;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -155,6 +156,18 @@ public final class String implements java.io.Serializable, Comparable<String>, C
         this.coder = ret.coder;
     }
 
+    /**
+     * 用指定字符集解码bytes的剩余字节构造字符串，bytes的position移到limit。
+     * 直接缓冲区的内容只复制一次，不经过中间的char[]和CharBuffer
+     */
+    public String(ByteBuffer bytes, Charset charset) {
+        if (charset == null)
+            throw new NullPointerException("charset");
+        StringCoding.Result ret = StringCoding.decode(charset, bytes);
+        this.value = ret.value;
+        this.coder = ret.coder;
+    }
+
     public String(byte bytes[], String charsetName)
             throws UnsupportedEncodingException {
         this(bytes, 0, bytes.length, charsetName);
@@ -999,11 +1012,11 @@ public final class String implements java.io.Serializable, Comparable<String>, C
     }
 
     public static String format(String format, Object... args) {
-        return new Formatter().format(format, args).toString();
+        return Formatter.compile(format).format(args);
     }
 
     public static String format(Locale l, String format, Object... args) {
-        return new Formatter(l).format(format, args).toString();
+        return Formatter.compile(format).format(l, args);
     }
 
     public static String valueOf(Object obj) {
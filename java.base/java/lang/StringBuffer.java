@@ -223,6 +223,17 @@ import jdk.internal.HotSpotIntrinsicCandidate;
         super.trimToSize();
     }
 
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    @Override
+    public synchronized StringBuffer reset(int maxCapacity) {
+        toStringCache = null;
+        super.reset(maxCapacity);
+        return this;
+    }
+
     /**
      * @throws IndexOutOfBoundsException {@inheritDoc}
      * @see        #length()
@@ -435,6 +435,16 @@ public final class StringBuilder
         return super.lastIndexOf(str, fromIndex);
     }
 
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 11
+     */
+    @Override
+    public StringBuilder reset(int maxCapacity) {
+        super.reset(maxCapacity);
+        return this;
+    }
+
     @Override
     public StringBuilder reverse() {
         super.reverse();
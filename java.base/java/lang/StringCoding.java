@@ -141,7 +141,13 @@ class StringCoding {
 
     @HotSpotIntrinsicCandidate
     public static boolean hasNegatives(byte[] ba, int off, int len) {
-        for (int i = off; i < off + len; i++) {
+        int i = off;
+        for (; i + 8 <= off + len; i += 8) {
+            if ((StringLatin1.getLong(ba, i) & StringLatin1.HIGHS) != 0) {
+                return true;
+            }
+        }
+        for (; i < off + len; i++) {
             if (ba[i] < 0) {
                 return true;
             }
@@ -246,6 +252,29 @@ class StringCoding {
         return sd.decode(ba, off, len);
     }
 
+    /**
+     * 解码bb的剩余字节并把position移到limit。heap缓冲区直接解码其数组，
+     * 其余缓冲区只复制一次，Latin1/ASCII内容直接作为结果数组，不经过char[]
+     */
+    static Result decode(Charset cs, ByteBuffer bb) {
+        int len = bb.remaining();
+        if (bb.hasArray()) {
+            Result ret = decode(cs, bb.array(), bb.arrayOffset() + bb.position(), len);
+            bb.position(bb.limit());
+            return ret;
+        }
+        byte[] ba = new byte[len];
+        bb.get(ba);
+        if (COMPACT_STRINGS &&
+            (cs == ISO_8859_1 || (cs == UTF_8 || cs == US_ASCII) && !hasNegatives(ba, 0, len))) {
+            return resultCached.get().with(ba, LATIN1);
+        }
+        if (cs == UTF_8) {
+            return decodeUTF8_0(ba, 0, len, true);
+        }
+        return decode(cs, ba, 0, len);
+    }
+
     static Result decode(Charset cs, byte[] ba, int off, int len) {
         if (cs == UTF_8) {
             return decodeUTF8(ba, off, len, true);
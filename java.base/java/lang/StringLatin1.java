@@ -35,6 +35,7 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import jdk.internal.HotSpotIntrinsicCandidate;
+import jdk.internal.misc.Unsafe;
 
 import static java.lang.String.LATIN1;
 import static java.lang.String.UTF16;
@@ -42,6 +43,43 @@ import static java.lang.String.checkOffset;
 
 final class StringLatin1 {
 
+    /*
+     * SWAR (SIMD within a register): the loops below read 8 bytes at a time
+     * as a little-endian long, so byte i of a word is bits [8i, 8i+8) and
+     * Long.numberOfTrailingZeros(x) >>> 3 finds the first flagged byte.
+     * This speeds up the interpreter, C1 and the methods not covered by
+     * intrinsics; intrinsified methods keep their semantics.
+     */
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long BASE = Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+    static final long ONES = 0x0101010101010101L;
+    static final long HIGHS = 0x8080808080808080L;
+    static final long LOWS = 0x7f7f7f7f7f7f7f7fL;
+
+    static long getLong(byte[] a, int i) {
+        return U.getLongUnaligned(a, BASE + i, false);
+    }
+
+    static void putLong(byte[] a, int i, long v) {
+        U.putLongUnaligned(a, BASE + i, v, false);
+    }
+
+    // 每个为0的字节置0x80，其余为0，字节之间没有进位，结果精确
+    static long zeroBytes(long x) {
+        return ~(((x & LOWS) + LOWS) | x | LOWS);
+    }
+
+    // w的所有字节都是ASCII时，'A'..'Z'所在字节置0x80
+    static long asciiUpper(long w) {
+        return (w + (0x80 - 'A') * ONES) & ~(w + (0x80 - 'Z' - 1) * ONES) & HIGHS;
+    }
+
+    // w的所有字节都是ASCII时，'a'..'z'所在字节置0x80
+    static long asciiLower(long w) {
+        return (w + (0x80 - 'a') * ONES) & ~(w + (0x80 - 'z' - 1) * ONES) & HIGHS;
+    }
+
     public static char charAt(byte[] value, int index) {
         if (index < 0 || index >= value.length) {
             throw new StringIndexOutOfBoundsException(index);
@@ -92,7 +130,13 @@ final class StringLatin1 {
     @HotSpotIntrinsicCandidate
     public static boolean equals(byte[] value, byte[] other) {
         if (value.length == other.length) {
-            for (int i = 0; i < value.length; i++) {
+            int i = 0;
+            for (; i + 8 <= value.length; i += 8) {
+                if (getLong(value, i) != getLong(other, i)) {
+                    return false;
+                }
+            }
+            for (; i < value.length; i++) {
                 if (value[i] != other[i]) {
                     return false;
                 }
@@ -111,7 +155,15 @@ final class StringLatin1 {
 
     public static int compareTo(byte[] value, byte[] other, int len1, int len2) {
         int lim = Math.min(len1, len2);
-        for (int k = 0; k < lim; k++) {
+        int k = 0;
+        for (; k + 8 <= lim; k += 8) {
+            long x = getLong(value, k) ^ getLong(other, k);
+            if (x != 0) {
+                k += Long.numberOfTrailingZeros(x) >>> 3;
+                return getChar(value, k) - getChar(other, k);
+            }
+        }
+        for (; k < lim; k++) {
             if (value[k] != other[k]) {
                 return getChar(value, k) - getChar(other, k);
             }
@@ -191,9 +243,23 @@ final class StringLatin1 {
     }
 
     public static int hashCode(byte[] value) {
+        // 每次处理8个字节：h = h * 31^8 + b0 * 31^7 + ... + b7，乘法之间没有依赖
         int h = 0;
-        for (byte v : value) {
-            h = 31 * h + (v & 0xff);
+        int i = 0;
+        for (; i + 8 <= value.length; i += 8) {
+            long w = getLong(value, i);
+            h = h * -1_807_454_463                         // 31^8
+                + (int)(w & 0xff) * 1_742_810_335          // 31^7
+                + (int)((w >>> 8) & 0xff) * 887_503_681    // 31^6
+                + (int)((w >>> 16) & 0xff) * 28_629_151    // 31^5
+                + (int)((w >>> 24) & 0xff) * 923_521       // 31^4
+                + (int)((w >>> 32) & 0xff) * 29_791        // 31^3
+                + (int)((w >>> 40) & 0xff) * 961
+                + (int)((w >>> 48) & 0xff) * 31
+                + (int)(w >>> 56);
+        }
+        for (; i < value.length; i++) {
+            h = 31 * h + (value[i] & 0xff);
         }
         return h;
     }
@@ -210,7 +276,15 @@ final class StringLatin1 {
             return -1;
         }
         byte c = (byte)ch;
-        for (int i = fromIndex; i < max; i++) {
+        int i = fromIndex;
+        long pattern = (ch & 0xffL) * ONES;
+        for (; i + 8 <= max; i += 8) {
+            long z = zeroBytes(getLong(value, i) ^ pattern);
+            if (z != 0) {
+                return i + (Long.numberOfTrailingZeros(z) >>> 3);
+            }
+        }
+        for (; i < max; i++) {
             if (value[i] == c) {
                return i;
             }
@@ -334,6 +408,26 @@ final class StringLatin1 {
     public static boolean regionMatchesCI(byte[] value, int toffset,
                                           byte[] other, int ooffset, int len) {
         int last = toffset + len;
+        for (; toffset + 8 <= last; toffset += 8, ooffset += 8) {
+            long w1 = getLong(value, toffset);
+            long w2 = getLong(other, ooffset);
+            if (w1 != w2) {
+                if (((w1 | w2) & HIGHS) == 0) {
+                    // 都是ASCII，转成小写后比较
+                    if ((w1 | (asciiUpper(w1) >>> 2)) != (w2 | (asciiUpper(w2) >>> 2))) {
+                        return false;
+                    }
+                } else if (!regionMatchesCI0(value, toffset, other, ooffset, 8)) {
+                    return false;
+                }
+            }
+        }
+        return regionMatchesCI0(value, toffset, other, ooffset, last - toffset);
+    }
+
+    private static boolean regionMatchesCI0(byte[] value, int toffset,
+                                            byte[] other, int ooffset, int len) {
+        int last = toffset + len;
         while (toffset < last) {
             char c1 = (char)(value[toffset++] & 0xff);
             char c2 = (char)(other[ooffset++] & 0xff);
@@ -381,8 +475,15 @@ final class StringLatin1 {
         }
         int first;
         final int len = value.length;
+        // Skip words of ASCII without upper case letters
+        for (first = 0; first + 8 <= len; first += 8) {
+            long w = getLong(value, first);
+            if ((w & HIGHS) != 0 || asciiUpper(w) != 0) {
+                break;
+            }
+        }
         // Now check if there are any characters that need to be changed, or are surrogate
-        for (first = 0 ; first < len; first++) {
+        for ( ; first < len; first++) {
             int cp = value[first] & 0xff;
             if (cp != Character.toLowerCase(cp)) {  // no need to check Character.ERROR
                 break;
@@ -398,6 +499,15 @@ final class StringLatin1 {
         System.arraycopy(value, 0, result, 0, first);  // Just copy the first few
                                                        // lowerCase characters.
         for (int i = first; i < len; i++) {
+            if (i + 8 <= len) {
+                long w = getLong(value, i);
+                if ((w & HIGHS) == 0) {
+                    // 8个ASCII字符，大写字母加0x20
+                    putLong(result, i, w | (asciiUpper(w) >>> 2));
+                    i += 7;
+                    continue;
+                }
+            }
             int cp = value[i] & 0xff;
             cp = Character.toLowerCase(cp);
             if (!canEncode(cp)) {                      // not a latin1 character
@@ -455,8 +565,15 @@ final class StringLatin1 {
         int first;
         final int len = value.length;
 
+        // Skip words of ASCII without lower case letters
+        for (first = 0; first + 8 <= len; first += 8) {
+            long w = getLong(value, first);
+            if ((w & HIGHS) != 0 || asciiLower(w) != 0) {
+                break;
+            }
+        }
         // Now check if there are any characters that need to be changed, or are surrogate
-        for (first = 0 ; first < len; first++ ) {
+        for ( ; first < len; first++ ) {
             int cp = value[first] & 0xff;
             if (cp != Character.toUpperCaseEx(cp)) {   // no need to check Character.ERROR
                 break;
@@ -473,6 +590,15 @@ final class StringLatin1 {
         System.arraycopy(value, 0, result, 0, first);  // Just copy the first few
                                                        // upperCase characters.
         for (int i = first; i < len; i++) {
+            if (i + 8 <= len) {
+                long w = getLong(value, i);
+                if ((w & HIGHS) == 0) {
+                    // 8个ASCII字符，小写字母减0x20
+                    putLong(result, i, w & ~(asciiLower(w) >>> 2));
+                    i += 7;
+                    continue;
+                }
+            }
             int cp = value[i] & 0xff;
             cp = Character.toUpperCaseEx(cp);
             if (!canEncode(cp)) {                      // not a latin1 character
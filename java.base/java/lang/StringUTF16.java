@@ -33,6 +33,7 @@ import java.util.function.IntConsumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import jdk.internal.HotSpotIntrinsicCandidate;
+import jdk.internal.misc.Unsafe;
 import jdk.internal.vm.annotation.ForceInline;
 import jdk.internal.vm.annotation.DontInline;
 
@@ -344,9 +345,15 @@ final class StringUTF16 {
     }
 
     public static int hashCode(byte[] value) {
+        // 每次4个字符：h = h * 31^4 + c0 * 31^3 + c1 * 31^2 + c2 * 31 + c3
         int h = 0;
         int length = value.length >> 1;
-        for (int i = 0; i < length; i++) {
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            h = h * 923_521 + getChar(value, i) * 29_791 + getChar(value, i + 1) * 961
+                + getChar(value, i + 2) * 31 + getChar(value, i + 3);
+        }
+        for (; i < length; i++) {
             h = 31 * h + getChar(value, i);
         }
         return h;
@@ -471,7 +478,18 @@ final class StringUTF16 {
     }
 
     private static int indexOfCharUnsafe(byte[] value, int ch, int fromIndex, int max) {
-        for (int i = fromIndex; i < max; i++) {
+        // SWAR：每次读4个字符，按本地字节序，与value的布局一致
+        int i = fromIndex;
+        long pattern = (ch & 0xffffL) * 0x0001000100010001L;
+        for (; i + 4 <= max; i += 4) {
+            long x = U.getLongUnaligned(value, BASE + (i << 1)) ^ pattern;
+            long z = ~(((x & LOWS) + LOWS) | x | LOWS);
+            if (z != 0) {
+                return i + ((HI_BYTE_SHIFT == 0 ? Long.numberOfTrailingZeros(z)
+                                                : Long.numberOfLeadingZeros(z)) >>> 4);
+            }
+        }
+        for (; i < max; i++) {
             if (getChar(value, i) == ch) {
                 return i;
             }
@@ -1350,6 +1368,11 @@ final class StringUTF16 {
 
     private static native boolean isBigEndian();
 
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long BASE = Unsafe.ARRAY_BYTE_BASE_OFFSET;
+    // 每个16位通道的低15位
+    private static final long LOWS = 0x7fff7fff7fff7fffL;
+
     static final int HI_BYTE_SHIFT;
     static final int LO_BYTE_SHIFT;
     static {
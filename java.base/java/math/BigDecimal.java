@@ -1999,6 +1999,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         final StringBuilder sb;    // Placeholder for BigDecimal string
         final char[] cmpCharArray; // character array to place the intCompact
 
+        static final int MAX_RETAINED_CAPACITY = 1024;
+
         StringBuilderHelper() {
             sb = new StringBuilder();
             // All non negative longs can be made to fit into 19 character array.
@@ -2007,7 +2009,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
 
         // Accessors.
         StringBuilder getStringBuilder() {
-            sb.setLength(0);
+            // do not keep the array grown for a very long number
+            sb.reset(MAX_RETAINED_CAPACITY);
             return sb;
         }
 
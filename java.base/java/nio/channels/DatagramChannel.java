@@ -33,6 +33,7 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.spi.AbstractSelectableChannel;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.Objects;
 
 /**
  * A selectable channel for datagram-oriented sockets.
@@ -487,6 +488,216 @@ public abstract class DatagramChannel
     public abstract int send(ByteBuffer src, SocketAddress target)
         throws IOException;
 
+    /**
+     * Receives a batch of datagrams via this channel.
+     *
+     * <p> Each datagram is transferred into the next of the {@code length}
+     * buffers of {@code dsts} starting at index {@code offset}, as if by the
+     * {@link #receive(ByteBuffer) receive} method, and its source address is
+     * stored into the element of {@code sources} with the same index.
+     *
+     * <p> If this channel is in blocking mode, this method waits until at
+     * least one datagram is available, then receives the datagrams that are
+     * immediately available, up to {@code length} of them, without waiting
+     * again.  If this channel is in non-blocking mode, this method receives
+     * the datagrams that are immediately available, possibly none.  An
+     * implementation may receive all of them with a single system call.
+     *
+     * <p> If an I/O error occurs after at least one datagram has been
+     * received, this method returns the number of datagrams received instead
+     * of throwing an exception; if the error persists it is thrown by the
+     * next invocation.
+     *
+     * <p> This method performs the same security checks as the {@link
+     * #receive(ByteBuffer) receive} method, for each datagram.
+     *
+     * @implSpec The default implementation invokes {@link
+     * #receive(ByteBuffer) receive} once if this channel is in blocking
+     * mode, and otherwise repeatedly until no datagram is available.
+     *
+     * @param  dsts
+     *         The buffers into which the datagrams are to be transferred
+     *
+     * @param  sources
+     *         The array into which the source addresses are stored
+     *
+     * @param  offset
+     *         The index within both arrays of the first element to be used;
+     *         must be non-negative and no larger than the length of either
+     *         array
+     *
+     * @param  length
+     *         The maximum number of datagrams to be received; must be
+     *         non-negative and no larger than the length of either array
+     *         minus {@code offset}
+     *
+     * @return  The number of datagrams received, which are in the elements
+     *          {@code offset} to {@code offset + n - 1} of both arrays
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the {@code offset} and {@code length}
+     *          parameters do not hold
+     *
+     * @throws  IllegalArgumentException
+     *          If one of the buffers is read-only
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the read operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the read operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  SecurityException
+     *          If a security manager has been installed
+     *          and it does not permit datagrams to be accepted
+     *          from a datagram's sender
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 11
+     */
+    public int receive(ByteBuffer[] dsts, SocketAddress[] sources,
+                       int offset, int length)
+        throws IOException
+    {
+        checkBatch(dsts, sources, offset, length);
+        int n = 0;
+        while (n < length) {
+            SocketAddress sa;
+            try {
+                sa = receive(dsts[offset + n]);
+            } catch (IOException x) {
+                if (n == 0)
+                    throw x;
+                break;
+            }
+            if (sa == null)
+                break;
+            sources[offset + n] = sa;
+            n++;
+            if (isBlocking())
+                break;
+        }
+        return n;
+    }
+
+    /**
+     * Sends a batch of datagrams via this channel.
+     *
+     * <p> The remaining bytes of each of the {@code length} buffers of
+     * {@code srcs} starting at index {@code offset} are sent as one
+     * datagram, as if by the {@link #send(ByteBuffer,SocketAddress) send}
+     * method, to the address in the element of {@code targets} with the same
+     * index.  The datagrams are sent in order.  If this channel is in
+     * blocking mode then all of them are sent; if it is in non-blocking mode
+     * then sending stops at the first datagram for which there is
+     * insufficient room in the underlying output buffer.  An implementation
+     * may send all of them with a single system call.
+     *
+     * <p> If an I/O error occurs after at least one datagram has been sent,
+     * this method returns the number of datagrams sent instead of throwing an
+     * exception; if the error persists it is thrown by the next invocation.
+     *
+     * <p> All target addresses are checked before any datagram is sent.
+     * This method performs the same security checks as the {@link
+     * #send(ByteBuffer,SocketAddress) send} method, for each datagram.
+     *
+     * @implSpec The default implementation invokes {@link
+     * #send(ByteBuffer,SocketAddress) send} for each datagram in turn.
+     *
+     * @param  srcs
+     *         The buffers containing the datagrams to be sent
+     *
+     * @param  targets
+     *         The addresses to which the datagrams are to be sent
+     *
+     * @param  offset
+     *         The index within both arrays of the first element to be used;
+     *         must be non-negative and no larger than the length of either
+     *         array
+     *
+     * @param  length
+     *         The number of datagrams to be sent; must be non-negative and
+     *         no larger than the length of either array minus {@code offset}
+     *
+     * @return  The number of datagrams sent
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the {@code offset} and {@code length}
+     *          parameters do not hold
+     *
+     * @throws  AlreadyConnectedException
+     *          If this channel is connected to a different address
+     *          from one of the targets
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the write operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the write operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  UnresolvedAddressException
+     *          If one of the target addresses is not fully resolved
+     *
+     * @throws  UnsupportedAddressTypeException
+     *          If the type of one of the target addresses is not supported
+     *
+     * @throws  SecurityException
+     *          If a security manager has been installed
+     *          and it does not permit datagrams to be sent
+     *          to one of the addresses
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 11
+     */
+    public int send(ByteBuffer[] srcs, SocketAddress[] targets,
+                    int offset, int length)
+        throws IOException
+    {
+        checkBatch(srcs, targets, offset, length);
+        int n = 0;
+        while (n < length) {
+            ByteBuffer src = srcs[offset + n];
+            boolean empty = !src.hasRemaining();
+            int sent;
+            try {
+                sent = send(src, targets[offset + n]);
+            } catch (IOException x) {
+                if (n == 0)
+                    throw x;
+                break;
+            }
+            if (sent == 0 && !empty)
+                break;
+            n++;
+        }
+        return n;
+    }
+
+    private static void checkBatch(ByteBuffer[] bufs, SocketAddress[] addrs,
+                                   int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, bufs.length);
+        Objects.checkFromIndexSize(offset, length, addrs.length);
+    }
+
 
     // -- ByteChannel operations --
 
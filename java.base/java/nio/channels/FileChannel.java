@@ -35,6 +35,8 @@ import java.nio.file.spi.*;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * A channel for reading, writing, mapping, and manipulating a file.
@@ -630,6 +632,120 @@ public abstract class FileChannel
                                     WritableByteChannel target)
         throws IOException;
 
+    /**
+     * Transfers a sequence of ranges of this channel's file to the given
+     * writable byte channel, asynchronously.
+     *
+     * <p> This method initiates the transfer of the ranges
+     * {@code [positions[i], positions[i] + counts[i])}, for {@code i} from
+     * {@code 0} to {@code positions.length - 1}, to the target channel in
+     * that order, and returns without waiting for it to complete.  The
+     * transfer is performed by tasks submitted to the given executor.  The
+     * result passed to the completion handler is the total number of bytes
+     * transferred.
+     *
+     * <p> Each range is transferred in the manner of the {@link
+     * #transferTo(long,long,WritableByteChannel) transferTo} method.  A range,
+     * or the part of it, that lies beyond the file's size at the time that
+     * the transfer is initiated is not transferred.  The transfer stops
+     * early, and completes with the number of bytes transferred so far, if
+     * the target channel accepts no bytes, as when a non-blocking target has
+     * no room in its output buffer; the target should therefore be in
+     * blocking mode.  If an I/O error occurs after some bytes have been
+     * transferred then the transfer completes with the number of bytes
+     * transferred.  Otherwise the exception, which may be any exception that
+     * {@code transferTo} throws, such as {@link NonReadableChannelException}
+     * or {@link ClosedChannelException}, is passed to the handler's {@link
+     * CompletionHandler#failed failed} method.
+     *
+     * <p> Neither this channel's position nor the arrays given to this
+     * method are used once it returns.  Other operations on the target
+     * channel must not be performed while the transfer is in progress.
+     *
+     * <p> Implementations may keep several ranges in flight, reading ahead
+     * of the range that is being written.  The default implementation
+     * transfers the ranges one by one, in a single task.
+     *
+     * @param   <A>
+     *          The type of the attachment
+     * @param   positions
+     *          The positions within the file at which the ranges begin;
+     *          must be non-negative
+     * @param   counts
+     *          The lengths of the ranges; must be non-negative and have the
+     *          same number of elements as {@code positions}
+     * @param   target
+     *          The target channel
+     * @param   executor
+     *          The executor that runs the transfer
+     * @param   attachment
+     *          The object to attach to the I/O operation; can be {@code null}
+     * @param   handler
+     *          The handler for consuming the result
+     *
+     * @throws  IllegalArgumentException
+     *          If the preconditions on the parameters do not hold
+     * @throws  java.util.concurrent.RejectedExecutionException
+     *          If the executor does not accept the transfer task
+     *
+     * @since 11
+     */
+    public <A> void transferTo(long[] positions,
+                               long[] counts,
+                               WritableByteChannel target,
+                               Executor executor,
+                               A attachment,
+                               CompletionHandler<Long,? super A> handler)
+    {
+        long[] ps = positions.clone();
+        long[] cs = counts.clone();
+        checkRanges(ps, cs);
+        Objects.requireNonNull(target);
+        Objects.requireNonNull(handler);
+        executor.execute(() -> {
+            long total = 0;
+            try {
+                // ranges are clamped to the size when the transfer starts
+                long fileSize = size();
+                for (int i = 0; i < ps.length; i++) {
+                    long position = ps[i];
+                    long end = Math.min(position + cs[i], fileSize);
+                    while (position < end) {
+                        long n = transferTo(position, end - position, target);
+                        if (n == 0)
+                            break;
+                        position += n;
+                        total += n;
+                    }
+                    if (position < end)
+                        break;
+                }
+            } catch (Throwable x) {
+                if (total == 0 || !(x instanceof IOException)) {
+                    handler.failed(x, attachment);
+                    return;
+                }
+            }
+            handler.completed(total, attachment);
+        });
+    }
+
+    /**
+     * Checks the ranges given to {@code transferTo(long[],long[],...)}.
+     *
+     * @throws IllegalArgumentException if the arrays differ in length, or a
+     *         position or count is negative or their sum overflows
+     */
+    private static void checkRanges(long[] positions, long[] counts) {
+        if (positions.length != counts.length)
+            throw new IllegalArgumentException();
+        for (int i = 0; i < positions.length; i++) {
+            long p = positions[i], c = counts[i];
+            if (p < 0 || c < 0 || p + c < 0)
+                throw new IllegalArgumentException();
+        }
+    }
+
     /**
      * Transfers bytes into this channel's file from the given readable byte
      * channel.
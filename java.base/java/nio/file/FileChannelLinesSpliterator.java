@@ -32,13 +32,19 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
@@ -63,6 +69,23 @@ import java.util.function.Consumer;
  * the range of bytes of the file.  The lines are then read from that buffered
  * reader.  Once traversing commences no further splitting can be performed and
  * the reference to the mapped byte buffer will be set to null.
+ *
+ * <p>
+ * Files larger than {@code Integer.MAX_VALUE} bytes cannot be covered by one
+ * mapped byte buffer.  For such files each split instead maps a window of at
+ * most {@code 2 * PROBE_WINDOW} bytes around the mid-point, and the split
+ * fails if no line feed characters(s) are found within that window.
+ *
+ * <p>
+ * A charset is supported if it is stateless and every line feed or carriage
+ * return byte in its encoded form stands for that character, so the byte
+ * following a line separator starts a character (see {@link #isSupported}).
+ * Besides the standard charsets in {@code SUPPORTED_CHARSET_NAMES} these are
+ * the single-byte charsets that encode both characters as in ASCII, such as
+ * ISO-8859-x and windows-125x, and the multibyte charsets in
+ * {@code MULTIBYTE_CHARSET_NAMES}, whose trailing bytes are never below 0x30.
+ * Charsets with shift states, such as ISO-2022-JP, where a line feed byte
+ * inside a shifted sequence is not a line break, are not supported.
  */
 final class FileChannelLinesSpliterator implements Spliterator<String> {
 
@@ -74,24 +97,41 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         SUPPORTED_CHARSET_NAMES.add(US_ASCII.INSTANCE.name());
     }
 
+    // Stateless EUC, GB, Big5 and Shift_JIS family charsets, in which bytes
+    // below 0x80 only ever encode ASCII characters, or (GB18030) other bytes
+    // of a sequence are at least 0x30
+    static final Set<String> MULTIBYTE_CHARSET_NAMES = Set.of(
+        "EUC-JP", "x-euc-jp-linux", "x-eucJP-Open", "EUC-KR", "x-EUC-TW",
+        "GB2312", "GBK", "x-mswin-936", "GB18030",
+        "Big5", "Big5-HKSCS", "x-Big5-HKSCS-2001", "x-Big5-Solaris",
+        "x-windows-950", "x-MS950-HKSCS", "x-MS950-HKSCS-XP",
+        "Shift_JIS", "windows-31j", "x-SJIS_0213", "x-MS932_0213", "x-PCK",
+        "x-windows-949", "x-Johab");
+
+    // Results of isSupported for single-byte charsets, by name
+    private static final ConcurrentHashMap<String, Boolean> SINGLE_BYTE = new ConcurrentHashMap<>();
+
+    // Half the size of the region mapped by a split of a large file
+    static final int PROBE_WINDOW = 1 << 20;
+
     private final FileChannel fc;
     private final Charset cs;
-    private int index;
-    private final int fence;
+    private long index;
+    private final long fence;
 
     // Null before first split, non-null when splitting, null when traversing
     private ByteBuffer buffer;
     // Non-null when traversing
     private BufferedReader reader;
 
-    FileChannelLinesSpliterator(FileChannel fc, Charset cs, int index, int fence) {
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs, long index, long fence) {
         this.fc = fc;
         this.cs = cs;
         this.index = index;
         this.fence = fence;
     }
 
-    private FileChannelLinesSpliterator(FileChannel fc, Charset cs, int index, int fence, ByteBuffer buffer) {
+    private FileChannelLinesSpliterator(FileChannel fc, Charset cs, long index, long fence, ByteBuffer buffer) {
         this.fc = fc;
         this.buffer = buffer;
         this.cs = cs;
@@ -99,6 +139,49 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         this.fence = fence;
     }
 
+    /**
+     * Returns true if lines of a file in the given charset can be split on
+     * line feed and carriage return bytes.
+     */
+    static boolean isSupported(Charset cs) {
+        String name = cs.name();
+        if (SUPPORTED_CHARSET_NAMES.contains(name) || MULTIBYTE_CHARSET_NAMES.contains(name))
+            return true;
+        Boolean b = SINGLE_BYTE.get(name);
+        if (b == null) {
+            b = isSingleByteLineSafe(cs);
+            SINGLE_BYTE.putIfAbsent(name, b);
+        }
+        return b;
+    }
+
+    /**
+     * Returns true if the charset encodes every character as one byte, so
+     * it has no shift states, and the bytes 0x0A and 0x0D decode to line feed
+     * and carriage return and are what those characters encode to.
+     */
+    private static boolean isSingleByteLineSafe(Charset cs) {
+        if (!cs.canEncode())
+            return false;
+        try {
+            CharsetEncoder enc = cs.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            CharsetDecoder dec = cs.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            if (enc.maxBytesPerChar() != 1.0f || dec.maxCharsPerByte() != 1.0f)
+                return false;
+            ByteBuffer bb = enc.encode(CharBuffer.wrap("\n\r"));
+            if (bb.remaining() != 2 || bb.get(0) != '\n' || bb.get(1) != '\r')
+                return false;
+            CharBuffer cb = dec.decode(ByteBuffer.wrap(new byte[] { '\n', '\r' }));
+            return cb.remaining() == 2 && cb.get(0) == '\n' && cb.get(1) == '\r';
+        } catch (CharacterCodingException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
     @Override
     public boolean tryAdvance(Consumer<? super String> action) {
         String line = readLine();
@@ -126,7 +209,7 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         ReadableByteChannel rrbc = new ReadableByteChannel() {
             @Override
             public int read(ByteBuffer dst) throws IOException {
-                int bytesToRead = fence - index;
+                long bytesToRead = fence - index;
                 if (bytesToRead == 0)
                     return -1;
 
@@ -136,7 +219,7 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
                     // bytes in the buffer
                     // Snapshot the limit, reduce it, read, then restore
                     int oldLimit = dst.limit();
-                    dst.limit(dst.position() + bytesToRead);
+                    dst.limit(dst.position() + (int) bytesToRead);
                     bytesRead = fc.read(dst, index);
                     dst.limit(oldLimit);
                 } else {
@@ -177,7 +260,7 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         }
     }
 
-    private ByteBuffer getMappedByteBuffer() {
+    private ByteBuffer getMappedByteBuffer(long position, long size) {
         // TODO can the mapped byte buffer be explicitly unmapped?
         // It's possible, via a shared-secret mechanism, when either
         // 1) the spliterator starts traversing, although traversal can
@@ -186,7 +269,7 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         // 2) when the stream is closed using some shared holder to pass
         //    the mapped byte buffer when it is created.
         try {
-            return fc.map(FileChannel.MapMode.READ_ONLY, 0, fence);
+            return fc.map(FileChannel.MapMode.READ_ONLY, position, size);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -198,32 +281,47 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
         if (reader != null)
             return null;
 
+        final long hi = fence, lo = index;
+        long mid = (lo + hi) >>> 1;
+
+        // The bytes [from, to) are scanned for a line separator; they are at
+        // offset (position - from) of b, which maps [from, end)
         ByteBuffer b;
-        if ((b = buffer) == null) {
-            b = buffer = getMappedByteBuffer();
+        final long from, to, end;
+        if ((b = buffer) != null || hi <= Integer.MAX_VALUE) {
+            // Map the whole file once, shared with the sub-spliterators
+            if (b == null) {
+                b = buffer = getMappedByteBuffer(0, hi);
+            }
+            from = 0;
+            to = end = hi;
+        } else {
+            // Map a window around the mid point for this split only, plus
+            // one byte so that a "\r" at the right edge is kept with a
+            // following "\n"
+            from = Math.max(lo, mid - PROBE_WINDOW);
+            to = Math.min(hi, mid + PROBE_WINDOW);
+            end = Math.min(hi, to + 1);
+            b = getMappedByteBuffer(from, end - from);
         }
 
-        final int hi = fence, lo = index;
-
         // Check if line separator hits the mid point
-        int mid = (lo + hi) >>> 1;
-        int c =  b.get(mid);
+        int c =  b.get((int) (mid - from));
         if (c == '\n') {
             mid++;
         } else if (c == '\r') {
             // Check if a line separator of "\r\n"
-            if (++mid < hi && b.get(mid) == '\n') {
+            if (++mid < end && b.get((int) (mid - from)) == '\n') {
                 mid++;
             }
         } else {
-            // TODO give up after a certain distance from the mid point?
             // Scan to the left and right of the mid point
-            int midL = mid - 1;
-            int midR = mid + 1;
-            mid = 0;
-            while (midL > lo && midR < hi) {
+            long midL = mid - 1;
+            long midR = mid + 1;
+            mid = -1;
+            while (midL > Math.max(lo, from) && midR < to) {
                 // Sample to the left
-                c = b.get(midL--);
+                c = b.get((int) (midL-- - from));
                 if (c == '\n' || c == '\r') {
                     // If c is "\r" then no need to check for "\r\n"
                     // since the subsequent value was previously checked
@@ -232,11 +330,11 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
                 }
 
                 // Sample to the right
-                c = b.get(midR++);
+                c = b.get((int) (midR++ - from));
                 if (c == '\n' || c == '\r') {
                     mid = midR;
                     // Check if line-separator is "\r\n"
-                    if (c == '\r' && mid < hi && b.get(mid) == '\n') {
+                    if (c == '\r' && mid < end && b.get((int) (mid - from)) == '\n') {
                         mid++;
                     }
                     break;
@@ -246,7 +344,7 @@ final class FileChannelLinesSpliterator implements Spliterator<String> {
 
         // The left spliterator will have the line-separator at the end
         return (mid > lo && mid < hi)
-               ? new FileChannelLinesSpliterator(fc, cs, lo, index = mid, b)
+               ? new FileChannelLinesSpliterator(fc, cs, lo, index = mid, buffer)
                : null;
     }
 
@@ -3988,11 +3988,15 @@ public final class Files {
      * This implementation supports good parallel stream performance for the
      * standard charsets {@link StandardCharsets#UTF_8 UTF-8},
      * {@link StandardCharsets#US_ASCII US-ASCII} and
-     * {@link StandardCharsets#ISO_8859_1 ISO-8859-1}.  Such
+     * {@link StandardCharsets#ISO_8859_1 ISO-8859-1}, for the other
+     * single-byte charsets that encode line feed and carriage return as in
+     * ASCII, and for the stateless EUC, GB, Big5 and Shift_JIS family
+     * charsets.  Charsets with shift states, such as ISO-2022-JP, are not
+     * supported.  Such
      * <em>line-optimal</em> charsets have the property that the encoded bytes
      * of a line feed ('\n') or a carriage return ('\r') are efficiently
      * identifiable from other encoded characters when randomly accessing the
-     * bytes of the file.
+     * bytes of the file.  Files of any size are supported.
      *
      * <p> For non-<em>line-optimal</em> charsets the stream source's
      * spliterator has poor splitting properties, similar to that of a
@@ -4029,12 +4033,10 @@ public final class Files {
      */
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
         // Use the good splitting spliterator if:
-        // 1) the path is associated with the default file system;
-        // 2) the character set is supported; and
-        // 3) the file size is such that all bytes can be indexed by int values
-        //    (this limitation is imposed by ByteBuffer)
+        // 1) the path is associated with the default file system; and
+        // 2) the character set is supported
         if (path.getFileSystem() == FileSystems.getDefault() &&
-            FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            FileChannelLinesSpliterator.isSupported(cs)) {
             FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
 
             Stream<String> fcls = createFileChannelLinesStream(fc, cs);
@@ -4054,8 +4056,8 @@ public final class Files {
             long length = fc.size();
             // FileChannel.size() may in certain circumstances return zero
             // for a non-zero length file so disallow this case.
-            if (length > 0 && length <= Integer.MAX_VALUE) {
-                Spliterator<String> s = new FileChannelLinesSpliterator(fc, cs, 0, (int) length);
+            if (length > 0) {
+                Spliterator<String> s = new FileChannelLinesSpliterator(fc, cs, 0, length);
                 return StreamSupport.stream(s, false)
                         .onClose(Files.asUncheckedRunnable(fc));
             }
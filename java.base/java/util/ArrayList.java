@@ -7,6 +7,7 @@ package java.util;
 
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import jdk.internal.access.SharedSecrets;
 
@@ -1430,6 +1431,26 @@ public class ArrayList<E> extends AbstractList<E> implements List<E>, RandomAcce
         modCount++;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public void parallelSort(Comparator<? super E> c) {
+        final int expectedModCount = modCount;
+        Arrays.parallelSort((E[])elementData, 0, size, c);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+        final int expectedModCount = modCount;
+        Arrays.parallelSortByKey((E[])elementData, 0, size, keyExtractor);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        modCount++;
+    }
+
     void checkInvariants() {
         // assert size >= 0;
         // assert size == elementData.length || elementData[size] == null;
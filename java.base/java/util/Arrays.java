@@ -19,6 +19,7 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -34,6 +35,11 @@ public class Arrays {
 
     private static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
 
+    /**
+     * 大于这个长度的int数组并行排序时使用并行基数排序，而不是并行归并排序
+     */
+    private static final int MIN_ARRAY_RADIX_SORT_LENGTH = 1 << 20;
+
     private Arrays() {
     }
 
@@ -190,6 +196,8 @@ public class Arrays {
         int n = a.length, p, g;
         if (n <= MIN_ARRAY_SORT_GRAN || (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArraysParallelSortHelpers.FJIntRadix.sort(a, 0, n, new int[n], Math.min(p << 2, n / MIN_ARRAY_SORT_GRAN));
         else
             new ArraysParallelSortHelpers.FJInt.Sorter(null, a, new int[n], 0, n, 0,
                                                        ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g).invoke();
@@ -200,6 +208,8 @@ public class Arrays {
         int n = toIndex - fromIndex, p, g;
         if (n <= MIN_ARRAY_SORT_GRAN || (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT_LENGTH)
+            ArraysParallelSortHelpers.FJIntRadix.sort(a, fromIndex, n, new int[n], Math.min(p << 2, n / MIN_ARRAY_SORT_GRAN));
         else
             new ArraysParallelSortHelpers.FJInt.Sorter(null, a, new int[n], fromIndex, n, 0,
                                                        ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g).invoke();
@@ -310,6 +320,55 @@ public class Arrays {
                                                             ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g, cmp).invoke();
     }
 
+    /**
+     * 按 long 类型的键并行稳定排序，键只提取一次，排序过程中不调用比较器
+     *
+     * <p>Sorts the array into ascending order of the keys returned by {@code keyExtractor}. The sort is stable. Keys are
+     * extracted once per element into a {@code long[]} that is sorted alongside the elements, using radix sort for the
+     * sequential leaves and merging in the common pool as the other {@code parallelSort} methods do. This needs a
+     * workspace of one reference and two {@code long}s per element.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function that extracts the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null
+     */
+    public static <T> void parallelSortByKey(T[] a, ToLongFunction<? super T> keyExtractor) {
+        parallelSortByKey(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the range {@code [fromIndex, toIndex)} of the array into ascending order of the keys returned by
+     * {@code keyExtractor}, as {@link #parallelSortByKey(Object[], ToLongFunction)} does.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     * @param keyExtractor the function that extracts the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or {@code toIndex > a.length}
+     * @throws NullPointerException if {@code keyExtractor} is null
+     */
+    public static <T> void parallelSortByKey(T[] a, int fromIndex, int toIndex, ToLongFunction<? super T> keyExtractor) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        Objects.requireNonNull(keyExtractor);
+        int n = toIndex - fromIndex, p, g;
+        long[] keys = new long[n]; // keys[i - fromIndex] is the key of a[i]
+        if (n <= MIN_ARRAY_SORT_GRAN || (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
+            for (int i = 0; i < n; i++)
+                keys[i] = keyExtractor.applyAsLong(a[fromIndex + i]);
+            ArraysParallelSortHelpers.FJKeyed.sort(a, keys, -fromIndex, fromIndex, n,
+                                                   new Object[n], new long[n], 0, 0);
+        }
+        else {
+            parallelSetAll(keys, i -> keyExtractor.applyAsLong(a[fromIndex + i]));
+            new ArraysParallelSortHelpers.FJKeyed.Sorter(null, a, keys, -fromIndex, new Object[n], new long[n], 0,
+                                                         fromIndex, n, 0,
+                                                         ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g).invoke();
+        }
+    }
+
     /*
      * Sorting of complex type arrays.
      */
@@ -1476,6 +1535,16 @@ public class Arrays {
             Arrays.sort(a, c);
         }
 
+        @Override
+        public void parallelSort(Comparator<? super E> c) {
+            Arrays.parallelSort(a, c);
+        }
+
+        @Override
+        public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+            Arrays.parallelSortByKey(a, keyExtractor);
+        }
+
         @Override
         public Iterator<E> iterator() {
             return new ArrayItr<>(a);
@@ -230,6 +230,201 @@ import java.util.concurrent.CountedCompleter;
         }
     } // FJObject
 
+    /**
+     * Object + long key support class. Keys are extracted once into
+     * long arrays that travel with the elements, so sorting and
+     * merging compare primitives instead of calling a comparator.
+     * Each side (main and workspace) has a key array and an offset
+     * from element index to key index; the sides swap roles exactly
+     * as a and w do in FJObject.  Leaves use a stable LSD radix sort.
+     */
+    static final class FJKeyed {
+        static final class Sorter extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final Object[] a, w;
+            final long[] ka, kw;
+            final int aoff, woff, base, size, wbase, gran;
+            Sorter(CountedCompleter<?> par, Object[] a, long[] ka, int aoff,
+                   Object[] w, long[] kw, int woff, int base, int size,
+                   int wbase, int gran) {
+                super(par);
+                this.a = a; this.ka = ka; this.aoff = aoff;
+                this.w = w; this.kw = kw; this.woff = woff;
+                this.base = base; this.size = size;
+                this.wbase = wbase; this.gran = gran;
+            }
+            public final void compute() {
+                CountedCompleter<?> s = this;
+                Object[] a = this.a, w = this.w; // localize all params
+                long[] ka = this.ka, kw = this.kw;
+                int ao = this.aoff, wo = this.woff;
+                int b = this.base, n = this.size, wb = this.wbase, g = this.gran;
+                while (n > g) {
+                    int h = n >>> 1, q = h >>> 1, u = h + q; // quartiles
+                    Relay fc = new Relay(new Merger(s, w, kw, wo, a, ka, ao, wb, h,
+                                                    wb+h, n-h, b, g));
+                    Relay rc = new Relay(new Merger(fc, a, ka, ao, w, kw, wo, b+h, q,
+                                                    b+u, n-u, wb+h, g));
+                    new Sorter(rc, a, ka, ao, w, kw, wo, b+u, n-u, wb+u, g).fork();
+                    new Sorter(rc, a, ka, ao, w, kw, wo, b+h, q, wb+h, g).fork();
+                    Relay bc = new Relay(new Merger(fc, a, ka, ao, w, kw, wo, b, q,
+                                                    b+q, h-q, wb, g));
+                    new Sorter(bc, a, ka, ao, w, kw, wo, b+q, h-q, wb+q, g).fork();
+                    s = new EmptyCompleter(bc);
+                    n = q;
+                }
+                sort(a, ka, ao, b, n, w, kw, wo, wb);
+                s.tryComplete();
+            }
+        }
+
+        static final class Merger extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final Object[] a, w; // source and destination arrays
+            final long[] ka, kw;
+            final int aoff, woff, lbase, lsize, rbase, rsize, wbase, gran;
+            Merger(CountedCompleter<?> par, Object[] a, long[] ka, int aoff,
+                   Object[] w, long[] kw, int woff,
+                   int lbase, int lsize, int rbase,
+                   int rsize, int wbase, int gran) {
+                super(par);
+                this.a = a; this.ka = ka; this.aoff = aoff;
+                this.w = w; this.kw = kw; this.woff = woff;
+                this.lbase = lbase; this.lsize = lsize;
+                this.rbase = rbase; this.rsize = rsize;
+                this.wbase = wbase; this.gran = gran;
+            }
+
+            public final void compute() {
+                Object[] a = this.a, w = this.w; // localize all params
+                long[] ka = this.ka, kw = this.kw;
+                int ao = this.aoff, wo = this.woff;
+                int lb = this.lbase, ln = this.lsize, rb = this.rbase,
+                    rn = this.rsize, k = this.wbase, g = this.gran;
+                if (a == null || w == null || ka == null || kw == null ||
+                    lb < 0 || rb < 0 || k < 0)
+                    throw new IllegalStateException(); // hoist checks
+                for (int lh, rh;;) {  // split larger, find point in smaller
+                    if (ln >= rn) {
+                        if (ln <= g)
+                            break;
+                        rh = rn;
+                        long split = ka[(lh = ln >>> 1) + lb + ao];
+                        for (int lo = 0; lo < rh; ) {
+                            int rm = (lo + rh) >>> 1;
+                            if (split <= ka[rm + rb + ao])
+                                rh = rm;
+                            else
+                                lo = rm + 1;
+                        }
+                    }
+                    else {
+                        if (rn <= g)
+                            break;
+                        lh = ln;
+                        long split = ka[(rh = rn >>> 1) + rb + ao];
+                        for (int lo = 0; lo < lh; ) { // keep equal keys of the left run first
+                            int lm = (lo + lh) >>> 1;
+                            if (split < ka[lm + lb + ao])
+                                lh = lm;
+                            else
+                                lo = lm + 1;
+                        }
+                    }
+                    Merger m = new Merger(this, a, ka, ao, w, kw, wo,
+                                          lb + lh, ln - lh, rb + rh, rn - rh,
+                                          k + lh + rh, g);
+                    rn = rh;
+                    ln = lh;
+                    addToPendingCount(1);
+                    m.fork();
+                }
+
+                int lf = lb + ln, rf = rb + rn; // index bounds
+                while (lb < lf && rb < rf) {
+                    long kl = ka[lb + ao], kr = ka[rb + ao];
+                    if (kl <= kr) {
+                        kw[k + wo] = kl; w[k++] = a[lb++];
+                    }
+                    else {
+                        kw[k + wo] = kr; w[k++] = a[rb++];
+                    }
+                }
+                if (rb < rf) {
+                    System.arraycopy(a, rb, w, k, rf - rb);
+                    System.arraycopy(ka, rb + ao, kw, k + wo, rf - rb);
+                }
+                else if (lb < lf) {
+                    System.arraycopy(a, lb, w, k, lf - lb);
+                    System.arraycopy(ka, lb + ao, kw, k + wo, lf - lb);
+                }
+
+                tryComplete();
+            }
+        }
+
+        /** Below this size, leaves use insertion sort instead of radix sort */
+        static final int INSERTION_SORT_THRESHOLD = 64;
+
+        /**
+         * Stably sorts a[b, b+n) by the keys ka[b+ao, b+ao+n), leaving
+         * the result in a and ka.  Uses w[wb, wb+n) and kw[wb+wo, ...)
+         * as workspace.  Radix sort scatters one byte of the key per
+         * pass, after flipping the sign bit so that unsigned byte order
+         * matches signed key order, and skips bytes shared by all keys.
+         */
+        static void sort(Object[] a, long[] ka, int ao, int b, int n,
+                         Object[] w, long[] kw, int wo, int wb) {
+            if (n < INSERTION_SORT_THRESHOLD) {
+                for (int i = b + 1, end = b + n; i < end; i++) {
+                    long x = ka[i + ao];
+                    Object t = a[i];
+                    int j = i - 1;
+                    for (; j >= b && ka[j + ao] > x; j--) {
+                        ka[j + 1 + ao] = ka[j + ao];
+                        a[j + 1] = a[j];
+                    }
+                    ka[j + 1 + ao] = x;
+                    a[j + 1] = t;
+                }
+                return;
+            }
+            int[] count = new int[8 << 8]; // histograms of all eight bytes
+            for (int i = b + ao, end = i + n; i < end; i++) {
+                long x = ka[i] ^ Long.MIN_VALUE;
+                for (int d = 0; d < 8; d++, x >>>= 8)
+                    count[(d << 8) | (int)(x & 0xFF)]++;
+            }
+            Object[] src = a, dst = w;
+            long[] ksrc = ka, kdst = kw;
+            int sb = b, db = wb, so = ao, dof = wo;
+            for (int d = 0; d < 8; d++) {
+                int c = d << 8, shift = d << 3;
+                if (count[c + (int)(((ksrc[sb + so] ^ Long.MIN_VALUE) >>> shift) & 0xFF)] == n)
+                    continue; // every key has the same byte
+                for (int i = c, sum = 0; i < c + 256; i++) {
+                    int t = count[i];
+                    count[i] = sum;
+                    sum += t;
+                }
+                for (int i = 0; i < n; i++) {
+                    long x = ksrc[sb + so + i];
+                    int p = count[c + (int)(((x ^ Long.MIN_VALUE) >>> shift) & 0xFF)]++;
+                    kdst[db + dof + p] = x;
+                    dst[db + p] = src[sb + i];
+                }
+                Object[] t = src; src = dst; dst = t;
+                long[] kt = ksrc; ksrc = kdst; kdst = kt;
+                int ti = sb; sb = db; db = ti;
+                ti = so; so = dof; dof = ti;
+            }
+            if (src != a) { // odd number of passes
+                System.arraycopy(src, sb, a, b, n);
+                System.arraycopy(ksrc, sb + so, ka, b + ao, n);
+            }
+        }
+    } // FJKeyed
+
     /** byte support class */
     static final class FJByte {
         static final class Sorter extends CountedCompleter<Void> {
@@ -674,6 +869,84 @@ import java.util.concurrent.CountedCompleter;
         }
     } // FJInt
 
+    /**
+     * Parallel LSD radix sort for large int arrays. Each pass splits
+     * the source into chunks, counts the current byte of every chunk
+     * in parallel, turns the counts into per-chunk bucket offsets
+     * (bucket-major, so the elements of one bucket stay in chunk
+     * order and the sort is stable), and then scatters all chunks
+     * in parallel. Bytes shared by all elements are skipped.
+     */
+    static final class FJIntRadix extends RecursiveAction {
+        static final long serialVersionUID = 2446542900576103244L;
+        final int[] src, dst, count;
+        final int sbase, dbase, lo, hi, shift, cbase;
+        FJIntRadix(int[] src, int[] dst, int[] count, int sbase, int dbase,
+                   int lo, int hi, int shift, int cbase) {
+            this.src = src; this.dst = dst; this.count = count;
+            this.sbase = sbase; this.dbase = dbase;
+            this.lo = lo; this.hi = hi; this.shift = shift; this.cbase = cbase;
+        }
+        public final void compute() {
+            int[] src = this.src, dst = this.dst, count = this.count; // localize all params
+            int sb = this.sbase, db = this.dbase, c = this.cbase, sh = this.shift;
+            if (dst == null) { // counting phase
+                for (int i = sb + lo, end = sb + hi; i < end; i++)
+                    count[c + (((src[i] ^ Integer.MIN_VALUE) >>> sh) & 0xFF)]++;
+            }
+            else {             // scatter phase
+                for (int i = sb + lo, end = sb + hi; i < end; i++) {
+                    int v = src[i];
+                    dst[db + count[c + (((v ^ Integer.MIN_VALUE) >>> sh) & 0xFF)]++] = v;
+                }
+            }
+        }
+
+        /**
+         * Sorts a[base, base+n) using w[0, n) as workspace, with the
+         * given number of chunks per pass.
+         */
+        static void sort(int[] a, int base, int n, int[] w, int chunks) {
+            int[] count = new int[chunks << 8];
+            FJIntRadix[] tasks = new FJIntRadix[chunks];
+            int[] src = a, dst = w;
+            int sb = base, db = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                Arrays.fill(count, 0);
+                for (int k = 0; k < chunks; k++)
+                    tasks[k] = new FJIntRadix(src, null, count, sb, 0, lo(n, k, chunks),
+                                              lo(n, k + 1, chunks), shift, k << 8);
+                invokeAll(tasks);
+                boolean uniform = false;
+                for (int d = 0, sum = 0; d < 256; d++) {
+                    int total = 0;
+                    for (int k = d; k < count.length; k += 256) {
+                        int t = count[k];
+                        count[k] = sum;
+                        sum += t;
+                        total += t;
+                    }
+                    if (total == n)
+                        uniform = true;
+                }
+                if (uniform)
+                    continue; // every element has the same byte
+                for (int k = 0; k < chunks; k++)
+                    tasks[k] = new FJIntRadix(src, dst, count, sb, db, lo(n, k, chunks),
+                                              lo(n, k + 1, chunks), shift, k << 8);
+                invokeAll(tasks);
+                int[] t = src; src = dst; dst = t;
+                int o = sb; sb = db; db = o;
+            }
+            if (src != a) // odd number of passes
+                System.arraycopy(src, sb, a, base, n);
+        }
+
+        private static int lo(int n, int k, int chunks) {
+            return (int)((long)n * k / chunks);
+        }
+    }
+
     /** long support class */
     static final class FJLong {
         static final class Sorter extends CountedCompleter<Void> {
@@ -36,6 +36,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -1331,6 +1332,14 @@ public class Collections {
         public void sort(Comparator<? super E> c) {
             throw new UnsupportedOperationException();
         }
+        @Override
+        public void parallelSort(Comparator<? super E> c) {
+            throw new UnsupportedOperationException();
+        }
+        @Override
+        public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+            throw new UnsupportedOperationException();
+        }
 
         public ListIterator<E> listIterator()   {return listIterator(0);}
 
@@ -2469,6 +2478,14 @@ public class Collections {
         public void sort(Comparator<? super E> c) {
             synchronized (mutex) {list.sort(c);}
         }
+        @Override
+        public void parallelSort(Comparator<? super E> c) {
+            synchronized (mutex) {list.parallelSort(c);}
+        }
+        @Override
+        public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+            synchronized (mutex) {list.parallelSortByKey(keyExtractor);}
+        }
 
         /**
          * SynchronizedRandomAccessList instances are serialized as
@@ -3511,6 +3528,16 @@ public class Collections {
         public void sort(Comparator<? super E> c) {
             list.sort(c);
         }
+
+        @Override
+        public void parallelSort(Comparator<? super E> c) {
+            list.parallelSort(c);
+        }
+
+        @Override
+        public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+            list.parallelSortByKey(keyExtractor);
+        }
     }
 
     /**
@@ -4501,6 +4528,12 @@ public class Collections {
         @Override
         public void sort(Comparator<? super E> c) {
         }
+        @Override
+        public void parallelSort(Comparator<? super E> c) {
+        }
+        @Override
+        public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+        }
 
         // Override default methods in Collection
         @Override
@@ -4867,6 +4900,12 @@ public class Collections {
         public void sort(Comparator<? super E> c) {
         }
         @Override
+        public void parallelSort(Comparator<? super E> c) {
+        }
+        @Override
+        public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+        }
+        @Override
         public Spliterator<E> spliterator() {
             return singletonSpliterator(element);
         }
@@ -0,0 +1,648 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import jdk.internal.access.SharedSecrets;
+
+/**
+ * 开放寻址的低内存占用HashMap：键和值分别保存在两个平行数组中，没有Node对象
+ *
+ * <p>{@link HashMap} allocates a {@code Node} of about 32 bytes for every mapping, plus a table slot, and converts long
+ * bins into larger {@code TreeNode}s. This map keeps keys and values in two parallel arrays and resolves collisions by
+ * linear probing, so a mapping costs two array slots divided by the load factor: about 11 bytes with compressed oops at the
+ * default load factor of 0.75. It is meant for large maps that are built once and read many times.
+ *
+ * <p>Hash codes are spread by Fibonacci hashing, taking the high bits of {@code hashCode() * 0x9E3779B9}, which keeps
+ * probe sequences short for sequential integer-like keys. Removal shifts later entries of the probe sequence back instead
+ * of leaving tombstones, so lookups never slow down after deletions. Unlike {@code HashMap}, a long probe sequence is never
+ * converted to a tree, so keys with many colliding hash codes degrade lookups to linear time.
+ *
+ * <p>Null keys and null values are permitted. Iteration order is unspecified. Like {@code HashMap}, this class is not
+ * synchronized and its iterators are fail-fast. Entries returned by the entry set iterator write through
+ * {@link Map.Entry#setValue} while the mapping is present.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see Map#copyOfCompact(Map)
+ */
+public class CompactHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Cloneable, Serializable {
+    private static final long serialVersionUID = -6402861725513860219L;
+
+    /** 默认初始容量，必须是2的幂 */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** 最小容量，保证 hash 的移位量小于32 */
+    static final int MINIMUM_CAPACITY = 4;
+
+    /** 最大容量 */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** 默认装载因子 */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /** 用来在 keys 中代替 null 键，null 槽位表示空 */
+    static final Object NULL_KEY = new Object();
+
+    /** 键数组，长度是2的幂，至少有一个空槽位 */
+    transient Object[] keys;
+
+    /** 值数组，与 keys 下标一一对应 */
+    transient Object[] vals;
+
+    /** 键值对数量 */
+    transient int size;
+
+    /** size 超过这个值时扩容 */
+    transient int threshold;
+
+    /** 32 - log2(keys.length)，hash 取乘积的高位 */
+    transient int shift;
+
+    /** 结构性修改次数，用于迭代器快速失败 */
+    transient int modCount;
+
+    /** 装载因子，必须小于1 */
+    final float loadFactor;
+
+    transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and load factor (0.75).
+     */
+    public CompactHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map that holds {@code expectedSize} mappings without resizing, with the default load factor.
+     *
+     * @param expectedSize the expected number of mappings
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public CompactHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map that holds {@code expectedSize} mappings without resizing.
+     *
+     * @param expectedSize the expected number of mappings
+     * @param loadFactor the maximum ratio of mappings to table slots, greater than 0 and less than 1
+     * @throws IllegalArgumentException if the expected size is negative or the load factor is out of range
+     */
+    public CompactHashMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        this.loadFactor = loadFactor;
+        init(capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Constructs a map with the same mappings as the given map, sized to hold them at the default load factor.
+     *
+     * @param m the map whose mappings are to be placed in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public CompactHashMap(Map<? extends K, ? extends V> m) {
+        this(m.size(), DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    /**
+     * 能在不超过装载因子的情况下容纳 n 个键值对的最小2的幂容量
+     */
+    static int capacityFor(int n, float loadFactor) {
+        double c = Math.ceil(n / (double)loadFactor);
+        if (c <= n) // 至少保留一个空槽位
+            c = n + 1.0;
+        if (c >= MAXIMUM_CAPACITY) {
+            if (n >= MAXIMUM_CAPACITY - 1)
+                throw new OutOfMemoryError("Required map size too large");
+            return MAXIMUM_CAPACITY;
+        }
+        return Math.max(MINIMUM_CAPACITY, (-1 >>> Integer.numberOfLeadingZeros((int)c - 1)) + 1);
+    }
+
+    private void init(int capacity) {
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity - 1);
+        // 容量达到上限时只保证至少留一个空槽位
+        threshold = (capacity == MAXIMUM_CAPACITY) ? capacity - 1 : Math.min((int)(capacity * loadFactor), capacity - 1);
+    }
+
+    static Object maskNull(Object key) {
+        return (key == null) ? NULL_KEY : key;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> K unmaskNull(Object key) {
+        return (key == NULL_KEY) ? null : (K)key;
+    }
+
+    /**
+     * 探测起点：hashCode 乘以黄金分割常数后取高位
+     */
+    final int slot(Object k) {
+        return (k.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Returns the index of the masked key k, or {@code -(i + 1)} where i is the empty slot that ends its probe sequence.
+     */
+    final int indexOf(Object k) {
+        final Object[] ks = keys;
+        final int mask = ks.length - 1;
+        int i = slot(k);
+        for (Object e; (e = ks[i]) != null; i = (i + 1) & mask) {
+            if (e == k || e.equals(k))
+                return i;
+        }
+        return -(i + 1);
+    }
+
+    // ---------------------------------------------------------------->
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i = indexOf(maskNull(key));
+        return (i >= 0) ? (V)vals[i] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int i = indexOf(maskNull(key));
+        return (i >= 0) ? (V)vals[i] : defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return indexOf(maskNull(key)) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        final Object[] ks = keys, vs = vals;
+        for (int i = 0; i < ks.length; i++) {
+            if (ks[i] != null && Objects.equals(value, vs[i]))
+                return true;
+        }
+        return false;
+    }
+
+    public V put(K key, V value) {
+        return putVal(maskNull(key), value, false);
+    }
+
+    public V putIfAbsent(K key, V value) {
+        return putVal(maskNull(key), value, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V putVal(Object k, V value, boolean onlyIfAbsent) {
+        int i = indexOf(k);
+        if (i >= 0) {
+            V old = (V)vals[i];
+            if (!onlyIfAbsent || old == null)
+                vals[i] = value;
+            return old;
+        }
+        if (size >= threshold) {
+            if (keys.length == MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Capacity exhausted.");
+            resize(keys.length << 1);
+            i = indexOf(k);
+        }
+        i = -(i + 1);
+        keys[i] = k;
+        vals[i] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> m) {
+        int n = m.size();
+        if (n == 0)
+            return;
+        int needed = size + n;
+        if (needed > threshold && keys.length < MAXIMUM_CAPACITY)
+            resize(Math.max(keys.length, capacityFor(needed, loadFactor)));
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    /**
+     * 扩容到 newCapacity 并重新插入所有键值对
+     */
+    private void resize(int newCapacity) {
+        final Object[] oldKeys = keys, oldVals = vals;
+        init(newCapacity);
+        final Object[] ks = keys, vs = vals;
+        final int mask = ks.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            Object k = oldKeys[j];
+            if (k != null) {
+                int i = slot(k);
+                while (ks[i] != null)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = oldVals[j];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int i = indexOf(maskNull(key));
+        if (i < 0)
+            return null;
+        V old = (V)vals[i];
+        delete(i, null);
+        return old;
+    }
+
+    public boolean remove(Object key, Object value) {
+        int i = indexOf(maskNull(key));
+        if (i < 0 || !Objects.equals(vals[i], value))
+            return false;
+        delete(i, null);
+        return true;
+    }
+
+    /**
+     * 删除下标 i 处的键值对，并把同一探测序列中后面的元素往前移，不留墓碑
+     *
+     * <p>If {@code it} is not null, entries moved from the start of the table to its end are recorded in the iterator, which
+     * has already passed the slots they move to.
+     */
+    final void delete(int i, HashIterator<?> it) {
+        final Object[] ks = keys, vs = vals;
+        final int mask = ks.length - 1;
+        for (int j = i; ; ) {
+            j = (j + 1) & mask;
+            Object k = ks[j];
+            if (k == null)
+                break;
+            int h = slot(k);
+            // k 的探测起点不在 (i, j] 之间时才能移到 i
+            if ((i <= j) ? (i >= h || h > j) : (i >= h && h > j)) {
+                if (j < i && it != null)
+                    it.addWrapped(k);
+                ks[i] = k;
+                vs[i] = vs[j];
+                i = j;
+            }
+        }
+        ks[i] = null;
+        vs[i] = null;
+        size--;
+        modCount++;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            modCount++;
+            size = 0;
+            Arrays.fill(keys, null);
+            Arrays.fill(vals, null);
+        }
+    }
+
+    /**
+     * Shrinks the tables to the smallest capacity that holds the current mappings at this map's load factor. Useful once a
+     * map that will not grow further has been populated.
+     */
+    public void trimToSize() {
+        int capacity = capacityFor(size, loadFactor);
+        if (capacity < keys.length) {
+            modCount++;
+            resize(capacity);
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        final Object[] ks = keys, vs = vals;
+        int mc = modCount;
+        for (int i = 0; i < ks.length && modCount == mc; i++) {
+            Object k = ks[i];
+            if (k != null) {
+                @SuppressWarnings("unchecked") V v = (V)vs[i];
+                action.accept(unmaskNull(k), v);
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        final Object[] ks = keys, vs = vals;
+        int mc = modCount;
+        for (int i = 0; i < ks.length && modCount == mc; i++) {
+            Object k = ks[i];
+            if (k != null) {
+                @SuppressWarnings("unchecked") V v = (V)vs[i];
+                vs[i] = function.apply(unmaskNull(k), v);
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    public Set<K> keySet() {
+        Set<K> ks = keySet;
+        if (ks == null) {
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        public boolean remove(Object key) {
+            int i = indexOf(maskNull(key));
+            if (i < 0)
+                return false;
+            delete(i, null);
+            return true;
+        }
+
+        public void forEach(Consumer<? super K> action) {
+            Objects.requireNonNull(action);
+            CompactHashMap.this.forEach((k, v) -> action.accept(k));
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        public void forEach(Consumer<? super V> action) {
+            Objects.requireNonNull(action);
+            CompactHashMap.this.forEach((k, v) -> action.accept(v));
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            int i = indexOf(maskNull(e.getKey()));
+            return i >= 0 && Objects.equals(vals[i], e.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            return CompactHashMap.this.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * 迭代器返回的Entry，setValue 按键写回map
+     */
+    final class MapEntry implements Map.Entry<K, V> {
+        private final K key;
+        private V value;
+
+        MapEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public V setValue(V newValue) {
+            V old = value;
+            int i = indexOf(maskNull(key));
+            if (i >= 0)
+                vals[i] = newValue;
+            value = newValue;
+            return old;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 从表尾向表头遍历。删除时后面的元素只会前移到已遍历过的位置，
+     * 只有从表头绕回表尾的元素会被跳过，这些元素记录在 wrapped 中最后遍历
+     */
+    abstract class HashIterator<E> implements Iterator<E> {
+        int index = keys.length; // 下一次从 index - 1 开始向前找
+        int remaining = size;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+        ArrayList<Object> wrapped; // 删除时绕回表尾、尚未返回的键
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final void addWrapped(Object k) {
+            if (wrapped == null)
+                wrapped = new ArrayList<>(2);
+            wrapped.add(k);
+        }
+
+        final int nextIndex() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            final Object[] ks = keys;
+            while (--index >= 0) {
+                if (ks[index] != null)
+                    return lastReturned = index;
+            }
+            return lastReturned = indexOf(wrapped.get(-index - 1));
+        }
+
+        public final void remove() {
+            if (lastReturned < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            delete(lastReturned, (index >= 0) ? this : null);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends HashIterator<K> {
+        public K next() {
+            return unmaskNull(keys[nextIndex()]);
+        }
+    }
+
+    final class ValueIterator extends HashIterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next() {
+            return (V)vals[nextIndex()];
+        }
+    }
+
+    final class EntryIterator extends HashIterator<Map.Entry<K, V>> {
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            int i = nextIndex();
+            return new MapEntry(unmaskNull(keys[i]), (V)vals[i]);
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    /**
+     * Returns a shallow copy of this map: the keys and values themselves are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        CompactHashMap<K, V> result;
+        try {
+            result = (CompactHashMap<K, V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.entrySet = null;
+        result.keySet = null;
+        result.values = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Saves this map to a stream.
+     *
+     * @serialData The load factor is emitted by {@code defaultWriteObject}, followed by the number of mappings (int) and
+     *             then each key (Object) and value (Object).
+     */
+    private void writeObject(java.io.ObjectOutputStream s) throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        final Object[] ks = keys, vs = vals;
+        for (int i = 0; i < ks.length; i++) {
+            if (ks[i] != null) {
+                s.writeObject(unmaskNull(ks[i]));
+                s.writeObject(vs[i]);
+            }
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " + loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " + mappings);
+        int capacity = capacityFor(mappings, loadFactor);
+        SharedSecrets.getJavaObjectInputStreamAccess().checkArray(s, Object[].class, capacity);
+        init(capacity);
+        for (int i = 0; i < mappings; i++) {
+            @SuppressWarnings("unchecked") K key = (K)s.readObject();
+            @SuppressWarnings("unchecked") V value = (V)s.readObject();
+            putVal(maskNull(key), value, false);
+        }
+    }
+}
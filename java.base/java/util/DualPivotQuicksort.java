@@ -34,6 +34,19 @@ final class DualPivotQuicksort {
 
     private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
 
+    /**
+     * If the length of an int or float array that is not nearly sorted
+     * is at least this constant, LSD radix sort is used in preference
+     * to Quicksort.
+     */
+    private static final int RADIX_SORT_THRESHOLD = 1 << 12;
+
+    /**
+     * The same threshold for long and double arrays, which need up to
+     * twice as many radix passes.
+     */
+    private static final int RADIX_SORT_THRESHOLD_FOR_LONG = 1 << 14;
+
     /*
      * Sorting methods for seven primitive types.
      */
@@ -97,7 +110,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -176,6 +193,60 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array by LSD radix sort, one byte
+     * per pass, after flipping the sign bit.  Bytes shared by all elements
+     * are skipped, so arrays with few distinct high bytes need fewer
+     * passes.  Uses the given workspace array if it is large enough, as
+     * the merge path does.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(int[] a, int left, int right, int[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new int[n];
+            workBase = 0;
+        }
+        int[] count = new int[4 << 8]; // histograms of all bytes
+        for (int i = left; i <= right; i++) {
+            int x = a[i] ^ Integer.MIN_VALUE;
+            for (int c = 0; c < count.length; c += 256, x >>>= 8) {
+                count[c + (x & 0xFF)]++;
+            }
+        }
+        int[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int c = 0, shift = 0; c < count.length; c += 256, shift += 8) {
+            if (count[c + (((src[so] ^ Integer.MIN_VALUE) >>> shift) & 0xFF)] == n) {
+                continue; // every element has the same byte
+            }
+            for (int i = c, sum = 0; i < c + 256; ++i) {
+                int t = count[i];
+                count[i] = sum;
+                sum += t;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                int v = src[i];
+                dst[dof + count[c + (((v ^ Integer.MIN_VALUE) >>> shift) & 0xFF)]++] = v;
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+            int o = so;
+            so = dof;
+            dof = o;
+        }
+        if (src != a) { // odd number of passes
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
     /**
      *
      * @param a
@@ -593,7 +664,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD_FOR_LONG) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -672,6 +747,60 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array by LSD radix sort, one byte
+     * per pass, after flipping the sign bit.  Bytes shared by all elements
+     * are skipped, so arrays with few distinct high bytes need fewer
+     * passes.  Uses the given workspace array if it is large enough, as
+     * the merge path does.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(long[] a, int left, int right, long[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new long[n];
+            workBase = 0;
+        }
+        int[] count = new int[8 << 8]; // histograms of all bytes
+        for (int i = left; i <= right; i++) {
+            long x = a[i] ^ Long.MIN_VALUE;
+            for (int c = 0; c < count.length; c += 256, x >>>= 8) {
+                count[c + (int) (x & 0xFF)]++;
+            }
+        }
+        long[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int c = 0, shift = 0; c < count.length; c += 256, shift += 8) {
+            if (count[c + (int) (((src[so] ^ Long.MIN_VALUE) >>> shift) & 0xFF)] == n) {
+                continue; // every element has the same byte
+            }
+            for (int i = c, sum = 0; i < c + 256; ++i) {
+                int t = count[i];
+                count[i] = sum;
+                sum += t;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                long v = src[i];
+                dst[dof + count[c + (int) (((v ^ Long.MIN_VALUE) >>> shift) & 0xFF)]++] = v;
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+            int o = so;
+            so = dof;
+            dof = o;
+        }
+        if (src != a) { // odd number of passes
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
     private static void sort(long[] a, int left, int right, boolean leftmost) {
         int length = right - left + 1;
 
@@ -2221,7 +2350,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2300,6 +2433,69 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array by LSD radix sort, one byte
+     * per pass, after mapping each value to an int key whose unsigned order
+     * is the numeric order.  Bytes shared by all keys are skipped, so
+     * arrays with few distinct high bytes need fewer passes.  Uses the
+     * given workspace array if it is large enough, as the merge path does.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(float[] a, int left, int right, float[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new float[n];
+            workBase = 0;
+        }
+        int[] count = new int[4 << 8]; // histograms of all bytes
+        for (int i = left; i <= right; i++) {
+            int x = floatKey(a[i]);
+            for (int c = 0; c < count.length; c += 256, x >>>= 8) {
+                count[c + (x & 0xFF)]++;
+            }
+        }
+        float[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int c = 0, shift = 0; c < count.length; c += 256, shift += 8) {
+            if (count[c + ((floatKey(src[so]) >>> shift) & 0xFF)] == n) {
+                continue; // every element has the same byte
+            }
+            for (int i = c, sum = 0; i < c + 256; ++i) {
+                int t = count[i];
+                count[i] = sum;
+                sum += t;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                float v = src[i];
+                dst[dof + count[c + ((floatKey(v) >>> shift) & 0xFF)]++] = v;
+            }
+            float[] t = src;
+            src = dst;
+            dst = t;
+            int o = so;
+            so = dof;
+            dof = o;
+        }
+        if (src != a) { // odd number of passes
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /**
+     * Maps a non-NaN float to an int key whose unsigned order is the
+     * numeric order of the floats, with -0.0f before 0.0f.
+     */
+    private static int floatKey(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
     private static void sort(float[] a, int left, int right, boolean leftmost) {
         int length = right - left + 1;
 
@@ -2790,7 +2986,11 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RADIX_SORT_THRESHOLD_FOR_LONG) {
+                    radixSort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2869,6 +3069,69 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array by LSD radix sort, one byte
+     * per pass, after mapping each value to a long key whose unsigned order
+     * is the numeric order.  Bytes shared by all keys are skipped, so
+     * arrays with few distinct high bytes need fewer passes.  Uses the
+     * given workspace array if it is large enough, as the merge path does.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void radixSort(double[] a, int left, int right, double[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new double[n];
+            workBase = 0;
+        }
+        int[] count = new int[8 << 8]; // histograms of all bytes
+        for (int i = left; i <= right; i++) {
+            long x = doubleKey(a[i]);
+            for (int c = 0; c < count.length; c += 256, x >>>= 8) {
+                count[c + (int) (x & 0xFF)]++;
+            }
+        }
+        double[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int c = 0, shift = 0; c < count.length; c += 256, shift += 8) {
+            if (count[c + (int) ((doubleKey(src[so]) >>> shift) & 0xFF)] == n) {
+                continue; // every element has the same byte
+            }
+            for (int i = c, sum = 0; i < c + 256; ++i) {
+                int t = count[i];
+                count[i] = sum;
+                sum += t;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                double v = src[i];
+                dst[dof + count[c + (int) ((doubleKey(v) >>> shift) & 0xFF)]++] = v;
+            }
+            double[] t = src;
+            src = dst;
+            dst = t;
+            int o = so;
+            so = dof;
+            dof = o;
+        }
+        if (src != a) { // odd number of passes
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /**
+     * Maps a non-NaN double to a long key whose unsigned order is the
+     * numeric order of the doubles, with -0.0d before 0.0d.
+     */
+    private static long doubleKey(double d) {
+        long bits = Double.doubleToRawLongBits(d);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
     private static void sort(double[] a, int left, int right, boolean leftmost) {
         int length = right - left + 1;
 
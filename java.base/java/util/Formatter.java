@@ -2646,14 +2646,77 @@ public final class Formatter implements Closeable, Flushable {
      */
     public Formatter format(Locale l, String format, Object ... args) {
         ensureOpen();
+        return print(l, parse(format), args);
+    }
+
+    /**
+     * Writes a formatted string to this object's destination using this
+     * formatter's locale, a compiled template and arguments.  This is
+     * equivalent to {@link #format(String, Object...)} with the template's
+     * format string, but does not parse the format string again.
+     *
+     * @param  template
+     *         A template returned by {@link #compile(String)}
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers in the template
+     *
+     * @throws  IllegalFormatException
+     *          If a format specifier is incompatible with the given
+     *          arguments, or there are insufficient arguments
+     *
+     * @throws  FormatterClosedException
+     *          If this formatter has been closed by invoking its {@link
+     *          #close()} method
+     *
+     * @return  This formatter
+     */
+    public Formatter format(Template template, Object ... args) {
+        return format(l, template, args);
+    }
 
+    /**
+     * Writes a formatted string to this object's destination using the
+     * specified locale, a compiled template and arguments.
+     *
+     * @param  l
+     *         The {@linkplain java.util.Locale locale} to apply during
+     *         formatting.  If {@code l} is {@code null} then no localization
+     *         is applied.
+     *
+     * @param  template
+     *         A template returned by {@link #compile(String)}
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers in the template
+     *
+     * @throws  IllegalFormatException
+     *          If a format specifier is incompatible with the given
+     *          arguments, or there are insufficient arguments
+     *
+     * @throws  FormatterClosedException
+     *          If this formatter has been closed by invoking its {@link
+     *          #close()} method
+     *
+     * @return  This formatter
+     */
+    public Formatter format(Locale l, Template template, Object ... args) {
+        ensureOpen();
+        return print(l, template.parts, args);
+    }
+
+    /**
+     * Prints the parsed format string, binding specifiers compiled by
+     * another formatter to this one.
+     */
+    private Formatter print(Locale l, List<FormatString> fsa, Object[] args) {
         // index of last argument referenced
         int last = -1;
         // last ordinary index
         int lasto = -1;
 
-        List<FormatString> fsa = parse(format);
-        for (FormatString fs : fsa) {
+        for (FormatString proto : fsa) {
+            FormatString fs = proto.bind(this);
             int index = fs.index();
             try {
                 switch (index) {
@@ -2686,6 +2749,166 @@ public final class Formatter implements Closeable, Flushable {
         return this;
     }
 
+    /**
+     * Returns a compiled form of the format string, which can be passed to
+     * {@link #format(Template, Object...)} or formatted directly with
+     * {@link Template#format(Object...)} any number of times without parsing
+     * the format string again.
+     *
+     * <p> Recently compiled templates are kept in a small cache, so this
+     * method may return the same template for equal format strings.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax
+     *
+     * @return  The compiled template
+     */
+    public static Template compile(String format) {
+        // 直接映射的缓存，竞争写入只会多编译一次
+        Template[] cache = TEMPLATE_CACHE;
+        int i = format.hashCode() & (cache.length - 1);
+        Template t = cache[i];
+        if (t == null || (t.format != format && !t.format.equals(format))) {
+            t = new Template(format, new Formatter((Locale)null, (Appendable)null).parse(format));
+            cache[i] = t;
+        }
+        return t;
+    }
+
+    private static final Template[] TEMPLATE_CACHE = new Template[256];
+
+    /**
+     * A format string compiled by {@link Formatter#compile(String)}.
+     *
+     * <p> A template holds the parsed format specifiers, so formatting with
+     * it skips the parsing and validation of the format string that
+     * {@link Formatter#format(String, Object...)} performs on every call.
+     * If every specifier is a plain {@code %s}, {@code %d}, {@code %n} or
+     * {@code %%}, with no flags, width, precision or argument index, and the
+     * arguments are not {@link Formattable}, {@link #format(Object...)}
+     * appends the output directly to a {@code StringBuilder}, which keeps
+     * Latin-1 text in its compact one byte per character form.
+     *
+     * <p> Templates are immutable and may be shared by multiple threads.
+     *
+     * @since 11
+     */
+    public static final class Template {
+        private final String format;
+        private final List<FormatString> parts;
+        private final boolean simple;
+
+        private Template(String format, List<FormatString> parts) {
+            boolean simple = true;
+            for (FormatString fs : parts) {
+                if (fs instanceof FormatSpecifier && !((FormatSpecifier)fs).isSimple())
+                    simple = false;
+            }
+            this.format = format;
+            this.parts = parts;
+            this.simple = simple;
+        }
+
+        /**
+         * Returns a formatted string using this template, the default
+         * {@linkplain Locale.Category#FORMAT format} locale and the given
+         * arguments, as {@link String#format(String, Object...)} does.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @return  A formatted string
+         */
+        public String format(Object... args) {
+            return format(Locale.getDefault(Locale.Category.FORMAT), args);
+        }
+
+        /**
+         * Returns a formatted string using this template, the specified
+         * locale and the given arguments, as
+         * {@link String#format(Locale, String, Object...)} does.
+         *
+         * @param  l
+         *         The {@linkplain java.util.Locale locale} to apply during
+         *         formatting.  If {@code l} is {@code null} then no
+         *         localization is applied.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @return  A formatted string
+         */
+        public String format(Locale l, Object... args) {
+            if (simple && args != null && getZero(l) == '0') {
+                String s = formatSimple(args);
+                if (s != null)
+                    return s;
+            }
+            return new Formatter(l).format(l, this, args).toString();
+        }
+
+        /**
+         * Prints a simple template, or returns null if an argument needs
+         * the general path, including a missing argument.
+         */
+        private String formatSimple(Object[] args) {
+            StringBuilder sb = new StringBuilder(format.length() + (args.length << 3));
+            int next = 0;
+            for (FormatString fs : parts) {
+                if (fs instanceof FixedString) {
+                    FixedString fx = (FixedString)fs;
+                    sb.append(fx.s, fx.start, fx.end);
+                    continue;
+                }
+                char c = ((FormatSpecifier)fs).c;
+                if (c == Conversion.LINE_SEPARATOR) {
+                    sb.append(System.lineSeparator());
+                } else if (c == Conversion.PERCENT_SIGN) {
+                    sb.append('%');
+                } else {
+                    if (next >= args.length)
+                        return null;
+                    Object arg = args[next++];
+                    if (c == Conversion.STRING) {
+                        if (arg instanceof Formattable)
+                            return null;
+                        sb.append(String.valueOf(arg));
+                    } else if (arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+                        sb.append(((Number)arg).intValue());
+                    } else if (arg instanceof Long) {
+                        sb.append(((Long)arg).longValue());
+                    } else if (arg == null) {
+                        sb.append("null");
+                    } else {
+                        return null;
+                    }
+                }
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Returns the format string of this template.
+         *
+         * @return the format string
+         */
+        public String toString() {
+            return format;
+        }
+    }
+
     // %[argument_index$][flags][width][.precision][t]conversion
     private static final String formatSpecifier
         = "%(\\d+\\$)?([-#+ 0,(\\<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])";
@@ -2738,6 +2961,8 @@ public final class Formatter implements Closeable, Flushable {
         int index();
         void print(Object arg, Locale l) throws IOException;
         String toString();
+        // Returns an equivalent instance that prints to fmt
+        FormatString bind(Formatter fmt);
     }
 
     private class FixedString implements FormatString {
@@ -2753,6 +2978,9 @@ public final class Formatter implements Closeable, Flushable {
         public void print(Object arg, Locale l)
             throws IOException { a.append(s, start, end); }
         public String toString() { return s.substring(start, end); }
+        public FormatString bind(Formatter fmt) {
+            return (fmt == Formatter.this) ? this : fmt.new FixedString(s, start, end);
+        }
     }
 
     /**
@@ -2880,6 +3108,40 @@ public final class Formatter implements Closeable, Flushable {
                 throw new UnknownFormatConversionException(String.valueOf(c));
         }
 
+        // Copies a specifier parsed by another formatter, the fields are
+        // not modified after parsing
+        FormatSpecifier(FormatSpecifier fs) {
+            index = fs.index;
+            f = fs.f;
+            width = fs.width;
+            precision = fs.precision;
+            dt = fs.dt;
+            c = fs.c;
+        }
+
+        public FormatString bind(Formatter fmt) {
+            return (fmt == Formatter.this) ? this : fmt.new FormatSpecifier(this);
+        }
+
+        /**
+         * Returns whether Template can print this specifier by itself:
+         * %s, %d, %n or %% with no flags, width, precision or index.
+         */
+        boolean isSimple() {
+            if (dt || width != -1 || precision != -1 || f.valueOf() != Flags.NONE.valueOf())
+                return false;
+            switch (c) {
+            case Conversion.STRING:
+            case Conversion.DECIMAL_INTEGER:
+                return index == 0;
+            case Conversion.LINE_SEPARATOR:
+            case Conversion.PERCENT_SIGN:
+                return true;
+            default:
+                return false;
+            }
+        }
+
         public void print(Object arg, Locale l) throws IOException {
             if (dt) {
                 printDateTime(arg, l);
@@ -68,6 +68,12 @@ class ImmutableCollections {
      */
     static final int EXPAND_FACTOR = 2;
 
+    /**
+     * The load factor of maps built by {@link Map#copyOfCompact}, which trade
+     * longer probe sequences for a smaller table than EXPAND_FACTOR gives.
+     */
+    static final float COMPACT_LOAD_FACTOR = 0.75f;
+
     static UnsupportedOperationException uoe() { return new UnsupportedOperationException(); }
 
     static abstract class AbstractImmutableCollection<E> extends AbstractCollection<E> {
@@ -705,6 +711,62 @@ class ImmutableCollections {
         return (Map<K,V>) MapN.EMPTY_MAP;
     }
 
+    // make a compact copy, see Map.copyOfCompact
+    @SuppressWarnings("unchecked")
+    static <K,V> Map<K,V> mapCopyCompact(Map<? extends K, ? extends V> map) {
+        if (map instanceof Map1) {
+            return (Map<K,V>)map;
+        }
+        // size() is only a hint: a concurrent or racy map may report fewer
+        // mappings than its entry set has, so the table grows as needed
+        int n = map.size();
+        long pairs = compactPairs(n);
+        Object[] table = new Object[(int)pairs << 1];
+        int size = 0;
+        for (Map.Entry<? extends K, ? extends V> e : map.entrySet()) {
+            if (size == pairs - 1) {
+                // table must be strictly larger than the size
+                pairs = compactPairs(Math.max(size, 1) * 2L);
+                table = rehashCompact(table, (int)pairs << 1);
+            }
+            K k = Objects.requireNonNull(e.getKey());
+            V v = Objects.requireNonNull(e.getValue());
+            int idx = MapN.probe(table, k);
+            if (idx >= 0) {
+                throw new IllegalArgumentException("duplicate key: " + k);
+            }
+            int dest = -(idx + 1);
+            table[dest] = k;
+            table[dest+1] = v;
+            size++;
+        }
+        return (size == 0) ? emptyMap() : new MapN<>(table, size);
+    }
+
+    // the number of key/value slots of a compact table for n mappings
+    private static long compactPairs(long n) {
+        // table must be strictly larger than the size
+        long pairs = Math.max(n + 1L, (long)Math.ceil(n / (double)COMPACT_LOAD_FACTOR));
+        if (pairs > (Integer.MAX_VALUE - 8) >> 1) {
+            throw new OutOfMemoryError("Required map size too large");
+        }
+        return pairs;
+    }
+
+    // moves the mappings of a compact table into a new one of the given length
+    private static Object[] rehashCompact(Object[] table, int length) {
+        Object[] t = new Object[length];
+        for (int i = 0; i < table.length; i += 2) {
+            Object k = table[i];
+            if (k != null) {
+                int dest = -(MapN.probe(t, k) + 1);
+                t[dest] = k;
+                t[dest+1] = table[i+1];
+            }
+        }
+        return t;
+    }
+
     abstract static class AbstractImmutableMap<K,V> extends AbstractMap<K,V> implements Serializable {
         @Override public void clear() { throw uoe(); }
         @Override public V compute(K key, BiFunction<? super K,? super V,? extends V> rf) { throw uoe(); }
@@ -811,6 +873,14 @@ class ImmutableCollections {
             }
         }
 
+        /**
+         * Adopts a table already filled by {@link #probe(Object[], Object)}.
+         */
+        MapN(Object[] table, int size) {
+            this.table = table;
+            this.size = size;
+        }
+
         @Override
         public boolean containsKey(Object o) {
             Objects.requireNonNull(o);
@@ -928,10 +998,13 @@ class ImmutableCollections {
         // Callers are relying on this method to perform an implicit nullcheck
         // of pk.
         private int probe(Object pk) {
+            return probe(table, pk);
+        }
+
+        static int probe(Object[] table, Object pk) {
             int idx = Math.floorMod(pk.hashCode(), table.length >> 1) << 1;
             while (true) {
-                @SuppressWarnings("unchecked")
-                K ek = (K)table[idx];
+                Object ek = table[idx];
                 if (ek == null) {
                     return -idx - 1;
                 } else if (pk.equals(ek)) {
@@ -0,0 +1,357 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import jdk.internal.misc.Unsafe;
+import sun.nio.cs.ISO_8859_1;
+
+/**
+ * 弱引用、分段加锁的驻留表：相等的对象只保留一个规范实例，不再被引用时自动回收
+ *
+ * <p>{@link String#intern()} stores strings in the VM string table, which can be neither sized nor observed from Java
+ * code, and the usual substitute, a {@code ConcurrentHashMap<String, String>} used as a cache, keeps every string ever
+ * seen reachable. An interner holds its canonical instances through weak references instead: an instance stays in the
+ * table only while something else refers to it, and its entry is purged on a later insertion after it has been
+ * collected.
+ *
+ * <p>The table is split into a power of two number of segments, chosen by the high bits of the hash code. Lookups of
+ * an element that is already present take no lock; inserting a new element locks only its segment, so threads
+ * interning different elements rarely contend. Each segment is a chained hash table that doubles when it becomes three
+ * quarters full.
+ *
+ * <p>{@link OfString} additionally looks strings up by a range of a {@code char[]} or a {@code byte[]}, so that a
+ * parser can reuse the canonical instance of a name it has just read without first materializing a {@code String}.
+ *
+ * <p>Elements are compared with {@link Object#equals} and must not be {@code null}. An element should not be modified,
+ * in a way that affects {@code equals} or {@code hashCode}, while it is held by an interner.
+ *
+ * @param <T> the type of the interned elements
+ */
+public class Interner<T> {
+
+    /** 默认的并发度，即默认分段数 */
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** 最大分段数 */
+    static final int MAXIMUM_SEGMENTS = 1 << 16;
+
+    /** 每个分段的初始容量，必须是2的幂 */
+    static final int SEGMENT_INITIAL_CAPACITY = 8;
+
+    /** 每个分段的最大容量 */
+    static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 30;
+
+    /** 分段数组，长度是2的幂 */
+    final Segment<T>[] segments;
+
+    /** hash 右移这么多位后再与 segmentMask 相与，得到分段下标 */
+    final int segmentShift;
+
+    final int segmentMask;
+
+    /**
+     * Creates an interner with the default concurrency level (16).
+     */
+    public Interner() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates an interner with the given concurrency level, the number of threads expected to insert elements at the
+     * same time.
+     *
+     * @param concurrencyLevel the estimated number of concurrently inserting threads
+     * @throws IllegalArgumentException if {@code concurrencyLevel} is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public Interner(int concurrencyLevel) {
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException("Illegal concurrency level: " + concurrencyLevel);
+        int n = 1;
+        while (n < concurrencyLevel && n < MAXIMUM_SEGMENTS)
+            n <<= 1;
+        Segment<T>[] segs = (Segment<T>[])new Segment<?>[n];
+        for (int i = 0; i < n; i++)
+            segs[i] = new Segment<>();
+        segments = segs;
+        segmentShift = 32 - Integer.numberOfTrailingZeros(n);
+        segmentMask = n - 1;
+    }
+
+    /**
+     * Returns the canonical instance equal to {@code sample}. If there is none, {@code sample} itself becomes the
+     * canonical instance and is returned.
+     *
+     * @param sample the element to look up
+     * @return the canonical instance equal to {@code sample}
+     * @throws NullPointerException if {@code sample} is {@code null}
+     */
+    public T intern(T sample) {
+        return intern0(sample, 0, 0, spread(sample.hashCode()));
+    }
+
+    /**
+     * Returns the number of canonical instances currently held. Instances that have been collected but not yet purged
+     * are purged first; the result is only a snapshot if other threads are interning at the same time.
+     *
+     * @return the number of canonical instances
+     */
+    public int size() {
+        int n = 0;
+        for (Segment<T> seg : segments) {
+            synchronized (seg) {
+                seg.expungeStaleEntries();
+                n += seg.count;
+            }
+        }
+        return n;
+    }
+
+    final T intern0(Object key, int off, int len, int h) {
+        Segment<T> seg = segments[(h >>> segmentShift) & segmentMask];
+        T t = seg.get(this, key, off, len, h);
+        return (t != null) ? t : seg.put(this, key, off, len, h);
+    }
+
+    /**
+     * 判断已驻留的 candidate 是否与查找键相等；key 是 intern(T) 传入的元素，或 OfString 传入的数组区间
+     */
+    boolean matches(T candidate, Object key, int off, int len) {
+        return candidate.equals(key);
+    }
+
+    /**
+     * 查找不到时，为查找键创建规范实例
+     */
+    @SuppressWarnings("unchecked")
+    T newElement(Object key, int off, int len) {
+        return (T)key;
+    }
+
+    // Fibonacci 散列后高低位混合：高位选分段，低位选桶
+    static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 驻留表项，弱引用规范实例。next 是 volatile 的，删除时原地摘链，无锁读者最多错过一次命中
+     */
+    static final class Entry<T> extends WeakReference<T> {
+        final int hash;
+        volatile Entry<T> next;
+
+        Entry(T referent, int hash, Entry<T> next, ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    /**
+     * 一个分段：读不加锁，插入、清理和扩容在分段锁内进行。无锁读没有命中时，put 会在锁内再查一次
+     */
+    static final class Segment<T> {
+        volatile Entry<T>[] table;
+
+        /** 表项数量，包括已被回收但还未清理的，由分段锁保护 */
+        int count;
+
+        /** 规范实例被回收后，其表项会进入这个队列 */
+        final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+        @SuppressWarnings("unchecked")
+        Segment() {
+            table = (Entry<T>[])new Entry<?>[SEGMENT_INITIAL_CAPACITY];
+        }
+
+        T get(Interner<T> owner, Object key, int off, int len, int h) {
+            Entry<T>[] tab = table;
+            for (Entry<T> e = tabAt(tab, h & (tab.length - 1)); e != null; e = e.next) {
+                T t;
+                if (e.hash == h && (t = e.get()) != null && owner.matches(t, key, off, len))
+                    return t;
+            }
+            return null;
+        }
+
+        synchronized T put(Interner<T> owner, Object key, int off, int len, int h) {
+            expungeStaleEntries();
+            Entry<T>[] tab = table;
+            int i = h & (tab.length - 1);
+            for (Entry<T> e = tab[i]; e != null; e = e.next) {
+                T t;
+                if (e.hash == h && (t = e.get()) != null && owner.matches(t, key, off, len))
+                    return t;
+            }
+            T t = owner.newElement(key, off, len);
+            if (count >= tab.length - (tab.length >>> 2) && tab.length < MAXIMUM_SEGMENT_CAPACITY) {
+                tab = resize(tab);
+                i = h & (tab.length - 1);
+            }
+            // 发布新表项，无锁读者通过 tabAt 的 acquire 语义看到完整构造的对象
+            setTabAt(tab, i, new Entry<>(t, h, tab[i], queue));
+            count++;
+            return t;
+        }
+
+        /**
+         * 把表项复制到两倍大小的新表，跳过已被回收的。旧表项被 clear，不会再进入引用队列
+         */
+        @SuppressWarnings("unchecked")
+        Entry<T>[] resize(Entry<T>[] oldTab) {
+            int n = oldTab.length << 1;
+            Entry<T>[] tab = (Entry<T>[])new Entry<?>[n];
+            int live = 0;
+            for (Entry<T> head : oldTab) {
+                for (Entry<T> e = head; e != null; e = e.next) {
+                    T t = e.get();
+                    if (t != null) {
+                        int j = e.hash & (n - 1);
+                        tab[j] = new Entry<>(t, e.hash, tab[j], queue);
+                        live++;
+                    }
+                    e.clear();
+                }
+            }
+            count = live;
+            table = tab;
+            return tab;
+        }
+
+        /**
+         * 摘除规范实例已被回收的表项，调用者持有分段锁
+         */
+        @SuppressWarnings("unchecked")
+        void expungeStaleEntries() {
+            for (Object x; (x = queue.poll()) != null; ) {
+                Entry<T> stale = (Entry<T>)x;
+                Entry<T>[] tab = table;
+                int i = stale.hash & (tab.length - 1);
+                Entry<T> pred = null;
+                for (Entry<T> e = tab[i]; e != null; pred = e, e = e.next) {
+                    if (e == stale) {
+                        if (pred == null)
+                            setTabAt(tab, i, e.next);
+                        else
+                            pred.next = e.next;
+                        count--;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An interner of strings that can also look strings up by a range of a {@code char[]} or of a {@code byte[]}
+     * holding ISO-8859-1 characters, one byte per character. A range is copied into a new string only if no equal
+     * string is present, so repeated names are read without allocating.
+     */
+    public static final class OfString extends Interner<String> {
+
+        /**
+         * Creates a string interner with the default concurrency level (16).
+         */
+        public OfString() {
+            super();
+        }
+
+        /**
+         * Creates a string interner with the given concurrency level.
+         *
+         * @param concurrencyLevel the estimated number of concurrently inserting threads
+         * @throws IllegalArgumentException if {@code concurrencyLevel} is not positive
+         */
+        public OfString(int concurrencyLevel) {
+            super(concurrencyLevel);
+        }
+
+        /**
+         * Returns the canonical string with the characters {@code chars[offset, offset + length)}, creating it if
+         * there is none.
+         *
+         * @param chars  the characters
+         * @param offset the index of the first character
+         * @param length the number of characters
+         * @return the canonical string for the characters
+         * @throws IndexOutOfBoundsException if the range is out of the bounds of {@code chars}
+         */
+        public String intern(char[] chars, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, chars.length);
+            int h = 0;
+            for (int i = offset, end = offset + length; i < end; i++)
+                h = 31 * h + chars[i];
+            return intern0(chars, offset, length, spread(h));
+        }
+
+        /**
+         * Returns the canonical string with the ISO-8859-1 characters {@code bytes[offset, offset + length)},
+         * creating it if there is none. Each byte is taken as the character with the same unsigned value.
+         *
+         * @param bytes  the ISO-8859-1 encoded characters
+         * @param offset the index of the first byte
+         * @param length the number of bytes
+         * @return the canonical string for the characters
+         * @throws IndexOutOfBoundsException if the range is out of the bounds of {@code bytes}
+         */
+        public String intern(byte[] bytes, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            int h = 0;
+            for (int i = offset, end = offset + length; i < end; i++)
+                h = 31 * h + (bytes[i] & 0xff);
+            return intern0(bytes, offset, length, spread(h));
+        }
+
+        // 数组区间的 hash 与 String.hashCode() 一致，所以两种查找方式命中同一个实例
+        @Override
+        boolean matches(String s, Object key, int off, int len) {
+            if (key instanceof String)
+                return s.equals(key);
+            if (s.length() != len)
+                return false;
+            if (key instanceof char[]) {
+                char[] a = (char[])key;
+                for (int i = 0; i < len; i++) {
+                    if (s.charAt(i) != a[off + i])
+                        return false;
+                }
+            } else {
+                byte[] a = (byte[])key;
+                for (int i = 0; i < len; i++) {
+                    if (s.charAt(i) != (a[off + i] & 0xff))
+                        return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        String newElement(Object key, int off, int len) {
+            if (key instanceof String)
+                return (String)key;
+            if (key instanceof char[])
+                return new String((char[])key, off, len);
+            return new String((byte[])key, off, len, ISO_8859_1.INSTANCE);
+        }
+    }
+
+    // Unsafe mechanics
+
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long ABASE = U.arrayBaseOffset(Entry[].class);
+    private static final int ASHIFT = 31 - Integer.numberOfLeadingZeros(U.arrayIndexScale(Entry[].class));
+
+    @SuppressWarnings("unchecked")
+    static <T> Entry<T> tabAt(Entry<T>[] tab, int i) {
+        return (Entry<T>)U.getObjectAcquire(tab, ((long)i << ASHIFT) + ABASE);
+    }
+
+    static <T> void setTabAt(Entry<T>[] tab, int i, Entry<T> e) {
+        U.putObjectRelease(tab, ((long)i << ASHIFT) + ABASE, e);
+    }
+}
@@ -25,6 +25,7 @@
 
 package java.util;
 
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 
 public interface List<E> extends Collection<E> {
@@ -79,6 +80,45 @@ public interface List<E> extends Collection<E> {
         }
     }
 
+    /**
+     * 使用 ForkJoinPool 公共池并行排序，语义与 {@link #sort(Comparator)} 相同
+     *
+     * @implSpec The default implementation copies the list into an array, sorts it with
+     * {@link Arrays#parallelSort(Object[], Comparator)} and writes the elements back through a list iterator.
+     *
+     * @param c the {@code Comparator} used to compare list elements, or {@code null} for natural ordering
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default void parallelSort(Comparator<? super E> c) {
+        Object[] a = this.toArray();
+        Arrays.parallelSort(a, (Comparator)c);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E)e);
+        }
+    }
+
+    /**
+     * 按 long 类型的键并行稳定排序，见 {@link Arrays#parallelSortByKey(Object[], ToLongFunction)}
+     *
+     * @implSpec The default implementation copies the list into an array, sorts it with
+     * {@link Arrays#parallelSortByKey(Object[], ToLongFunction)} and writes the elements back through a list iterator.
+     *
+     * @param keyExtractor the function that extracts the sort key
+     * @throws NullPointerException if {@code keyExtractor} is null
+     */
+    @SuppressWarnings("unchecked")
+    default void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+        Object[] a = this.toArray();
+        Arrays.parallelSortByKey((E[])a, keyExtractor);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E)e);
+        }
+    }
+
     void clear();
 
     // Comparison and hashing
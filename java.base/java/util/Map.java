@@ -332,4 +332,24 @@ public interface Map<K, V> {
             return (Map<K, V>)Map.ofEntries(map.entrySet().toArray(new Entry[0]));
         }
     }
+
+    /**
+     * 与 copyOf 相同，但返回的不可变map使用更高的装载因子，适合构建一次、长期只读的大map
+     *
+     * <p>Returns an unmodifiable map containing the mappings of the given map, like {@link #copyOf(Map)}, but with a
+     * table sized for a load factor of 0.75 rather than 0.5. The map uses the same linear-probing layout as
+     * {@link #ofEntries}: keys and values interleaved in one array, with no per-entry objects. The mappings are copied
+     * even if the given map is already unmodifiable, except that a map of a single mapping returned by
+     * {@link #of(Object, Object)}, {@link #ofEntries} or {@link #copyOf} has no table and is returned as is.
+     *
+     * @param <K> the {@code Map}'s key type
+     * @param <V> the {@code Map}'s value type
+     * @param map a {@code Map} from which entries are drawn, must be non-null
+     * @return a {@code Map} containing the entries of the given {@code Map}
+     * @throws NullPointerException if map is null, or if it contains any null keys or values
+     * @see CompactHashMap
+     */
+    static <K, V> Map<K, V> copyOfCompact(Map<? extends K, ? extends V> map) {
+        return ImmutableCollections.mapCopyCompact(map);
+    }
 }
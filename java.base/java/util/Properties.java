@@ -165,6 +165,14 @@ class Properties extends Hashtable<Object,Object> {
      */
     private transient volatile ConcurrentHashMap<Object, Object> map;
 
+    /**
+     * Keys read by load are shared through this interner.  Held in a
+     * nested class so it is only created once a properties file is loaded.
+     */
+    private static final class Keys {
+        static final Interner.OfString KEYS = new Interner.OfString();
+    }
+
     /**
      * Creates an empty property list with no default values.
      *
@@ -452,8 +460,8 @@ class Properties extends Hashtable<Object,Object> {
                 }
                 valueStart++;
             }
-            String key = loadConvert(lr.lineBuf, 0, keyLen, outBuffer);
-            String value = loadConvert(lr.lineBuf, valueStart, limit - valueStart, outBuffer);
+            String key = loadConvert(lr.lineBuf, 0, keyLen, outBuffer, true);
+            String value = loadConvert(lr.lineBuf, valueStart, limit - valueStart, outBuffer, false);
             put(key, value);
         }
     }
@@ -620,9 +628,11 @@ class Properties extends Hashtable<Object,Object> {
 
     /*
      * Converts encoded &#92;uxxxx to unicode chars
-     * and changes special saved chars to their original forms
+     * and changes special saved chars to their original forms.
+     * Keys without escapes are shared through Keys.KEYS, since the same
+     * keys are loaded over and over from resource and config files.
      */
-    private String loadConvert(char[] in, int off, int len, StringBuilder out) {
+    private String loadConvert(char[] in, int off, int len, StringBuilder out, boolean key) {
         char aChar;
         int end = off + len;
         int start = off;
@@ -633,7 +643,7 @@ class Properties extends Hashtable<Object,Object> {
             }
         }
         if (off == end) { // No backslash
-            return new String(in, start, len);
+            return key ? Keys.KEYS.intern(in, start, len) : new String(in, start, len);
         }
 
         // backslash found at off - 1, reset the shared buffer, rewind offset
@@ -30,6 +30,7 @@ import java.io.ObjectInputStream;
 import java.io.StreamCorruptedException;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 
 /**
@@ -1416,6 +1417,26 @@ public class Vector<E>
         modCount++;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized void parallelSort(Comparator<? super E> c) {
+        final int expectedModCount = modCount;
+        Arrays.parallelSort((E[]) elementData, 0, elementCount, c);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+        final int expectedModCount = modCount;
+        Arrays.parallelSortByKey((E[]) elementData, 0, elementCount, keyExtractor);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        modCount++;
+    }
+
     /**
      * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
      * and <em>fail-fast</em> {@link Spliterator} over the elements in this
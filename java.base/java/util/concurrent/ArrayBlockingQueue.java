@@ -162,6 +162,89 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
         }
     }
 
+    /**
+     * Inserts the elements of the given collection, in iteration order, waiting up to the specified wait time if necessary
+     * for space to become available. Each time the queue has room the lock is acquired once, as many elements as fit are
+     * inserted, and waiting consumers are signalled once per inserted element rather than once per call.
+     *
+     * <p>If the wait time elapses, if the current thread is interrupted while waiting ({@code InterruptedException}), or
+     * if a {@code null} element is encountered ({@code NullPointerException}), the elements inserted so far remain in the
+     * queue and the rest are not inserted.
+     *
+     * @return the number of elements inserted
+     * @throws InterruptedException if interrupted while waiting; elements inserted before the interrupt remain in the
+     *         queue
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit) throws InterruptedException {
+        return enqueueAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts all elements of the given collection, in iteration order, waiting as necessary for space to become
+     * available. Elements are inserted in batches under a single lock hold, as in {@link #offerAll}.
+     *
+     * <p>The insertion is not atomic: if the current thread is interrupted while waiting ({@code InterruptedException}),
+     * or if a {@code null} element is encountered ({@code NullPointerException}), the elements inserted so far remain in
+     * the queue and the rest are not inserted.
+     *
+     * @throws InterruptedException if interrupted while waiting; elements inserted before the interrupt remain in the
+     *         queue
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        enqueueAll(c, false, 0L);
+    }
+
+    /**
+     * 批量进队列：每次持有锁时尽可能多地放入元素，然后按放入的数量唤醒消费者
+     */
+    private int enqueueAll(Collection<? extends E> c, boolean timed, long nanos) throws InterruptedException {
+        Objects.requireNonNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        Iterator<? extends E> it = c.iterator();
+        if (!it.hasNext())
+            return 0;
+        E e = Objects.requireNonNull(it.next());
+        final Object[] items = this.items;
+        final ReentrantLock lock = this.lock;
+        int added = 0;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                int n = 0;
+                try {
+                    while (count < items.length) {
+                        items[putIndex] = e;
+                        if (++putIndex == items.length)
+                            putIndex = 0;
+                        count++;
+                        n++;
+                        if (!it.hasNext())
+                            return added + n;
+                        e = Objects.requireNonNull(it.next());
+                    }
+                } finally {
+                    // Signal even if the iterator threw
+                    if (n > 0) {
+                        added += n;
+                        for (; n > 0 && lock.hasWaiters(notEmpty); n--)
+                            notEmpty.signal();
+                    }
+                }
+                if (!timed)
+                    notFull.await();
+                else if (nanos <= 0L)
+                    return added;
+                else
+                    nanos = notFull.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * 进队列
      * @date 2022/6/19 19:45
@@ -473,6 +556,42 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
         }
     }
 
+    /**
+     * Removes at most {@code maxElements} available elements and adds them to the given collection, first waiting up to the
+     * specified wait time if necessary until at least {@code minElements} elements are available. If the wait time elapses
+     * first, whatever is available is drained.
+     *
+     * <p>{@code minElements} is capped at {@code maxElements} and at the capacity of this queue.
+     *
+     * @return the number of elements transferred
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int drainTo(Collection<? super E> c, int minElements, int maxElements, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        Objects.requireNonNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        int min = Math.min(Math.min(minElements, maxElements), items.length);
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            for (int seen = count; seen < min && nanos > 0L; ) {
+                nanos = notEmpty.awaitNanos(nanos);
+                int n = count;
+                // 元素仍不足min时，把这次唤醒转交给其他消费者，避免吞掉enqueue()的signal
+                if (n > seen && n < min)
+                    notEmpty.signal();
+                seen = n;
+            }
+            return drainTo(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public Iterator<E> iterator() {
         return new Itr();
     }
@@ -251,7 +251,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
         /**
          * Returns true if action can be run. Call only when known to be triggerable. Uses FJ tag bit to ensure that
-         * only one thread claims ownership. If async, starts as task -- a later call to tryFire will run action.
+         * only one thread claims ownership. If async, starts as task -- a later call to tryFire will run action --
+         * unless the executor is an {@link #inlineExecutor} and the current thread already runs in it.
          */
         final boolean claim() {
             Executor e = executor;
@@ -259,6 +260,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                 if (e == null)
                     return true;
                 executor = null; // disable
+                if (e instanceof InlineExecutor && inCurrentThread(((InlineExecutor)e).executor))
+                    return true;
                 e.execute(this);
             }
             return false;
@@ -1532,6 +1535,193 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /* ------------- Inline execution and fused pipelines -------------- */
+
+    /**
+     * Returns true if the current thread is a worker of the given executor. Only membership in a {@link ForkJoinPool}
+     * can be detected; for other executors this returns false.
+     */
+    static boolean inCurrentThread(Executor e) {
+        Thread t;
+        return e instanceof ForkJoinPool && (t = Thread.currentThread()) instanceof ForkJoinWorkerThread
+            && ((ForkJoinWorkerThread)t).pool == e;
+    }
+
+    /**
+     * 当前线程已属于目标线程池时直接执行，否则提交给目标线程池
+     */
+    static final class InlineExecutor implements Executor {
+        final Executor executor;
+
+        InlineExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        public void execute(Runnable r) {
+            if (inCurrentThread(executor))
+                r.run();
+            else
+                executor.execute(r);
+        }
+
+        public String toString() {
+            return super.toString() + "[" + executor + "]";
+        }
+    }
+
+    // Pipeline step kinds
+    static final byte P_APPLY = 0;
+    static final byte P_COMPOSE = 1;
+    static final byte P_HANDLE = 2;
+    static final byte P_EXCEPTIONALLY = 3;
+
+    /**
+     * Runs all steps of a {@link Pipeline} for one source, as a single completion. Steps run back to back in one
+     * thread; the executor, if any, is entered at most once per suspension, and not at all if the completing thread
+     * already belongs to it. A compose step whose stage is not yet complete suspends the run by pushing a
+     * {@link PipelineResume} onto that stage.
+     */
+    @SuppressWarnings("serial")
+    static final class UniPipeline<V> extends Completion {
+        Executor executor; // executor to use (null if none)
+        CompletableFuture<V> dep; // the dependent to complete
+        CompletableFuture<?> src; // stage the next step waits for
+        final Object[] fns;
+        final byte[] kinds;
+        int index; // next step to run
+        Object pending; // result handed to an async run
+
+        UniPipeline(Executor executor, CompletableFuture<V> dep, CompletableFuture<?> src, Object[] fns, byte[] kinds) {
+            this.executor = executor;
+            this.dep = dep;
+            this.src = src;
+            this.fns = fns;
+            this.kinds = kinds;
+        }
+
+        final CompletableFuture<V> tryFire(int mode) {
+            CompletableFuture<?> a;
+            Object r;
+            if (mode == ASYNC) {
+                r = pending;
+                pending = null;
+                return advance(src, r, mode);
+            }
+            if (dep == null || (a = src) == null || (r = a.result) == null
+                || !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            return advance(a, r, mode);
+        }
+
+        /**
+         * Runs the steps from {@code index} on, starting from the (encoded) result r of stage a. Returns the dependent
+         * if it needs propagation, as for {@link #tryFire}.
+         */
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<V> advance(CompletableFuture<?> a, Object r, int mode) {
+            CompletableFuture<V> d;
+            if ((d = dep) == null)
+                return null;
+            Executor e = executor;
+            if (mode != ASYNC && e != null && !inCurrentThread(e)) {
+                src = a;
+                pending = r;
+                try {
+                    e.execute(this);
+                    return null;
+                } catch (Throwable ex) {
+                    r = encodeThrowable(ex);
+                    index = kinds.length;
+                }
+            }
+            final Object[] fs = fns;
+            final byte[] ks = kinds;
+            for (int i = index, n = ks.length; i < n && d.result == null; i++) {
+                Throwable x = null;
+                Object t = r;
+                if (r instanceof AltResult) {
+                    x = ((AltResult)r).ex;
+                    t = null;
+                }
+                try {
+                    switch (ks[i]) {
+                    case P_APPLY:
+                        if (x == null)
+                            r = d.encodeValue(((Function<Object, V>)fs[i]).apply(t));
+                        else // skipped, wrapped as uniApply does
+                            r = encodeThrowable(x, r);
+                        break;
+                    case P_COMPOSE:
+                        if (x == null) {
+                            CompletableFuture<?> g =
+                                ((Function<Object, CompletionStage<?>>)fs[i]).apply(t).toCompletableFuture();
+                            Object s;
+                            if ((s = g.result) != null)
+                                r = encodeRelay(s);
+                            else {
+                                index = i + 1;
+                                src = null;
+                                g.unipush(new PipelineResume(this, g));
+                                return null;
+                            }
+                        }
+                        else // skipped, wrapped as uniCompose does
+                            r = encodeThrowable(x, r);
+                        break;
+                    case P_HANDLE:
+                        r = d.encodeValue(((BiFunction<Object, Throwable, V>)fs[i]).apply(t, x));
+                        break;
+                    default: // P_EXCEPTIONALLY
+                        if (x != null)
+                            r = d.encodeValue(((Function<Throwable, V>)fs[i]).apply(x));
+                        break;
+                    }
+                } catch (Throwable ex) {
+                    r = encodeThrowable(ex);
+                }
+            }
+            d.completeRelay(r);
+            dep = null;
+            src = null;
+            executor = null;
+            return d.postFire(a, mode);
+        }
+
+        final boolean isLive() {
+            return dep != null;
+        }
+    }
+
+    /**
+     * Resumes a suspended {@link UniPipeline} when the stage returned by a compose step completes.
+     */
+    @SuppressWarnings("serial")
+    static final class PipelineResume extends Completion {
+        UniPipeline<?> run;
+        CompletableFuture<?> src;
+
+        PipelineResume(UniPipeline<?> run, CompletableFuture<?> src) {
+            this.run = run;
+            this.src = src;
+        }
+
+        final CompletableFuture<?> tryFire(int mode) {
+            UniPipeline<?> p;
+            CompletableFuture<?> a;
+            Object r;
+            if ((p = run) == null || (a = src) == null || (r = a.result) == null
+                || !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            run = null;
+            src = null;
+            return p.advance(a, encodeRelay(r), (mode == ASYNC) ? SYNC : mode);
+        }
+
+        final boolean isLive() {
+            return run != null;
+        }
+    }
+
     /* ------------- Signallers -------------- */
 
     @SuppressWarnings("serial")
@@ -2051,6 +2241,139 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return new MinimalStage<U>(new AltResult(ex));
     }
 
+    /**
+     * Returns an executor that runs tasks in the calling thread if that thread is already a worker of the given
+     * {@link ForkJoinPool}, and otherwise submits them to it. Async stages using this executor run directly in the
+     * thread that completed their source, rather than being resubmitted, whenever that thread belongs to the pool.
+     * Membership in executors other than {@code ForkJoinPool} cannot be detected, so tasks are always submitted to
+     * them.
+     *
+     * @param executor the executor to use when the calling thread does not belong to it
+     * @return the new executor
+     */
+    public static Executor inlineExecutor(Executor executor) {
+        if (executor instanceof InlineExecutor)
+            return executor;
+        return new InlineExecutor(screenExecutor(executor));
+    }
+
+    /**
+     * Returns an empty {@link Pipeline} whose input and output type is T.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Pipeline<T, T> pipeline() {
+        return (Pipeline<T, T>)Pipeline.EMPTY;
+    }
+
+    /**
+     * 预先组合好的一串处理步骤，每次运行只分配一个completion
+     *
+     * <p>An immutable, reusable sequence of stages, built once and then run against many sources. Running a pipeline
+     * allocates one dependent future and one completion for the whole sequence, instead of one of each per stage as
+     * with chained {@code thenApply}/{@code thenCompose} calls; a compose step whose stage is not yet complete costs
+     * one more small completion. Steps run back to back in one thread, with the same exception semantics as the
+     * corresponding {@code CompletableFuture} methods.
+     *
+     * @param <T> the type of the source result
+     * @param <R> the type of the pipeline result
+     */
+    public static final class Pipeline<T, R> {
+        static final Pipeline<?, ?> EMPTY = new Pipeline<>(new Object[0], new byte[0]);
+
+        final Object[] fns;
+        final byte[] kinds;
+
+        private Pipeline(Object[] fns, byte[] kinds) {
+            this.fns = fns;
+            this.kinds = kinds;
+        }
+
+        private <V> Pipeline<T, V> then(byte kind, Object fn) {
+            if (fn == null)
+                throw new NullPointerException();
+            int n = kinds.length;
+            Object[] fs = java.util.Arrays.copyOf(fns, n + 1);
+            byte[] ks = java.util.Arrays.copyOf(kinds, n + 1);
+            fs[n] = fn;
+            ks[n] = kind;
+            return new Pipeline<>(fs, ks);
+        }
+
+        /**
+         * Returns a pipeline that additionally applies fn to a normal result, as {@link CompletableFuture#thenApply}.
+         */
+        public <V> Pipeline<T, V> thenApply(Function<? super R, ? extends V> fn) {
+            return then(P_APPLY, fn);
+        }
+
+        /**
+         * Returns a pipeline that additionally composes with the stage returned by fn, as
+         * {@link CompletableFuture#thenCompose}.
+         */
+        public <V> Pipeline<T, V> thenCompose(Function<? super R, ? extends CompletionStage<V>> fn) {
+            return then(P_COMPOSE, fn);
+        }
+
+        /**
+         * Returns a pipeline that additionally handles either outcome with fn, as {@link CompletableFuture#handle}.
+         */
+        public <V> Pipeline<T, V> handle(BiFunction<? super R, Throwable, ? extends V> fn) {
+            return then(P_HANDLE, fn);
+        }
+
+        /**
+         * Returns a pipeline that additionally maps an exceptional outcome with fn, as
+         * {@link CompletableFuture#exceptionally}.
+         */
+        public Pipeline<T, R> exceptionally(Function<Throwable, ? extends R> fn) {
+            return then(P_EXCEPTIONALLY, fn);
+        }
+
+        /**
+         * Runs this pipeline when the source completes, in the thread that completes it (or the calling thread, if
+         * already complete).
+         *
+         * @return a new future completed with the result of the last step
+         */
+        public CompletableFuture<R> apply(CompletionStage<? extends T> source) {
+            return start(null, source);
+        }
+
+        /**
+         * Runs this pipeline in the given executor when the source completes. The executor is entered once, plus once
+         * per compose step that has to wait, and not at all while the completing thread already belongs to it.
+         *
+         * @return a new future completed with the result of the last step
+         */
+        public CompletableFuture<R> applyAsync(CompletionStage<? extends T> source, Executor executor) {
+            return start(screenExecutor(executor), source);
+        }
+
+        /**
+         * Runs this pipeline in the default executor when the source completes.
+         *
+         * @return a new future completed with the result of the last step
+         */
+        public CompletableFuture<R> applyAsync(CompletionStage<? extends T> source) {
+            return start(ASYNC_POOL, source);
+        }
+
+        private CompletableFuture<R> start(Executor e, CompletionStage<? extends T> source) {
+            CompletableFuture<? extends T> a = source.toCompletableFuture();
+            CompletableFuture<R> d = a.newIncompleteFuture();
+            UniPipeline<R> p = new UniPipeline<>(e, d, a, fns, kinds);
+            if (a.result != null)
+                p.tryFire(SYNC);
+            else
+                a.unipush(p);
+            return d;
+        }
+
+        public String toString() {
+            return super.toString() + "[Steps = " + kinds.length + "]";
+        }
+    }
+
     static final class Delayer {
         static ScheduledFuture<?> delay(Runnable command, long delay, TimeUnit unit) {
             return delayer.schedule(command, delay, unit);
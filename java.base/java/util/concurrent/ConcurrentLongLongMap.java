@@ -0,0 +1,1054 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+import jdk.internal.misc.Unsafe;
+
+/**
+ * A hash table mapping primitive {@code long} keys to primitive {@code long} values, with the same concurrency properties and
+ * bin-locking, cooperative-resize design as {@link ConcurrentHashMap} and {@link ConcurrentLongObjectMap}. Neither keys nor
+ * values are boxed.
+ *
+ * <p>Since a {@code long} value cannot be {@code null}, each map has a designated <em>missing value</em> (zero unless given
+ * to the constructor) that plays the role {@code null} plays in {@code ConcurrentHashMap}: it is returned by lookups when no
+ * mapping exists, it may not itself be stored, and a remapping function that returns it removes the mapping. With the default
+ * missing value of zero, {@link #addAndGet} therefore behaves as a sparse counter table whose zero entries disappear.
+ *
+ * @see ConcurrentLongObjectMap
+ */
+public class ConcurrentLongLongMap {
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    private static final int RESIZE_STAMP_BITS = 16;
+
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+    static final int MOVED = -1; // hash for forwarding nodes
+    static final int RESERVED = -3; // hash for transient reservations
+    static final int HASH_BITS = 0x7fffffff; // usable bits of normal node hash
+
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Represents an operation that accepts a {@code long} key and a {@code long} value and returns no result.
+     */
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        /**
+         * Performs this operation on the given key and value.
+         */
+        void accept(long key, long value);
+    }
+
+    static class Node {
+        final int hash;
+        final long key;
+        volatile long val;
+        volatile Node next;
+
+        Node(int hash, long key, long val) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+        }
+
+        Node(int hash, long key, long val, Node next) {
+            this(hash, key, val);
+            this.next = next;
+        }
+
+        /**
+         * Virtualized support for get(); overridden in subclasses.
+         */
+        Node find(int h, long k) {
+            Node e = this;
+            do {
+                if (e.hash == h && e.key == k)
+                    return e;
+            } while ((e = e.next) != null);
+            return null;
+        }
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    static final int spread(long key) {
+        return ConcurrentLongObjectMap.spread(key);
+    }
+
+    private static final int tableSizeFor(int c) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(c - 1);
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    static final Node tabAt(Node[] tab, int i) {
+        return (Node)U.getObjectAcquire(tab, ((long)i << ASHIFT) + ABASE);
+    }
+
+    static final boolean casTabAt(Node[] tab, int i, Node c, Node v) {
+        return U.compareAndSetObject(tab, ((long)i << ASHIFT) + ABASE, c, v);
+    }
+
+    static final void setTabAt(Node[] tab, int i, Node v) {
+        U.putObjectRelease(tab, ((long)i << ASHIFT) + ABASE, v);
+    }
+
+    transient volatile Node[] table;
+
+    private transient volatile Node[] nextTable;
+
+    private transient volatile int sizeCtl;
+
+    private transient volatile int transferIndex;
+
+    private final LongAdder counter = new LongAdder();
+
+    /** 表示“无映射”的值，相当于ConcurrentHashMap中的null */
+    private final long missingValue;
+
+    /**
+     * Creates a new, empty map with the default initial table size (16) and a missing value of zero.
+     */
+    public ConcurrentLongLongMap() {
+        this.missingValue = 0L;
+    }
+
+    /**
+     * Creates a new, empty map sized to hold {@code initialCapacity} mappings without resizing, with a missing value of zero.
+     *
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public ConcurrentLongLongMap(int initialCapacity) {
+        this(initialCapacity, 0L);
+    }
+
+    /**
+     * Creates a new, empty map sized to hold {@code initialCapacity} mappings without resizing, using the given value to
+     * denote an absent mapping.
+     */
+    public ConcurrentLongLongMap(int initialCapacity, long missingValue) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException();
+        this.sizeCtl = ((initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ? MAXIMUM_CAPACITY : tableSizeFor(
+            initialCapacity + (initialCapacity >>> 1) + 1));
+        this.missingValue = missingValue;
+    }
+
+    /**
+     * Returns the value that denotes an absent mapping.
+     */
+    public long missingValue() {
+        return missingValue;
+    }
+
+    /**
+     * Returns the number of mappings, or {@code Integer.MAX_VALUE} if there are more. The value is an estimate if
+     * concurrent insertions or removals are in progress; {@link #mappingCount} is preferred.
+     */
+    public int size() {
+        long n = counter.sum();
+        return ((n < 0L) ? 0 : (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n);
+    }
+
+    /**
+     * Returns the number of mappings. The value is an estimate if concurrent insertions or removals are in progress.
+     */
+    public long mappingCount() {
+        long n = counter.sum();
+        return (n < 0L) ? 0L : n; // ignore transient negative values
+    }
+
+    /**
+     * Returns {@code true} if this map contains no mappings.
+     */
+    public boolean isEmpty() {
+        return counter.sum() <= 0L; // ignore transient negative values
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the missing value if this map contains no mapping for the key.
+     */
+    public long get(long key) {
+        Node[] tab;
+        Node e, p;
+        int n, eh;
+        int h = spread(key);
+        if ((tab = table) != null && (n = tab.length) > 0 && (e = tabAt(tab, (n - 1) & h)) != null) {
+            if ((eh = e.hash) == h) {
+                if (e.key == key)
+                    return e.val;
+            } else if (eh < 0)
+                return (p = e.find(h, key)) != null ? p.val : missingValue;
+            while ((e = e.next) != null) {
+                if (e.hash == h && e.key == key)
+                    return e.val;
+            }
+        }
+        return missingValue;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the given default value if this map contains no mapping
+     * for the key.
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        long v;
+        return (v = get(key)) == missingValue ? defaultValue : v;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the specified key.
+     */
+    public boolean containsKey(long key) {
+        return get(key) != missingValue;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the specified value. This method traverses the whole
+     * table, and always returns {@code false} for the missing value.
+     */
+    public boolean containsValue(long value) {
+        Node[] t;
+        if (value != missingValue && (t = table) != null) {
+            Traverser it = new Traverser(t, t.length, 0, t.length);
+            for (Node p; (p = it.advance()) != null; ) {
+                if (p.val == value)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Maps the specified key to the specified value, returning the previous value or the missing value if there was none.
+     *
+     * @throws IllegalArgumentException if {@code value} is the missing value
+     */
+    public long put(long key, long value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * Maps the specified key to the specified value if it is not already mapped, returning the current value or the
+     * missing value if there was none.
+     *
+     * @throws IllegalArgumentException if {@code value} is the missing value
+     */
+    public long putIfAbsent(long key, long value) {
+        return putVal(key, value, true);
+    }
+
+    final long putVal(long key, long value, boolean onlyIfAbsent) {
+        final long missing = missingValue;
+        if (value == missing)
+            throw new IllegalArgumentException("missing value");
+        int hash = spread(key);
+        int binCount = 0;
+        for (Node[] tab = table; ; ) {
+            Node f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                if (casTabAt(tab, i, null, new Node(hash, key, value)))
+                    break;                   // no lock when adding to empty bin
+            } else if ((fh = f.hash) == MOVED)
+                tab = helpTransfer(tab, f);
+            else if (onlyIfAbsent // check first node without acquiring lock
+                     && fh == hash && f.key == key)
+                return f.val;
+            else {
+                long oldVal = missing;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            binCount = 1;
+                            for (Node e = f; ; ++binCount) {
+                                if (e.hash == hash && e.key == key) {
+                                    oldVal = e.val;
+                                    if (!onlyIfAbsent)
+                                        e.val = value;
+                                    break;
+                                }
+                                Node pred = e;
+                                if ((e = e.next) == null) {
+                                    pred.next = new Node(hash, key, value);
+                                    break;
+                                }
+                            }
+                        } else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                    }
+                }
+                if (binCount != 0) {
+                    if (oldVal != missing)
+                        return oldVal;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return missing;
+    }
+
+    /**
+     * Removes the mapping for the key, returning the previous value or the missing value if there was none.
+     */
+    public long remove(long key) {
+        return replaceNode(key, missingValue, false, 0L);
+    }
+
+    /**
+     * Removes the mapping for the key only if it is currently mapped to the given value.
+     *
+     * @return {@code true} if the mapping was removed
+     */
+    public boolean remove(long key, long value) {
+        long missing = missingValue;
+        return value != missing && replaceNode(key, missing, true, value) != missing;
+    }
+
+    /**
+     * Replaces the value for the key only if it is currently mapped to {@code oldValue}.
+     *
+     * @return {@code true} if the value was replaced
+     * @throws IllegalArgumentException if {@code newValue} is the missing value
+     */
+    public boolean replace(long key, long oldValue, long newValue) {
+        long missing = missingValue;
+        if (newValue == missing)
+            throw new IllegalArgumentException("missing value");
+        return oldValue != missing && replaceNode(key, newValue, true, oldValue) != missing;
+    }
+
+    /**
+     * Replaces the value for the key only if it is currently mapped, returning the previous value or the missing value if
+     * there was none.
+     *
+     * @throws IllegalArgumentException if {@code value} is the missing value
+     */
+    public long replace(long key, long value) {
+        if (value == missingValue)
+            throw new IllegalArgumentException("missing value");
+        return replaceNode(key, value, false, 0L);
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods: Replaces node value with v, conditional upon match of cv if
+     * {@code matchValue}. If the resulting value is the missing value, delete.
+     */
+    final long replaceNode(long key, long value, boolean matchValue, long cv) {
+        final long missing = missingValue;
+        int hash = spread(key);
+        for (Node[] tab = table; ; ) {
+            Node f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0 || (f = tabAt(tab, i = (n - 1) & hash)) == null)
+                break;
+            else if ((fh = f.hash) == MOVED)
+                tab = helpTransfer(tab, f);
+            else {
+                long oldVal = missing;
+                boolean validated = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            validated = true;
+                            for (Node e = f, pred = null; ; ) {
+                                if (e.hash == hash && e.key == key) {
+                                    long ev = e.val;
+                                    if (!matchValue || cv == ev) {
+                                        oldVal = ev;
+                                        if (value != missing)
+                                            e.val = value;
+                                        else if (pred != null)
+                                            pred.next = e.next;
+                                        else
+                                            setTabAt(tab, i, e.next);
+                                    }
+                                    break;
+                                }
+                                pred = e;
+                                if ((e = e.next) == null)
+                                    break;
+                            }
+                        } else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                    }
+                }
+                if (validated) {
+                    if (oldVal != missing) {
+                        if (value == missing)
+                            addCount(-1L, -1);
+                        return oldVal;
+                    }
+                    break;
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        long delta = 0L; // negative number of deletions
+        int i = 0;
+        Node[] tab = table;
+        while (tab != null && i < tab.length) {
+            int fh;
+            Node f = tabAt(tab, i);
+            if (f == null)
+                ++i;
+            else if ((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+                i = 0; // restart
+            } else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        Node p = (fh >= 0 ? f : null);
+                        while (p != null) {
+                            --delta;
+                            p = p.next;
+                        }
+                        setTabAt(tab, i++, null);
+                    }
+                }
+            }
+        }
+        if (delta != 0L)
+            addCount(delta, -1);
+    }
+
+    /**
+     * Performs the given action for each mapping, in no particular order. Concurrent updates may or may not be seen.
+     *
+     * @throws NullPointerException if the action is null
+     */
+    public void forEach(LongLongConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        Node[] t;
+        if ((t = table) != null) {
+            Traverser it = new Traverser(t, t.length, 0, t.length);
+            for (Node p; (p = it.advance()) != null; ) {
+                action.accept(p.key, p.val);
+            }
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value, attempts to compute its value using the given mapping
+     * function and enters it into this map unless it is the missing value. The function is applied at most once per key.
+     */
+    public long computeIfAbsent(long key, LongUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        final long missing = missingValue;
+        int h = spread(key);
+        long val = missing;
+        int binCount = 0;
+        for (Node[] tab = table; ; ) {
+            Node f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                Node r = new ReservationNode();
+                synchronized (r) {
+                    if (casTabAt(tab, i, null, r)) {
+                        binCount = 1;
+                        Node node = null;
+                        try {
+                            if ((val = mappingFunction.applyAsLong(key)) != missing)
+                                node = new Node(h, key, val);
+                        } finally {
+                            setTabAt(tab, i, node);
+                        }
+                    }
+                }
+                if (binCount != 0)
+                    break;
+            } else if ((fh = f.hash) == MOVED)
+                tab = helpTransfer(tab, f);
+            else if (fh == h && f.key == key) // check first node without acquiring lock
+                return f.val;
+            else {
+                boolean added = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            binCount = 1;
+                            for (Node e = f; ; ++binCount) {
+                                if (e.hash == h && e.key == key) {
+                                    val = e.val;
+                                    break;
+                                }
+                                Node pred = e;
+                                if ((e = e.next) == null) {
+                                    if ((val = mappingFunction.applyAsLong(key)) != missing) {
+                                        if (pred.next != null)
+                                            throw new IllegalStateException("Recursive update");
+                                        added = true;
+                                        pred.next = new Node(h, key, val);
+                                    }
+                                    break;
+                                }
+                            }
+                        } else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                    }
+                }
+                if (binCount != 0) {
+                    if (!added)
+                        return val;
+                    break;
+                }
+            }
+        }
+        if (val != missing)
+            addCount(1L, binCount);
+        return val;
+    }
+
+    /**
+     * If the specified key is present, attempts to compute a new mapping given the key and its current value. A result equal
+     * to the missing value removes the mapping.
+     */
+    public long computeIfPresent(long key, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        return doCompute(key, remappingFunction, true);
+    }
+
+    /**
+     * Attempts to compute a mapping for the specified key and its current value, or the missing value if there is no current
+     * mapping. A result equal to the missing value removes the mapping.
+     */
+    public long compute(long key, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        return doCompute(key, remappingFunction, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value, associates it with the given value. Otherwise, replaces
+     * the value with {@code remappingFunction.applyAsLong(oldValue, value)}, or removes it if the result is the missing value.
+     */
+    public long merge(long key, long value, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        if (value == missingValue)
+            throw new IllegalArgumentException("missing value");
+        return doMerge(key, value, remappingFunction);
+    }
+
+    /**
+     * Atomically adds {@code delta} to the value mapped to {@code key}, treating an absent mapping as the missing value, and
+     * returns the new value. If the sum equals the missing value the mapping is removed.
+     */
+    public long addAndGet(long key, long delta) {
+        if (delta == 0L)
+            return get(key);
+        return doCompute(key, (k, v) -> v + delta, false);
+    }
+
+    private long doCompute(long key, LongBinaryOperator remappingFunction, boolean onlyIfPresent) {
+        final long missing = missingValue;
+        int h = spread(key);
+        long val = missing;
+        int delta = 0;
+        int binCount = 0;
+        for (Node[] tab = table; ; ) {
+            Node f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                if (onlyIfPresent)
+                    break;
+                Node r = new ReservationNode();
+                synchronized (r) {
+                    if (casTabAt(tab, i, null, r)) {
+                        binCount = 1;
+                        Node node = null;
+                        try {
+                            if ((val = remappingFunction.applyAsLong(key, missing)) != missing) {
+                                delta = 1;
+                                node = new Node(h, key, val);
+                            }
+                        } finally {
+                            setTabAt(tab, i, node);
+                        }
+                    }
+                }
+                if (binCount != 0)
+                    break;
+            } else if ((fh = f.hash) == MOVED)
+                tab = helpTransfer(tab, f);
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            binCount = 1;
+                            for (Node e = f, pred = null; ; ++binCount) {
+                                if (e.hash == h && e.key == key) {
+                                    val = remappingFunction.applyAsLong(key, e.val);
+                                    if (val != missing)
+                                        e.val = val;
+                                    else {
+                                        delta = -1;
+                                        Node en = e.next;
+                                        if (pred != null)
+                                            pred.next = en;
+                                        else
+                                            setTabAt(tab, i, en);
+                                    }
+                                    break;
+                                }
+                                pred = e;
+                                if ((e = e.next) == null) {
+                                    if (!onlyIfPresent) {
+                                        val = remappingFunction.applyAsLong(key, missing);
+                                        if (val != missing) {
+                                            if (pred.next != null)
+                                                throw new IllegalStateException("Recursive update");
+                                            delta = 1;
+                                            pred.next = new Node(h, key, val);
+                                        }
+                                    }
+                                    break;
+                                }
+                            }
+                        } else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                    }
+                }
+                if (binCount != 0)
+                    break;
+            }
+        }
+        if (delta != 0)
+            addCount((long)delta, binCount);
+        return val;
+    }
+
+    private long doMerge(long key, long value, LongBinaryOperator remappingFunction) {
+        final long missing = missingValue;
+        int h = spread(key);
+        long val = missing;
+        int delta = 0;
+        int binCount = 0;
+        for (Node[] tab = table; ; ) {
+            Node f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                if (casTabAt(tab, i, null, new Node(h, key, value))) {
+                    delta = 1;
+                    val = value;
+                    break;
+                }
+            } else if ((fh = f.hash) == MOVED)
+                tab = helpTransfer(tab, f);
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            binCount = 1;
+                            for (Node e = f, pred = null; ; ++binCount) {
+                                if (e.hash == h && e.key == key) {
+                                    val = remappingFunction.applyAsLong(e.val, value);
+                                    if (val != missing)
+                                        e.val = val;
+                                    else {
+                                        delta = -1;
+                                        Node en = e.next;
+                                        if (pred != null)
+                                            pred.next = en;
+                                        else
+                                            setTabAt(tab, i, en);
+                                    }
+                                    break;
+                                }
+                                pred = e;
+                                if ((e = e.next) == null) {
+                                    delta = 1;
+                                    val = value;
+                                    pred.next = new Node(h, key, val);
+                                    break;
+                                }
+                            }
+                        } else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                    }
+                }
+                if (binCount != 0)
+                    break;
+            }
+        }
+        if (delta != 0)
+            addCount((long)delta, binCount);
+        return val;
+    }
+
+    /**
+     * Returns a string representation of this map, listing the mappings as {@code key=value} pairs in braces.
+     */
+    public String toString() {
+        Node[] t;
+        int f = (t = table) == null ? 0 : t.length;
+        Traverser it = new Traverser(t, f, 0, f);
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        Node p;
+        if ((p = it.advance()) != null) {
+            for (; ; ) {
+                sb.append(p.key).append('=').append(p.val);
+                if ((p = it.advance()) == null)
+                    break;
+                sb.append(',').append(' ');
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /* ---------------- Special Nodes -------------- */
+
+    static final class ForwardingNode extends Node {
+        final Node[] nextTable;
+
+        ForwardingNode(Node[] tab) {
+            super(MOVED, 0L, 0L);
+            this.nextTable = tab;
+        }
+
+        Node find(int h, long k) {
+            // loop to avoid arbitrarily deep recursion on forwarding nodes
+            outer:
+            for (Node[] tab = nextTable; ; ) {
+                Node e;
+                int n;
+                if (tab == null || (n = tab.length) == 0 || (e = tabAt(tab, (n - 1) & h)) == null)
+                    return null;
+                for (; ; ) {
+                    int eh;
+                    if ((eh = e.hash) == h && e.key == k)
+                        return e;
+                    if (eh < 0) {
+                        if (e instanceof ForwardingNode) {
+                            tab = ((ForwardingNode)e).nextTable;
+                            continue outer;
+                        } else
+                            return e.find(h, k);
+                    }
+                    if ((e = e.next) == null)
+                        return null;
+                }
+            }
+        }
+    }
+
+    static final class ReservationNode extends Node {
+        ReservationNode() {
+            super(RESERVED, 0L, 0L);
+        }
+
+        Node find(int h, long k) {
+            return null;
+        }
+    }
+
+    /* ---------------- Table Initialization and Resizing -------------- */
+
+    static final int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    private final Node[] initTable() {
+        Node[] tab;
+        int sc;
+        while ((tab = table) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0)
+                Thread.yield(); // lost initialization race; just spin
+            else if (U.compareAndSetInt(this, SIZECTL, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length == 0) {
+                        int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+                        Node[] nt = new Node[n];
+                        table = tab = nt;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Adds to count, and if table is too small and not already resizing, initiates transfer. If already resizing, helps
+     * perform transfer if work is available. Rechecks occupancy after a transfer to see if another resize is already needed
+     * because resizings are lagging additions.
+     *
+     * @param x the count to add
+     * @param check if <0, don't check resize
+     */
+    private final void addCount(long x, int check) {
+        counter.add(x);
+        if (check >= 0) {
+            Node[] tab, nt;
+            int n, sc;
+            long s = counter.sum();
+            while (s >= (long)(sc = sizeCtl) && (tab = table) != null && (n = tab.length) < MAXIMUM_CAPACITY) {
+                int rs = resizeStamp(n);
+                if (sc < 0) {
+                    if ((sc >>> RESIZE_STAMP_SHIFT) != rs || sc == rs + 1 || sc == rs + MAX_RESIZERS || (nt = nextTable) == null ||
+                        transferIndex <= 0)
+                        break;
+                    if (U.compareAndSetInt(this, SIZECTL, sc, sc + 1))
+                        transfer(tab, nt);
+                } else if (U.compareAndSetInt(this, SIZECTL, sc, (rs << RESIZE_STAMP_SHIFT) + 2))
+                    transfer(tab, null);
+                s = counter.sum();
+            }
+        }
+    }
+
+    final Node[] helpTransfer(Node[] tab, Node f) {
+        Node[] nextTab;
+        int sc;
+        if (tab != null && (f instanceof ForwardingNode) && (nextTab = ((ForwardingNode)f).nextTable) != null) {
+            int rs = resizeStamp(tab.length);
+            while (nextTab == nextTable && table == tab && (sc = sizeCtl) < 0) {
+                if ((sc >>> RESIZE_STAMP_SHIFT) != rs || sc == rs + 1 || sc == rs + MAX_RESIZERS || transferIndex <= 0)
+                    break;
+                if (U.compareAndSetInt(this, SIZECTL, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return table;
+    }
+
+    /**
+     * Moves and/or copies the nodes in each bin to new table. Each thread claims a stride of bins by decrementing
+     * {@code transferIndex}, exactly as in {@link ConcurrentHashMap}.
+     */
+    private final void transfer(Node[] tab, Node[] nextTab) {
+        int n = tab.length, stride;
+        if ((stride = (NCPU > 1) ? (n >>> 3) / NCPU : n) < MIN_TRANSFER_STRIDE)
+            stride = MIN_TRANSFER_STRIDE; // subdivide range
+        if (nextTab == null) {            // initiating
+            try {
+                Node[] nt = new Node[n << 1];
+                nextTab = nt;
+            } catch (Throwable ex) {      // try to cope with OOME
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        int nextn = nextTab.length;
+        ForwardingNode fwd = new ForwardingNode(nextTab);
+        boolean advance = true;
+        boolean finishing = false; // to ensure sweep before committing nextTab
+        for (int i = 0, bound = 0; ; ) {
+            Node f;
+            int fh;
+            while (advance) {
+                int nextIndex, nextBound;
+                if (--i >= bound || finishing)
+                    advance = false;
+                else if ((nextIndex = transferIndex) <= 0) {
+                    i = -1;
+                    advance = false;
+                } else if (U.compareAndSetInt(this, TRANSFERINDEX, nextIndex, nextBound = (nextIndex > stride ? nextIndex - stride : 0))) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if (i < 0 || i >= n || i + n >= nextn) {
+                int sc;
+                if (finishing) {
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                if (U.compareAndSetInt(this, SIZECTL, sc = sizeCtl, sc - 1)) {
+                    if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT)
+                        return;
+                    finishing = advance = true;
+                    i = n; // recheck before commit
+                }
+            } else if ((f = tabAt(tab, i)) == null)
+                advance = casTabAt(tab, i, null, fwd);
+            else if ((fh = f.hash) == MOVED)
+                advance = true; // already processed
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f && fh >= 0) {
+                        Node ln, hn;
+                        int runBit = fh & n;
+                        Node lastRun = f;
+                        for (Node p = f.next; p != null; p = p.next) {
+                            int b = p.hash & n;
+                            if (b != runBit) {
+                                runBit = b;
+                                lastRun = p;
+                            }
+                        }
+                        if (runBit == 0) {
+                            ln = lastRun;
+                            hn = null;
+                        } else {
+                            hn = lastRun;
+                            ln = null;
+                        }
+                        for (Node p = f; p != lastRun; p = p.next) {
+                            int ph = p.hash;
+                            long pk = p.key;
+                            long pv = p.val;
+                            if ((ph & n) == 0)
+                                ln = new Node(ph, pk, pv, ln);
+                            else
+                                hn = new Node(ph, pk, pv, hn);
+                        }
+                        setTabAt(nextTab, i, ln);
+                        setTabAt(nextTab, i + n, hn);
+                        setTabAt(tab, i, fwd);
+                        advance = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /* ---------------- Table Traversal -------------- */
+
+    static final class TableStack {
+        int length;
+        int index;
+        Node[] tab;
+        TableStack next;
+    }
+
+    /**
+     * Encapsulates traversal for methods such as containsValue and forEach; see the {@code ConcurrentHashMap.Traverser} for
+     * the handling of forwarding nodes encountered during a concurrent resize.
+     */
+    static class Traverser {
+        Node[] tab;        // current table; updated if resized
+        Node next;         // the next entry to use
+        TableStack stack, spare; // to save/restore on ForwardingNodes
+        int index;              // index of bin to use next
+        int baseIndex;          // current index of initial table
+        int baseLimit;          // index bound for initial table
+        final int baseSize;     // initial table size
+
+        Traverser(Node[] tab, int size, int index, int limit) {
+            this.tab = tab;
+            this.baseSize = size;
+            this.baseIndex = this.index = index;
+            this.baseLimit = limit;
+            this.next = null;
+        }
+
+        final Node advance() {
+            Node e;
+            if ((e = next) != null)
+                e = e.next;
+            for (; ; ) {
+                Node[] t;
+                int i, n;  // must use locals in checks
+                if (e != null)
+                    return next = e;
+                if (baseIndex >= baseLimit || (t = tab) == null || (n = t.length) <= (i = index) || i < 0)
+                    return next = null;
+                if ((e = tabAt(t, i)) != null && e.hash < 0) {
+                    if (e instanceof ForwardingNode) {
+                        tab = ((ForwardingNode)e).nextTable;
+                        e = null;
+                        pushState(t, i, n);
+                        continue;
+                    } else
+                        e = null;
+                }
+                if (stack != null)
+                    recoverState(n);
+                else if ((index = i + baseSize) >= n)
+                    index = ++baseIndex; // visit upper slots if present
+            }
+        }
+
+        private void pushState(Node[] t, int i, int n) {
+            TableStack s = spare;  // reuse if possible
+            if (s != null)
+                spare = s.next;
+            else
+                s = new TableStack();
+            s.tab = t;
+            s.length = n;
+            s.index = i;
+            s.next = stack;
+            stack = s;
+        }
+
+        private void recoverState(int n) {
+            TableStack s;
+            int len;
+            while ((s = stack) != null && (index += (len = s.length)) >= n) {
+                n = len;
+                index = s.index;
+                tab = s.tab;
+                s.tab = null;
+                TableStack next = s.next;
+                s.next = spare; // save for reuse
+                stack = next;
+                spare = s;
+            }
+            if (s == null && (index += baseSize) >= n)
+                index = ++baseIndex;
+        }
+    }
+
+    // Unsafe mechanics
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long SIZECTL;
+    private static final long TRANSFERINDEX;
+    private static final int ABASE;
+    private static final int ASHIFT;
+
+    static {
+        SIZECTL = U.objectFieldOffset(ConcurrentLongLongMap.class, "sizeCtl");
+        TRANSFERINDEX = U.objectFieldOffset(ConcurrentLongLongMap.class, "transferIndex");
+
+        ABASE = U.arrayBaseOffset(Node[].class);
+        int scale = U.arrayIndexScale(Node[].class);
+        if ((scale & (scale - 1)) != 0)
+            throw new ExceptionInInitializerError("array index scale not a power of two");
+        ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 
 import jdk.internal.access.SharedSecrets;
@@ -536,6 +537,34 @@ public class CopyOnWriteArrayList<E> implements List<E>, RandomAccess, Cloneable
         setArray(es);
     }
 
+    public void parallelSort(Comparator<? super E> c) {
+        synchronized (lock) {
+            parallelSortRange(c, 0, getArray().length);
+        }
+    }
+
+    public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+        synchronized (lock) {
+            parallelSortRangeByKey(keyExtractor, 0, getArray().length);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void parallelSortRange(Comparator<? super E> c, int i, int end) {
+        // assert Thread.holdsLock(lock);
+        final Object[] es = getArray().clone();
+        Arrays.parallelSort(es, i, end, (Comparator<Object>)c);
+        setArray(es);
+    }
+
+    @SuppressWarnings("unchecked")
+    void parallelSortRangeByKey(ToLongFunction<? super E> keyExtractor, int i, int end) {
+        // assert Thread.holdsLock(lock);
+        final Object[] es = getArray().clone();
+        Arrays.parallelSortByKey((E[])es, i, end, keyExtractor);
+        setArray(es);
+    }
+
     private void writeObject(java.io.ObjectOutputStream s) throws java.io.IOException {
 
         s.defaultWriteObject();
@@ -1046,6 +1075,22 @@ public class CopyOnWriteArrayList<E> implements List<E>, RandomAccess, Cloneable
             }
         }
 
+        public void parallelSort(Comparator<? super E> c) {
+            synchronized (lock) {
+                checkForComodification();
+                parallelSortRange(c, offset, offset + size);
+                expectedArray = getArray();
+            }
+        }
+
+        public void parallelSortByKey(ToLongFunction<? super E> keyExtractor) {
+            synchronized (lock) {
+                checkForComodification();
+                parallelSortRangeByKey(keyExtractor, offset, offset + size);
+                expectedArray = getArray();
+            }
+        }
+
         public boolean removeAll(Collection<?> c) {
             Objects.requireNonNull(c);
             return bulkRemove(e -> c.contains(e));
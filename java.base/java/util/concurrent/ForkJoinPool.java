@@ -137,6 +137,10 @@ public class ForkJoinPool extends AbstractExecutorService {
     final ForkJoinWorkerThreadFactory factory;
     final UncaughtExceptionHandler ueh; // per-worker UEH
     final Predicate<? super ForkJoinPool> saturate;
+    /** 工作线程分组：pool index -> group，null表示不分组 */
+    final int[] workerGroups; // worker group affinity, or null
+    long[] retiredSteals; // per-group nsteals of exited workers; sync lock
+    long[] retiredRemoteSteals; // per-group remote steals of exited workers
 
     /** 线程池状态变量，类似于ThreadPoolExecutor中的ctl变量。 */
     @jdk.internal.vm.annotation.Contended("fjpctl") // segregate
@@ -159,6 +163,8 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile int phase; // versioned, negative: queued, 1: locked
         int stackPred; // pool stack (ctl) predecessor link
         int nsteals; // number of steals
+        int nremote; // number of steals from queues of other groups
+        int group; // affinity group, 0 if pool is ungrouped
         /** 工作线程的局部队列 */
         ForkJoinTask<?>[] array; // the queued tasks; power of 2 size
         final ForkJoinPool pool; // the containing pool (may be null)
@@ -597,6 +603,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                         } else
                             tid = (tid + 2) & m;
                     }
+                    w.group = groupOf(tid >>> 1);
                     w.phase = w.id = tid | idbits; // now publishable
 
                     if (tid < n)
@@ -607,9 +614,11 @@ public class ForkJoinPool extends AbstractExecutorService {
                         as[tid] = w;
                         int am = an - 1;
                         for (int j = 0; j < n; ++j) {
-                            WorkQueue v; // copy external queue
-                            if ((v = ws[j]) != null) // position may change
-                                as[v.id & am & SQMASK] = v;
+                            WorkQueue v; int k; // copy external queue
+                            if ((v = ws[j]) != null) { // position may change
+                                as[k = v.id & am & SQMASK] = v;
+                                v.group = groupOf(k >>> 1);
+                            }
                             if (++j >= n)
                                 break;
                             as[j] = ws[j]; // copy worker
@@ -637,6 +646,10 @@ public class ForkJoinPool extends AbstractExecutorService {
                     if ((ws = workQueues) != null && (n = ws.length) > 0 && ws[i = wid & (n - 1)] == w)
                         ws[i] = null;
                     stealCount += ns;
+                    if (workerGroups != null) {
+                        retiredSteals[w.group] += ns;
+                        retiredRemoteSteals[w.group] += (long)w.nremote & 0xffffffffL;
+                    }
                 }
             }
             phase = w.phase;
@@ -842,6 +855,16 @@ public class ForkJoinPool extends AbstractExecutorService {
      * @return boolean
      */
     private boolean scan(WorkQueue w, int r) {
+        // 分组模式下先在本组内窃取，本组没有任务时再扫描全部队列
+        return (workerGroups != null && w != null && scan(w, r, w.group)) || scan(w, r, -1);
+    }
+
+    /**
+     * Scans for and runs top-level tasks, considering only queues of the given group, or all queues if group is negative.
+     *
+     * @return true if a non-empty queue was found
+     */
+    private boolean scan(WorkQueue w, int r, int group) {
         WorkQueue[] ws;
         int n;
         // 如果workQueues不是null，并且workQueue的长度大于0，并且w非空，w是线程的 workQueue
@@ -851,7 +874,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                 WorkQueue q;
                 int b;
                 // 随机获取workQueue，如果该workQueue的顶指针和底指针不相等，表示有需要执行的任务
-                if ((q = ws[j]) != null && q.top != (b = q.base)) {
+                if ((q = ws[j]) != null && (group < 0 || q.group == group) && q.top != (b = q.base)) {
                     int qid = q.id;
                     ForkJoinTask<?>[] a;
                     int cap, k;
@@ -871,8 +894,11 @@ public class ForkJoinPool extends AbstractExecutorService {
                                 signalWork();
                             // 让workQueue中的工作线程来执行不管是窃取来的，还是本地的任 务，还是从queue中获取的其他任务
                             // 公平起见，添加一个随机的边界；剩下的让别的线程来执行。
+                            int ns = w.nsteals;
                             w.topLevelExec(t, q, // random fairness bound
                                 r & ((n << TOP_BOUND_SHIFT) - 1));
+                            if (q.group != w.group)
+                                w.nremote += w.nsteals - ns;
                         }
                     }
                     return true;
@@ -1109,8 +1135,11 @@ public class ForkJoinPool extends AbstractExecutorService {
                         // 因为有可能其他线程将qid对应的workQueues处的元素设置了，
                         // 所以需要加锁，并判断元素是否为null
                         if ((vs = workQueues) != null && (vn = vs.length) > 0
-                            && vs[i = qid & (vn - 1) & SQMASK] == null)
+                            && vs[i = qid & (vn - 1) & SQMASK] == null) {
+                            // 分组取自实际安装的槽位，而不是未经数组长度掩码的qid
+                            q.group = groupOf(i >>> 1);
                             vs[i] = q; // else another thread already installed
+                        }
                     }
                 }
             } else if (!q.tryLockPhase()) // CAS操作，使用随机数
@@ -1243,11 +1272,43 @@ public class ForkJoinPool extends AbstractExecutorService {
     public ForkJoinPool(int parallelism, ForkJoinWorkerThreadFactory factory, UncaughtExceptionHandler handler,
         boolean asyncMode, int corePoolSize, int maximumPoolSize, int minimumRunnable,
         Predicate<? super ForkJoinPool> saturate, long keepAliveTime, TimeUnit unit) {
+        this(parallelism, factory, handler, asyncMode, corePoolSize, maximumPoolSize, minimumRunnable, saturate,
+            keepAliveTime, unit, null);
+    }
+
+    /**
+     * Creates a {@code ForkJoinPool} with the given parameters in which workers are partitioned into affinity groups (for
+     * example, one group per socket or per shared cache). When looking for work, a worker first tries to steal from queues
+     * of its own group and only scans queues of other groups if those are all empty. Submission queues belong to groups too,
+     * so submitters whose queue slots map to a group feed the workers of that group first.
+     *
+     * <p>{@code workerGroups[i % workerGroups.length]} is the group of the worker or submission queue with pool index
+     * {@code i} (see {@link ForkJoinWorkerThread#getPoolIndex}). Groups are numbered from zero; per-group steal counts are
+     * available from {@link #getStealCount(int)} and {@link #getRemoteStealCount(int)}.
+     *
+     * @param workerGroups mapping from pool index to group, or {@code null} for the default uniform stealing
+     * @throws IllegalArgumentException if {@code workerGroups} is empty or contains a negative group, or if any other
+     *         parameter is invalid as for the constructor without {@code workerGroups}
+     */
+    public ForkJoinPool(int parallelism, ForkJoinWorkerThreadFactory factory, UncaughtExceptionHandler handler,
+        boolean asyncMode, int corePoolSize, int maximumPoolSize, int minimumRunnable,
+        Predicate<? super ForkJoinPool> saturate, long keepAliveTime, TimeUnit unit, int[] workerGroups) {
         // check, encode, pack parameters
         if (parallelism <= 0 || parallelism > MAX_CAP || maximumPoolSize < parallelism || keepAliveTime <= 0L)
             throw new IllegalArgumentException();
         if (factory == null)
             throw new NullPointerException();
+        int groups = 0;
+        if (workerGroups != null) {
+            if (workerGroups.length == 0)
+                throw new IllegalArgumentException();
+            workerGroups = workerGroups.clone();
+            for (int g : workerGroups) {
+                if (g < 0)
+                    throw new IllegalArgumentException();
+                groups = Math.max(groups, g + 1);
+            }
+        }
         long ms = Math.max(unit.toMillis(keepAliveTime), TIMEOUT_SLOP);
 
         int corep = Math.min(Math.max(corePoolSize, parallelism), MAX_CAP);
@@ -1272,6 +1333,11 @@ public class ForkJoinPool extends AbstractExecutorService {
         this.factory = factory;
         this.ueh = handler;
         this.saturate = saturate;
+        this.workerGroups = workerGroups;
+        if (workerGroups != null) {
+            this.retiredSteals = new long[groups];
+            this.retiredRemoteSteals = new long[groups];
+        }
         this.keepAlive = ms;
         this.bounds = b;
         this.mode = m;
@@ -1323,6 +1389,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         this.factory = fac;
         this.ueh = handler;
         this.saturate = null;
+        this.workerGroups = null;
         this.keepAlive = DEFAULT_KEEPALIVE;
         this.bounds = b;
         this.mode = parallelism;
@@ -1505,6 +1572,58 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Returns the number of affinity groups, or zero if this pool was not constructed with worker groups.
+     */
+    public int getGroupCount() {
+        long[] rs = retiredSteals;
+        return (rs == null) ? 0 : rs.length;
+    }
+
+    /**
+     * Returns an estimate of the total number of tasks stolen by workers of the given group, from any queue.
+     *
+     * @throws IllegalArgumentException if {@code group} is not in {@code [0, getGroupCount())}
+     */
+    public long getStealCount(int group) {
+        return groupStealCount(group, false);
+    }
+
+    /**
+     * Returns an estimate of the number of tasks that workers of the given group stole from queues of other groups.
+     *
+     * @throws IllegalArgumentException if {@code group} is not in {@code [0, getGroupCount())}
+     */
+    public long getRemoteStealCount(int group) {
+        return groupStealCount(group, true);
+    }
+
+    private long groupStealCount(int group, boolean remoteOnly) {
+        if (group < 0 || group >= getGroupCount())
+            throw new IllegalArgumentException();
+        long count;
+        synchronized (workerNamePrefix) {
+            count = remoteOnly ? retiredRemoteSteals[group] : retiredSteals[group];
+        }
+        WorkQueue[] ws;
+        WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null && w.group == group)
+                    count += (long)(remoteOnly ? w.nremote : w.nsteals) & 0xffffffffL;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the affinity group of the queue at the given pool index.
+     */
+    final int groupOf(int poolIndex) {
+        int[] gs = workerGroups;
+        return (gs == null) ? 0 : gs[poolIndex % gs.length];
+    }
+
     public long getQueuedTaskCount() {
         WorkQueue[] ws;
         WorkQueue w;
@@ -48,6 +48,9 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
     private final ReentrantLock takeLock = new ReentrantLock();
     private final Condition notEmpty = takeLock.newCondition();
 
+    /** 在drainTo(c, min, max, ...)中等待的线程数，由takeLock保护；非0时生产者每次放入都要唤醒 */
+    private transient volatile int batchWaiters;
+
 
     /**
      * Node
@@ -133,7 +136,7 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
             putLock.unlock();
         }
 
-        if (c == 0) {
+        if (c == 0 || batchWaiters != 0) {
             signalNotEmpty();
         }
         return true;
@@ -174,7 +177,7 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
             putLock.unlock();
         }
 
-        if (c == 0) {
+        if (c == 0 || batchWaiters != 0) {
             signalNotEmpty();
         }
 
@@ -210,11 +213,107 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
             putLock.unlock();
         }
 
-        if (c == 0) {
+        if (c == 0 || batchWaiters != 0) {
             signalNotEmpty();
         }
     }
 
+    /**
+     * Inserts the elements of the given collection, in iteration order, waiting up to the specified wait time if necessary
+     * for space to become available. Each time the queue has room the put lock is acquired once, as many elements as fit
+     * are linked in, the count is updated with a single atomic add, and consumers are signalled at most once.
+     *
+     * <p>If the wait time elapses, if the current thread is interrupted while waiting ({@code InterruptedException}), or
+     * if a {@code null} element is encountered ({@code NullPointerException}), the elements inserted so far remain in the
+     * queue and the rest are not inserted.
+     *
+     * @return the number of elements inserted
+     * @throws InterruptedException if interrupted while waiting; elements inserted before the interrupt remain in the
+     *         queue
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit) throws InterruptedException {
+        return enqueueAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts all elements of the given collection, in iteration order, waiting as necessary for space to become
+     * available. Elements are inserted in batches under a single lock hold, as in {@link #offerAll}.
+     *
+     * <p>The insertion is not atomic: if the current thread is interrupted while waiting ({@code InterruptedException}),
+     * or if a {@code null} element is encountered ({@code NullPointerException}), the elements inserted so far remain in
+     * the queue and the rest are not inserted.
+     *
+     * @throws InterruptedException if interrupted while waiting; elements inserted before the interrupt remain in the
+     *         queue
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        enqueueAll(c, false, 0L);
+    }
+
+    /**
+     * 批量进队列：每次持有putLock时尽可能多地链接节点，只做一次count累加和一次signal
+     */
+    private int enqueueAll(Collection<? extends E> c, boolean timed, long nanos) throws InterruptedException {
+        Objects.requireNonNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        Iterator<? extends E> it = c.iterator();
+        if (!it.hasNext())
+            return 0;
+        E e = Objects.requireNonNull(it.next());
+        final AtomicInteger count = this.count;
+        final ReentrantLock putLock = this.putLock;
+        int added = 0;
+        boolean signal = false;
+        putLock.lockInterruptibly();
+        try {
+            for (;;) {
+                int n = 0;
+                int room = capacity - count.get();
+                try {
+                    while (n < room) {
+                        enqueue(new Node<E>(e));
+                        ++n;
+                        if (!it.hasNext()) {
+                            e = null;
+                            break;
+                        }
+                        e = Objects.requireNonNull(it.next());
+                    }
+                } finally {
+                    // Publish the linked nodes even if the iterator threw
+                    if (n > 0) {
+                        added += n;
+                        int k = count.getAndAdd(n);
+                        if (k + n < capacity)
+                            notFull.signal();
+                        if (k == 0 || batchWaiters != 0)
+                            signal = true;
+                    }
+                }
+                if (e == null)
+                    return added;
+                // 消费者必须在本线程等待notFull之前被唤醒
+                if (signal) {
+                    signal = false;
+                    signalNotEmpty();
+                }
+                if (!timed)
+                    notFull.await();
+                else if (nanos <= 0L)
+                    return added;
+                else
+                    nanos = notFull.awaitNanos(nanos);
+            }
+        } finally {
+            putLock.unlock();
+            if (signal)
+                signalNotEmpty();
+        }
+    }
+
     /**
      *
      * @date 2022/7/16 14:26
@@ -388,7 +487,11 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
         // 必须先获取 takeLock 菜可以调用 notEmpty.signal() 方法
         takeLock.lock();
         try {
-            notEmpty.signal();
+            // 有批量等待者时，它们需要在每次放入后重新检查数量
+            if (batchWaiters != 0)
+                notEmpty.signalAll();
+            else
+                notEmpty.signal();
         } finally {
             takeLock.unlock();
         }
@@ -555,6 +658,79 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
         }
     }
 
+    /**
+     * Removes at most {@code maxElements} available elements and adds them to the given collection, first waiting up to the
+     * specified wait time if necessary until at least {@code minElements} elements are available. If the wait time elapses
+     * first, whatever is available is drained.
+     *
+     * <p>{@code minElements} is capped at {@code maxElements} and at the capacity of this queue.
+     *
+     * @return the number of elements transferred
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int drainTo(Collection<? super E> c, int minElements, int maxElements, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        Objects.requireNonNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        int min = Math.min(Math.min(minElements, maxElements), capacity);
+        long nanos = unit.toNanos(timeout);
+        boolean signalNotFull = false;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            if (count.get() < min && nanos > 0L) {
+                // 先登记为等待者再读取count，否则在两者之间放入的元素不会唤醒本线程
+                ++batchWaiters;
+                try {
+                    int seen = count.get();
+                    while (seen < min && nanos > 0L) {
+                        nanos = notEmpty.awaitNanos(nanos);
+                        int k = count.get();
+                        // 元素仍不足min时，把take()级联的唤醒转交给其他消费者
+                        if (k > seen && k < min)
+                            notEmpty.signal();
+                        seen = k;
+                    }
+                } finally {
+                    --batchWaiters;
+                }
+            }
+            int n = Math.min(maxElements, count.get());
+            // count.get provides visibility to first n Nodes
+            Node<E> h = head;
+            int i = 0;
+            try {
+                while (i < n) {
+                    Node<E> p = h.next;
+                    c.add(p.item);
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if c.add() threw
+                if (i > 0) {
+                    // assert h.item == null;
+                    head = h;
+                    int k = count.getAndAdd(-i);
+                    signalNotFull = (k == capacity);
+                    if (k > i)
+                        notEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            if (signalNotFull)
+                signalNotFull();
+        }
+    }
+
     Node<E> succ(Node<E> p) {
         if (p == (p = p.next))
             p = head.next;
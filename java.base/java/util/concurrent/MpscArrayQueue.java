@@ -0,0 +1,46 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util.concurrent;
+
+import java.util.Objects;
+
+/**
+ * A bounded, lock-free {@linkplain BlockingQueue blocking queue} backed by a ring buffer, for any number of producer threads
+ * and a <em>single</em> consumer thread. Unlike {@link ConcurrentLinkedQueue} or {@link LinkedTransferQueue} no node is
+ * allocated per element, and unlike {@link ArrayBlockingQueue} no lock is taken: producers claim a slot with one CAS on the
+ * tail index and publish the element with a release store.
+ *
+ * <p>The methods that remove or examine elements ({@code poll}, {@code take}, {@code peek}, {@code drainTo}) must only be
+ * called by one thread at a time. Removal of arbitrary elements is not supported, and iterators traverse a snapshot.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see SpscArrayQueue
+ */
+public class MpscArrayQueue<E> extends RingBufferQueue<E> {
+
+    /**
+     * Creates a queue with the given fixed capacity.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds {@code 1 << 30}
+     */
+    public MpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        final int cap = capacity;
+        long t;
+        do {
+            t = tail;
+            // 先用缓存的head判断是否已满，确实可能满时才读取消费者的head
+            if (t - headCache >= cap && t - (headCache = head) >= cap)
+                return false;
+        } while (!TAIL.compareAndSet(this, t, t + 1));
+        ITEM.setRelease(buffer, (int)t & mask, e);
+        signalConsumer();
+        return true;
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Common base of the bounded, array-backed, single-consumer queues {@link MpscArrayQueue} and {@link SpscArrayQueue}.
+ *
+ * <p>Elements live in a power-of-two ring of slots indexed by two ever-increasing counters: {@code tail}, advanced by
+ * producers, and {@code head}, advanced only by the single consumer. The counters sit in separate
+ * {@code @Contended} groups so that producers and the consumer do not write to a shared cache line. A slot is published with
+ * a release store and consumed with an acquire load; a {@code null} slot below {@code tail} is an element whose producer has
+ * claimed the index but not yet written it.
+ *
+ * <p>Blocking is layered on top with {@link LockSupport}: the consumer parks after registering itself in
+ * {@code consumerWaiter}, and producers waiting for space push a node onto a Treiber stack from which the consumer pops and
+ * unparks one waiter per freed slot. Both handshakes rely on the counters being updated with volatile (or CAS) semantics,
+ * so that either the waiter sees the new counter or the other side sees the waiter.
+ */
+abstract class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /** The number of times to spin on an in-flight slot before yielding */
+    static final int SPINS = (Runtime.getRuntime().availableProcessors() > 1) ? 1 << 7 : 0;
+
+    final Object[] buffer;
+    final int mask;
+    final int capacity;
+
+    /** 消费者下标，只有消费者线程写 */
+    @jdk.internal.vm.annotation.Contended("consumer")
+    volatile long head;
+    /** 消费者缓存的tail，减少对生产者缓存行的读取 */
+    @jdk.internal.vm.annotation.Contended("consumer")
+    long tailCache;
+
+    /** 生产者下标 */
+    @jdk.internal.vm.annotation.Contended("producer")
+    volatile long tail;
+    /** 生产者缓存的head，减少对消费者缓存行的读取 */
+    @jdk.internal.vm.annotation.Contended("producer")
+    volatile long headCache;
+
+    /** 阻塞在take()/poll(timeout)上的消费者线程 */
+    volatile Thread consumerWaiter;
+    /** 阻塞等待空间的生产者 */
+    volatile WaitNode producerWaiters;
+
+    static final class WaitNode {
+        volatile Thread thread; // null once the producer stopped waiting
+        WaitNode next;
+
+        WaitNode(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    RingBufferQueue(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30))
+            throw new IllegalArgumentException();
+        this.capacity = capacity;
+        int n = -1 >>> Integer.numberOfLeadingZeros(capacity - 1);
+        this.buffer = new Object[n + 1];
+        this.mask = n;
+    }
+
+    // ---------------------------------------------------------------->
+
+    /**
+     * Wakes the consumer if it is parked. Called by producers after publishing an element and advancing {@code tail}.
+     */
+    final void signalConsumer() {
+        Thread w;
+        if ((w = consumerWaiter) != null)
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Wakes one producer waiting for space, skipping nodes of producers that already stopped waiting. Called by the consumer
+     * once per freed slot, and by a producer leaving {@code awaitSpace} if space remains, so that a wakeup consumed by a
+     * producer that was no longer parked is passed on.
+     */
+    final void signalProducer() {
+        WaitNode q;
+        Thread w;
+        while ((q = producerWaiters) != null) {
+            if (WAITERS.compareAndSet(this, q, q.next) && (w = q.thread) != null) {
+                LockSupport.unpark(w);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the element in slot i, waiting for it if a producer has claimed the slot but not yet written it. Spins briefly
+     * on multiprocessors, then yields so that a descheduled producer can finish.
+     */
+    static Object awaitItem(Object[] buf, int i) {
+        Object e;
+        for (int spins = SPINS; (e = ITEM.getAcquire(buf, i)) == null; ) {
+            if (spins > 0) {
+                --spins;
+                Thread.onSpinWait();
+            } else
+                Thread.yield();
+        }
+        return e;
+    }
+
+    /**
+     * Consumer side: returns the next element or null if the queue is empty. Only one thread may consume at a time.
+     */
+    public E poll() {
+        final Object[] buf = buffer;
+        long h = head;
+        if (h >= tailCache && h >= (tailCache = tail))
+            return null;
+        int i = (int)h & mask;
+        Object e = awaitItem(buf, i);
+        buf[i] = null;
+        head = h + 1;
+        if (producerWaiters != null)
+            signalProducer();
+        @SuppressWarnings("unchecked") E x = (E)e;
+        return x;
+    }
+
+    public E peek() {
+        final Object[] buf = buffer;
+        long h = head;
+        if (h >= tailCache && h >= (tailCache = tail))
+            return null;
+        @SuppressWarnings("unchecked") E x = (E)awaitItem(buf, (int)h & mask);
+        return x;
+    }
+
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null) {
+            consumerWaiter = Thread.currentThread();
+            try {
+                if (head == tail) // recheck after publishing waiter
+                    LockSupport.park(this);
+            } finally {
+                consumerWaiter = null;
+            }
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+        return e;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        E e;
+        while ((e = poll()) == null) {
+            if (nanos <= 0L)
+                return null;
+            consumerWaiter = Thread.currentThread();
+            try {
+                if (head == tail)
+                    LockSupport.parkNanos(this, nanos);
+            } finally {
+                consumerWaiter = null;
+            }
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            nanos = deadline - System.nanoTime();
+        }
+        return e;
+    }
+
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        if (!offer(e)) {
+            try {
+                do {
+                    awaitSpace(false, 0L);
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+                } while (!offer(e));
+            } finally {
+                passSignal();
+            }
+        }
+    }
+
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        if (offer(e))
+            return true;
+        long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        try {
+            do {
+                if (nanos <= 0L)
+                    return false;
+                awaitSpace(true, nanos);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                nanos = deadline - System.nanoTime();
+            } while (!offer(e));
+            return true;
+        } finally {
+            passSignal();
+        }
+    }
+
+    /**
+     * 生产者结束等待后，如果仍有空间和等待者，把唤醒传递下去
+     */
+    private void passSignal() {
+        if (producerWaiters != null && tail - head < capacity)
+            signalProducer();
+    }
+
+    /**
+     * Producer side: parks until the consumer frees a slot, the timeout elapses, or the thread is interrupted.
+     */
+    private void awaitSpace(boolean timed, long nanos) {
+        WaitNode node = new WaitNode(Thread.currentThread());
+        WaitNode q;
+        do {
+            node.next = q = producerWaiters;
+        } while (!WAITERS.compareAndSet(this, q, node));
+        if (tail - head >= capacity) { // recheck after publishing waiter
+            if (timed)
+                LockSupport.parkNanos(this, nanos);
+            else
+                LockSupport.park(this);
+        }
+        node.thread = null;
+    }
+
+    /**
+     * Consumer side: removes up to {@code maxElements} elements with a single update of {@code head}.
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        final Object[] buf = buffer;
+        final long h = head;
+        long t = tailCache = tail;
+        int n = (int)Math.min(maxElements, t - h);
+        int i = 0;
+        try {
+            for (; i < n; i++) {
+                int k = (int)(h + i) & mask;
+                @SuppressWarnings("unchecked") E x = (E)awaitItem(buf, k);
+                c.add(x);
+                buf[k] = null;
+            }
+            return n;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                head = h + i;
+                for (int k = i; k > 0 && producerWaiters != null; k--)
+                    signalProducer();
+            }
+        }
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    // ---------------------------------------------------------------->
+
+    public int size() {
+        for (;;) {
+            long h = head, t = tail;
+            if (h == head) {
+                long n = t - h;
+                return (n < 0L) ? 0 : (int)Math.min(n, capacity);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Returns a snapshot of the elements currently in the queue. Elements that are being inserted or removed concurrently may
+     * or may not be included.
+     */
+    public Object[] toArray() {
+        final Object[] buf = buffer;
+        long h = head, t = tail;
+        Object[] a = new Object[(int)Math.max(0L, Math.min(t - h, capacity))];
+        int n = 0;
+        for (long p = h; p < t && n < a.length; p++) {
+            Object e = ITEM.getAcquire(buf, (int)p & mask);
+            if (e != null)
+                a[n++] = e;
+        }
+        return (n == a.length) ? a : Arrays.copyOf(a, n);
+    }
+
+    public <T> T[] toArray(T[] a) {
+        Object[] es = toArray();
+        int n = es.length;
+        if (a.length < n) {
+            @SuppressWarnings("unchecked") T[] r = (T[])Arrays.copyOf(es, n, a.getClass());
+            return r;
+        }
+        System.arraycopy(es, 0, a, 0, n);
+        if (a.length > n)
+            a[n] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements of this queue. The iterator does not support {@code remove}; nor
+     * does this queue support removal of arbitrary elements.
+     */
+    public Iterator<E> iterator() {
+        @SuppressWarnings("unchecked") E[] es = (E[])toArray();
+        return Collections.unmodifiableList(Arrays.asList(es)).iterator();
+    }
+
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    // VarHandle mechanics
+    static final VarHandle ITEM = MethodHandles.arrayElementVarHandle(Object[].class);
+    static final VarHandle TAIL;
+    private static final VarHandle WAITERS;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TAIL = l.findVarHandle(RingBufferQueue.class, "tail", long.class);
+            WAITERS = l.findVarHandle(RingBufferQueue.class, "producerWaiters", WaitNode.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        // Reduce the risk of rare disastrous classloading in first call to
+        // LockSupport.park: https://bugs.openjdk.java.net/browse/JDK-8074773
+        Class<?> ensureLoaded = LockSupport.class;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util.concurrent;
+
+import java.util.Objects;
+
+/**
+ * A bounded, lock-free {@linkplain BlockingQueue blocking queue} backed by a ring buffer, for exactly one producer thread and
+ * one consumer thread. The producer needs no CAS: it writes the slot with a release store and then advances the tail index.
+ *
+ * <p>The inserting methods must only be called by one thread at a time, and likewise the methods that remove or examine
+ * elements. Removal of arbitrary elements is not supported, and iterators traverse a snapshot.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see MpscArrayQueue
+ */
+public class SpscArrayQueue<E> extends RingBufferQueue<E> {
+
+    /**
+     * Creates a queue with the given fixed capacity.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds {@code 1 << 30}
+     */
+    public SpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        final long t = tail;
+        if (t - headCache >= capacity && t - (headCache = head) >= capacity)
+            return false;
+        ITEM.setRelease(buffer, (int)t & mask, e);
+        // volatile写：与take()中对consumerWaiter的发布构成Dekker式握手
+        tail = t + 1;
+        signalConsumer();
+        return true;
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于分层时间轮的定时任务线程池
+ *
+ * <p>A {@link ScheduledExecutorService} for large numbers of short-lived delayed tasks, such as per-request timeouts.
+ * {@link ScheduledThreadPoolExecutor} keeps delayed tasks in a binary heap under one lock, so scheduling and
+ * cancelling are O(log n) and serialize all callers. Here delayed tasks are kept in a hierarchical timing wheel owned
+ * by a single ticker thread: {@code LEVELS} wheels of {@code SLOTS} buckets, where a bucket of level i spans
+ * {@code SLOTS^i} ticks. Scheduling pushes the task onto a lock-free inbox and cancelling pushes it onto a second
+ * one; on every tick the ticker drains both, links or unlinks tasks in their buckets in O(1), cascades buckets of the
+ * higher levels down as time reaches them, and hands expired tasks to the worker pool inherited from
+ * {@link ThreadPoolExecutor}.
+ *
+ * <p>Tasks are run no earlier than their trigger time, and at most one tick later (plus scheduling latency). Tasks
+ * expiring in the same tick run in no particular order.
+ *
+ * <p>On {@link #shutdown}, tasks already handed to the workers still run, but delayed and periodic tasks still in the
+ * wheel are cancelled, as with {@link ScheduledThreadPoolExecutor} when both
+ * {@code setExecuteExistingDelayedTasksAfterShutdownPolicy} and
+ * {@code setContinueExistingPeriodicTasksAfterShutdownPolicy} are false. {@link #shutdownNow} returns only the tasks
+ * awaiting a worker; tasks still in the wheel are cancelled rather than returned.
+ */
+public class TimingWheelScheduledExecutor extends ThreadPoolExecutor implements ScheduledExecutorService {
+
+    /** log2 of the number of buckets per wheel */
+    static final int SLOT_BITS = 8;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int SLOT_MASK = SLOTS - 1;
+    /** Number of wheels; tasks further out than SLOTS^LEVELS ticks are cascaded repeatedly from the top wheel */
+    static final int LEVELS = 4;
+    static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    private final long tickNanos;
+    private final long startTime;
+
+    /** 待放入时间轮的任务 */
+    private volatile WheelTask<?> inbox;
+    /** 已取消、待从时间轮摘除的任务 */
+    private volatile WheelTask<?> cancelled;
+
+    /** 0: not started, 1: running, 2: exited */
+    private volatile int tickerState;
+    private volatile Thread ticker;
+    /** 时间轮为空时ticker无限期park，此时需要入队方唤醒 */
+    private volatile boolean tickerIdle;
+
+    // 以下字段只由ticker线程访问
+    /** Bucket heads, indexed by level * SLOTS + slot */
+    private final WheelTask<?>[] buckets = new WheelTask<?>[LEVELS * SLOTS];
+    /** The next tick to process */
+    private long base;
+    /** Number of tasks linked into buckets */
+    private int wheelCount;
+
+    public TimingWheelScheduledExecutor(int corePoolSize, long tickDuration, TimeUnit unit) {
+        this(corePoolSize, tickDuration, unit, Executors.defaultThreadFactory(), new AbortPolicy());
+    }
+
+    public TimingWheelScheduledExecutor(int corePoolSize, long tickDuration, TimeUnit unit,
+        ThreadFactory threadFactory) {
+        this(corePoolSize, tickDuration, unit, threadFactory, new AbortPolicy());
+    }
+
+    /**
+     * @param corePoolSize the number of threads running expired tasks
+     * @param tickDuration the resolution of the timing wheel
+     * @param threadFactory the factory for worker threads and for the ticker thread
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize, long tickDuration, TimeUnit unit,
+        ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        super(corePoolSize, Math.max(corePoolSize, 1), 0L, NANOSECONDS, new LinkedBlockingQueue<Runnable>(),
+            threadFactory, handler);
+        long tick = unit.toNanos(tickDuration);
+        if (tick <= 0L)
+            throw new IllegalArgumentException();
+        this.tickNanos = tick;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * 时间轮中的定时任务
+     */
+    private class WheelTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        private final long sequenceNumber;
+        /** 触发时间 */
+        private volatile long time;
+        /** 周期，正数为固定频率，负数为固定延迟 */
+        private final long period;
+
+        /** Link in {@code inbox} */
+        WheelTask<?> inboxNext;
+        /** Link in {@code cancelled} */
+        WheelTask<?> cancelNext;
+        // 以下字段只由ticker线程访问
+        WheelTask<?> prev, next;
+        /** Index into {@code buckets}, or -1 if not linked */
+        int bucket = -1;
+
+        WheelTask(Runnable r, V result, long triggerTime, long period) {
+            super(r, result);
+            this.time = triggerTime;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        WheelTask(Callable<V> callable, long triggerTime) {
+            super(callable);
+            this.time = triggerTime;
+            this.period = 0L;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            if (other instanceof WheelTask) {
+                WheelTask<?> x = (WheelTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0)
+                    return -1;
+                else if (diff > 0)
+                    return 1;
+                else if (sequenceNumber < x.sequenceNumber)
+                    return -1;
+                else
+                    return 1;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                pushCancelled(this);
+            return cancelled;
+        }
+
+        public void run() {
+            if (!isPeriodic())
+                super.run();
+            else if (isShutdown())
+                cancel(false);
+            else if (super.runAndReset()) {
+                long p = period;
+                if (p > 0)
+                    time += p;
+                else
+                    time = triggerTime(-p);
+                enqueue(this);
+            }
+        }
+
+        /** Returns the tick in which this task expires */
+        final long deadline() {
+            long d = time - startTime;
+            return (d <= 0L) ? 0L : (d + tickNanos - 1) / tickNanos;
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    private long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0) ? 0 : delay));
+    }
+
+    long triggerTime(long delay) {
+        return System.nanoTime() + Math.min(delay, Long.MAX_VALUE >> 1);
+    }
+
+    /**
+     * 任务入队，由ticker在下一个tick放入时间轮
+     */
+    private void enqueue(WheelTask<?> t) {
+        WheelTask<?> h;
+        do {
+            t.inboxNext = h = inbox;
+        } while (!INBOX.compareAndSet(this, h, t));
+        if (tickerState == 2) // ticker已退出，自行取消
+            cancelAll((WheelTask<?>)INBOX.getAndSet(this, null));
+        else if (tickerIdle)
+            LockSupport.unpark(ticker);
+    }
+
+    private void pushCancelled(WheelTask<?> t) {
+        WheelTask<?> h;
+        if (tickerState != 1)
+            return;
+        do {
+            t.cancelNext = h = cancelled;
+        } while (!CANCELLED.compareAndSet(this, h, t));
+    }
+
+    private static void cancelAll(WheelTask<?> t) {
+        for (; t != null; t = t.inboxNext)
+            t.cancel(false);
+    }
+
+    private void delayedExecute(WheelTask<?> t) {
+        if (isShutdown())
+            reject(t);
+        else {
+            ensureTicker();
+            enqueue(t);
+        }
+    }
+
+    private void ensureTicker() {
+        if (tickerState == 0 && TICKER_STATE.compareAndSet(this, 0, 1)) {
+            Thread t = null;
+            try {
+                t = getThreadFactory().newThread(this::runTicker);
+            } finally {
+                if (t == null)
+                    tickerState = 0;
+            }
+            if (t == null)
+                throw new RejectedExecutionException("ticker thread not created");
+            ticker = t;
+            t.start();
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    /**
+     * Main loop of the ticker thread.
+     */
+    private void runTicker() {
+        final long tick = tickNanos;
+        try {
+            while (!isShutdown()) {
+                long now = System.nanoTime();
+                long elapsed = (now - startTime) / tick; // last tick whose time has come
+                if (wheelCount == 0 && base <= elapsed)
+                    base = elapsed + 1; // nothing to expire, skip idle ticks
+                drainCancelled();
+                for (WheelTask<?> t = (WheelTask<?>)INBOX.getAndSet(this, null), n; t != null; t = n) {
+                    n = t.inboxNext;
+                    t.inboxNext = null;
+                    if (!t.isCancelled())
+                        place(t);
+                }
+                while (base <= elapsed)
+                    advance();
+                if (wheelCount != 0)
+                    LockSupport.parkNanos(this, startTime + base * tick - System.nanoTime());
+                else {
+                    tickerIdle = true;
+                    if (inbox == null && !isShutdown())
+                        LockSupport.park(this);
+                    tickerIdle = false;
+                }
+            }
+        } finally {
+            for (int i = 0; i < buckets.length; i++) {
+                WheelTask<?> t = buckets[i];
+                buckets[i] = null;
+                for (WheelTask<?> n; t != null; t = n) {
+                    n = t.next;
+                    t.prev = t.next = null;
+                    t.bucket = -1;
+                    t.cancel(false);
+                }
+            }
+            wheelCount = 0;
+            tickerState = 2;
+            cancelAll((WheelTask<?>)INBOX.getAndSet(this, null));
+            cancelled = null;
+        }
+    }
+
+    private void drainCancelled() {
+        for (WheelTask<?> t = (WheelTask<?>)CANCELLED.getAndSet(this, null), n; t != null; t = n) {
+            n = t.cancelNext;
+            t.cancelNext = null;
+            if (t.bucket >= 0)
+                unlink(t);
+        }
+    }
+
+    /**
+     * 按到期tick与base的距离选择层级和槽位，已到期的任务直接交给工作线程
+     */
+    private void place(WheelTask<?> t) {
+        long d = t.deadline();
+        long delta = d - base;
+        if (delta < 0L) {
+            expire(t);
+            return;
+        }
+        if (delta > MAX_TICKS) {
+            delta = MAX_TICKS;
+            d = base + MAX_TICKS;
+        }
+        int level = 0;
+        while (delta >= SLOTS) {
+            delta >>>= SLOT_BITS;
+            ++level;
+        }
+        int i = (level << SLOT_BITS) | (int)(d >>> (level * SLOT_BITS)) & SLOT_MASK;
+        WheelTask<?> h = buckets[i];
+        t.prev = null;
+        t.next = h;
+        if (h != null)
+            h.prev = t;
+        buckets[i] = t;
+        t.bucket = i;
+        ++wheelCount;
+    }
+
+    private void unlink(WheelTask<?> t) {
+        WheelTask<?> p = t.prev, n = t.next;
+        if (p == null)
+            buckets[t.bucket] = n;
+        else
+            p.next = n;
+        if (n != null)
+            n.prev = p;
+        t.prev = t.next = null;
+        t.bucket = -1;
+        --wheelCount;
+    }
+
+    /**
+     * Removes and returns the list of tasks in bucket i.
+     */
+    private WheelTask<?> takeBucket(int i) {
+        WheelTask<?> t = buckets[i];
+        buckets[i] = null;
+        for (WheelTask<?> p = t; p != null; p = p.next) {
+            p.bucket = -1;
+            --wheelCount;
+        }
+        return t;
+    }
+
+    /**
+     * 处理tick base：先把上层到期的槽位逐级下放，再执行第0层对应槽位的任务
+     */
+    private void advance() {
+        final long b = base;
+        for (int level = 1; level < LEVELS && ((b >>> ((level - 1) * SLOT_BITS)) & SLOT_MASK) == 0; level++) {
+            int i = (level << SLOT_BITS) | (int)(b >>> (level * SLOT_BITS)) & SLOT_MASK;
+            for (WheelTask<?> t = takeBucket(i), n; t != null; t = n) {
+                n = t.next;
+                t.prev = t.next = null;
+                if (!t.isCancelled())
+                    place(t);
+            }
+        }
+        for (WheelTask<?> t = takeBucket((int)b & SLOT_MASK), n; t != null; t = n) {
+            n = t.next;
+            t.prev = t.next = null;
+            if (!t.isCancelled())
+                expire(t);
+        }
+        base = b + 1;
+    }
+
+    /**
+     * 到期任务交给工作线程；线程池已关闭而被拒绝时取消任务
+     */
+    private void expire(WheelTask<?> t) {
+        try {
+            execute(t);
+        } catch (RejectedExecutionException ex) {
+            t.cancel(false);
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null, triggerTime(delay, unit), 0L);
+        delayedExecute(t);
+        return t;
+    }
+
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<V> t = new WheelTask<V>(callable, triggerTime(delay, unit));
+        delayedExecute(t);
+        return t;
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0L)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0L)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), -unit.toNanos(delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Returns the tick resolution of the timing wheel in the given unit.
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, NANOSECONDS);
+    }
+
+    @Override
+    void onShutdown() {
+        stopTicker();
+    }
+
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = super.shutdownNow();
+        stopTicker();
+        return tasks;
+    }
+
+    private void stopTicker() {
+        if (tickerState == 0 && TICKER_STATE.compareAndSet(this, 0, 2))
+            cancelAll((WheelTask<?>)INBOX.getAndSet(this, null));
+        else
+            LockSupport.unpark(ticker);
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle INBOX;
+    private static final VarHandle CANCELLED;
+    private static final VarHandle TICKER_STATE;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            INBOX = l.findVarHandle(TimingWheelScheduledExecutor.class, "inbox", WheelTask.class);
+            CANCELLED = l.findVarHandle(TimingWheelScheduledExecutor.class, "cancelled", WheelTask.class);
+            TICKER_STATE = l.findVarHandle(TimingWheelScheduledExecutor.class, "tickerState", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
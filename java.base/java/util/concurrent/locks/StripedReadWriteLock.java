@@ -0,0 +1,430 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package java.util.concurrent.locks;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读多写少场景下的读写锁：读锁计数分散在多个cell中
+ *
+ * <p>{@link ReentrantReadWriteLock} keeps the reader count in the single {@code state} word, so every read acquisition
+ * writes one shared cache line. This lock instead stripes reader indicators across a table of padded cells in the manner
+ * of {@link java.util.concurrent.atomic.LongAdder}: a reader increments one cell, chosen per thread and rehashed on CAS
+ * failure, and the table grows on contention up to the number of CPUs. Reentrant read acquisitions only touch a
+ * thread-local hold count. Writers exclude each other with a {@link ReentrantLock}, announce themselves by setting
+ * {@code writing}, and then scan the cells until every reader has left.
+ *
+ * <p>A reader increments its cell before reading {@code writing}, and a writer sets {@code writing} before reading the
+ * cells, so at least one of them sees the other. A reader that sees a writer backs out and waits on the writer mutex, which
+ * gives writers preference over new readers. Threads that already hold the read lock, or the write lock, may always
+ * (re)acquire the read lock, so downgrading a write lock to a read lock is supported; upgrading is not.
+ *
+ * <p>Write acquisitions are much more expensive than with {@code ReentrantReadWriteLock}, since they scan every cell.
+ * Neither lock view supports {@link Lock#newCondition}.
+ */
+public class StripedReadWriteLock implements ReadWriteLock {
+
+    /** Number of CPUS, to place bound on table size */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of times a draining writer spins before parking */
+    static final int SPINS = (NCPU > 1) ? 1 << 6 : 0;
+
+    /**
+     * 读锁计数cell，填充以避免伪共享
+     */
+    @jdk.internal.vm.annotation.Contended
+    static final class Cell {
+        volatile long value;
+
+        final boolean cas(long cmp, long val) {
+            return VALUE.weakCompareAndSet(this, cmp, val);
+        }
+
+        final void decrement() {
+            VALUE.getAndAdd(this, -1L);
+        }
+
+        // VarHandle mechanics
+        private static final VarHandle VALUE;
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                VALUE = l.findVarHandle(Cell.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    /**
+     * 每个线程对本锁的读锁重入次数，以及首次获取时计数的cell
+     */
+    static final class HoldCounter {
+        int count;
+        Cell cell;
+        int probe = ThreadLocalRandom.current().nextInt() | 1;
+    }
+
+    static final class ThreadLocalHoldCounter extends ThreadLocal<HoldCounter> {
+        public HoldCounter initialValue() {
+            return new HoldCounter();
+        }
+    }
+
+    /** 读锁计数表，大小为2的幂，只增不减，扩容时保留原有cell */
+    private transient volatile Cell[] cells;
+    /** 扩容cells时的自旋锁 */
+    private transient volatile int cellsBusy;
+    /** 写线程已宣告，新读线程需要退让 */
+    private transient volatile boolean writing;
+    /** 正在等待读线程退出的写线程 */
+    private transient volatile Thread drainingWriter;
+
+    private final ThreadLocalHoldCounter readHolds = new ThreadLocalHoldCounter();
+    /** 写线程之间互斥，读线程也在此排队等待写线程结束 */
+    private final ReentrantLock writerMutex;
+    private final ReadLock readerLock = new ReadLock();
+    private final WriteLock writerLock = new WriteLock();
+
+    public StripedReadWriteLock() {
+        this(false);
+    }
+
+    /**
+     * @param fair whether writers, and readers waiting for a writer, acquire in arrival order
+     */
+    public StripedReadWriteLock(boolean fair) {
+        writerMutex = new ReentrantLock(fair);
+        cells = new Cell[] { new Cell() };
+    }
+
+    public Lock readLock() {
+        return readerLock;
+    }
+
+    public Lock writeLock() {
+        return writerLock;
+    }
+
+    // ---------------------------------------------------------------->
+
+    /**
+     * 读线程在自己的cell上计数，CAS失败时换cell并尝试扩容
+     */
+    private Cell increment(HoldCounter hc) {
+        int h = hc.probe;
+        for (;;) {
+            Cell[] cs = cells;
+            Cell c = cs[h & (cs.length - 1)];
+            long v = c.value;
+            if (c.cas(v, v + 1L)) {
+                hc.probe = h;
+                return c;
+            }
+            if (cs.length < NCPU && cellsBusy == 0 && cs == cells && CELLSBUSY.compareAndSet(this, 0, 1)) {
+                try {
+                    if (cs == cells) { // 扩容一倍
+                        int n = cs.length;
+                        Cell[] rs = new Cell[n << 1];
+                        System.arraycopy(cs, 0, rs, 0, n);
+                        for (int i = n; i < rs.length; i++)
+                            rs[i] = new Cell();
+                        cells = rs;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+            }
+            h ^= h << 13; // Rehash
+            h ^= h >>> 17;
+            h ^= h << 5;
+        }
+    }
+
+    /**
+     * 读线程退出cell计数，若有写线程在等待则唤醒它
+     */
+    private void decrement(Cell c) {
+        c.decrement();
+        Thread w;
+        if (writing && (w = drainingWriter) != null)
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Attempts the read lock without waiting. Returns false if a writer holds or is acquiring the lock.
+     */
+    final boolean tryAcquireShared(HoldCounter hc) {
+        if (hc.count > 0) {
+            if (hc.count == Integer.MAX_VALUE)
+                throw new Error("Maximum lock count exceeded");
+            hc.count++;
+            return true;
+        }
+        Cell c = increment(hc);
+        if (writing && !writerMutex.isHeldByCurrentThread()) {
+            decrement(c);
+            return false;
+        }
+        hc.cell = c;
+        hc.count = 1;
+        return true;
+    }
+
+    final void releaseShared() {
+        HoldCounter hc = readHolds.get();
+        int n = hc.count;
+        if (n <= 0)
+            throw new IllegalMonitorStateException("attempt to unlock read lock, not locked by current thread");
+        hc.count = n - 1;
+        if (n == 1) {
+            Cell c = hc.cell;
+            hc.cell = null;
+            decrement(c);
+        }
+    }
+
+    /**
+     * 宣告写意图后等待所有读线程退出；超时或中断时撤销宣告
+     *
+     * @return true if all readers left, false on timeout
+     */
+    private boolean drainReaders(boolean interruptible, boolean timed, long deadline) throws InterruptedException {
+        drainingWriter = Thread.currentThread();
+        writing = true;
+        boolean interrupted = false;
+        try {
+            int spins = SPINS;
+            for (;;) {
+                Cell busy = null;
+                for (Cell c : cells) {
+                    if (c.value != 0L) {
+                        busy = c;
+                        break;
+                    }
+                }
+                if (busy == null)
+                    return true;
+                if (spins > 0) {
+                    --spins;
+                    Thread.onSpinWait();
+                } else if (timed) {
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0L) {
+                        writing = false;
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, nanos);
+                } else
+                    LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    if (interruptible) {
+                        writing = false;
+                        throw new InterruptedException();
+                    }
+                    interrupted = true;
+                }
+            }
+        } finally {
+            drainingWriter = null;
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    /**
+     * The read lock returned by {@link StripedReadWriteLock#readLock}.
+     */
+    final class ReadLock implements Lock {
+
+        public void lock() {
+            HoldCounter hc = readHolds.get();
+            while (!tryAcquireShared(hc)) {
+                writerMutex.lock(); // 等待写线程释放
+                writerMutex.unlock();
+            }
+        }
+
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            HoldCounter hc = readHolds.get();
+            while (!tryAcquireShared(hc)) {
+                writerMutex.lockInterruptibly();
+                writerMutex.unlock();
+            }
+        }
+
+        public boolean tryLock() {
+            return tryAcquireShared(readHolds.get());
+        }
+
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            long nanos = unit.toNanos(timeout);
+            final long deadline = System.nanoTime() + nanos;
+            HoldCounter hc = readHolds.get();
+            while (!tryAcquireShared(hc)) {
+                if (nanos <= 0L || !writerMutex.tryLock(nanos, TimeUnit.NANOSECONDS))
+                    return false;
+                writerMutex.unlock();
+                nanos = deadline - System.nanoTime();
+            }
+            return true;
+        }
+
+        public void unlock() {
+            releaseShared();
+        }
+
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        public String toString() {
+            return super.toString() + "[Read locks = " + getReadLockCount() + "]";
+        }
+    }
+
+    /**
+     * The write lock returned by {@link StripedReadWriteLock#writeLock}.
+     */
+    final class WriteLock implements Lock {
+
+        public void lock() {
+            writerMutex.lock();
+            if (writerMutex.getHoldCount() == 1) {
+                try {
+                    drainReaders(false, false, 0L);
+                } catch (InterruptedException cannotHappen) {
+                    throw new InternalError(cannotHappen);
+                }
+            }
+        }
+
+        public void lockInterruptibly() throws InterruptedException {
+            writerMutex.lockInterruptibly();
+            if (writerMutex.getHoldCount() == 1) {
+                boolean acquired = false;
+                try {
+                    acquired = drainReaders(true, false, 0L);
+                } finally {
+                    if (!acquired)
+                        writerMutex.unlock();
+                }
+            }
+        }
+
+        public boolean tryLock() {
+            if (!writerMutex.tryLock())
+                return false;
+            if (writerMutex.getHoldCount() > 1)
+                return true;
+            writing = true;
+            for (Cell c : cells) {
+                if (c.value != 0L) {
+                    writing = false;
+                    writerMutex.unlock();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            final long deadline = System.nanoTime() + nanos;
+            if (!writerMutex.tryLock(nanos, TimeUnit.NANOSECONDS))
+                return false;
+            if (writerMutex.getHoldCount() > 1)
+                return true;
+            boolean acquired = false;
+            try {
+                acquired = drainReaders(true, true, deadline);
+            } finally {
+                if (!acquired)
+                    writerMutex.unlock();
+            }
+            return acquired;
+        }
+
+        public void unlock() {
+            if (!writerMutex.isHeldByCurrentThread())
+                throw new IllegalMonitorStateException();
+            if (writerMutex.getHoldCount() == 1)
+                writing = false;
+            writerMutex.unlock();
+        }
+
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        public String toString() {
+            Thread o = writing ? writerMutex.getOwner() : null;
+            return super.toString() + ((o == null) ? "[Unlocked]" : "[Locked by thread " + o.getName() + "]");
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    /**
+     * Returns the number of read locks held for this lock, summed over all cells. Reentrant acquisitions are counted once.
+     * The result is only an estimate if readers are concurrently arriving or leaving.
+     */
+    public int getReadLockCount() {
+        long sum = 0L;
+        for (Cell c : cells)
+            sum += c.value;
+        return (int)Math.max(0L, Math.min(sum, Integer.MAX_VALUE));
+    }
+
+    public int getReadHoldCount() {
+        return readHolds.get().count;
+    }
+
+    public boolean isWriteLocked() {
+        return writing && writerMutex.isLocked();
+    }
+
+    public boolean isWriteLockedByCurrentThread() {
+        return writerMutex.isHeldByCurrentThread();
+    }
+
+    public int getWriteHoldCount() {
+        return writerMutex.getHoldCount();
+    }
+
+    public boolean isFair() {
+        return writerMutex.isFair();
+    }
+
+    public String toString() {
+        return super.toString() + "[Write locks = " + getWriteHoldCount() + ", Read locks = " + getReadLockCount()
+            + ", Cells = " + cells.length + "]";
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle CELLSBUSY;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            CELLSBUSY = l.findVarHandle(StripedReadWriteLock.class, "cellsBusy", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        // Reduce the risk of rare disastrous classloading in first call to
+        // LockSupport.park: https://bugs.openjdk.java.net/browse/JDK-8074773
+        Class<?> ensureLoaded = LockSupport.class;
+    }
+}
@@ -32,6 +32,7 @@ import java.util.PrimitiveIterator;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.DoubleConsumer;
 import java.util.function.DoubleFunction;
@@ -591,6 +592,38 @@ public interface DoubleStream extends BaseStream<Double, DoubleStream> {
                   ObjDoubleConsumer<R> accumulator,
                   BiConsumer<R, R> combiner);
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream using a
+     * {@code DoubleCollector}, such as those provided by
+     * {@link PrimitiveCollectors}.  Neither the elements nor, for the
+     * predefined collectors, the keys and accumulators are boxed.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the collector's container in a
+     * one-element array and delegates to
+     * {@link #collect(Supplier, ObjDoubleConsumer, BiConsumer)}.
+     *
+     * @param <A> the intermediate accumulation type of the collector
+     * @param <R> the type of the result
+     * @param collector the {@code DoubleCollector} describing the reduction
+     * @return the result of the reduction
+     * @see #collect(Supplier, ObjDoubleConsumer, BiConsumer)
+     */
+    @SuppressWarnings("unchecked")
+    default <A, R> R collect(PrimitiveCollectors.DoubleCollector<A, R> collector) {
+        Supplier<A> supplier = collector.supplier();
+        ObjDoubleConsumer<A> accumulator = collector.accumulator();
+        BinaryOperator<A> combiner = collector.combiner();
+        Object[] box = collect(() -> new Object[] { supplier.get() },
+                               (b, v) -> accumulator.accept((A) b[0], v),
+                               (l, r) -> l[0] = combiner.apply((A) l[0], (A) r[0]));
+        return collector.finisher().apply((A) box[0]);
+    }
+
     /**
      * Returns the sum of elements in this stream.
      *
@@ -508,6 +508,14 @@ abstract class IntPipeline<E_IN>
         return evaluate(ReduceOps.makeInt(supplier, accumulator, operator));
     }
 
+    @Override
+    public final <A, R> R collect(PrimitiveCollectors.IntCollector<A, R> collector) {
+        A container = evaluate(ReduceOps.makeInt(collector.supplier(),
+                                                   collector.accumulator(),
+                                                   collector.combiner()));
+        return collector.finisher().apply(container);
+    }
+
     @Override
     public final boolean anyMatch(IntPredicate predicate) {
         return evaluate(MatchOps.makeInt(predicate, MatchOps.MatchKind.ANY));
@@ -33,6 +33,7 @@ import java.util.PrimitiveIterator;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.IntBinaryOperator;
 import java.util.function.IntConsumer;
@@ -586,6 +587,38 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
                   ObjIntConsumer<R> accumulator,
                   BiConsumer<R, R> combiner);
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream using a
+     * {@code IntCollector}, such as those provided by
+     * {@link PrimitiveCollectors}.  Neither the elements nor, for the
+     * predefined collectors, the keys and accumulators are boxed.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the collector's container in a
+     * one-element array and delegates to
+     * {@link #collect(Supplier, ObjIntConsumer, BiConsumer)}.
+     *
+     * @param <A> the intermediate accumulation type of the collector
+     * @param <R> the type of the result
+     * @param collector the {@code IntCollector} describing the reduction
+     * @return the result of the reduction
+     * @see #collect(Supplier, ObjIntConsumer, BiConsumer)
+     */
+    @SuppressWarnings("unchecked")
+    default <A, R> R collect(PrimitiveCollectors.IntCollector<A, R> collector) {
+        Supplier<A> supplier = collector.supplier();
+        ObjIntConsumer<A> accumulator = collector.accumulator();
+        BinaryOperator<A> combiner = collector.combiner();
+        Object[] box = collect(() -> new Object[] { supplier.get() },
+                               (b, v) -> accumulator.accept((A) b[0], v),
+                               (l, r) -> l[0] = combiner.apply((A) l[0], (A) r[0]));
+        return collector.finisher().apply((A) box[0]);
+    }
+
     /**
      * Returns the sum of elements in this stream.  This is a special case
      * of a <a href="package-summary.html#Reduction">reduction</a>
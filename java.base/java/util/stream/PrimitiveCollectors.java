@@ -0,0 +1,660 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLongLongMap;
+import java.util.function.BinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Mutable reductions over {@link IntStream}, {@link LongStream} and
+ * {@link DoubleStream} that, unlike the {@link Collector}s in
+ * {@link Collectors}, neither box the stream elements nor the keys and
+ * accumulators of their result.  Grouping reductions accumulate into primitive
+ * arrays or into an open-addressing {@link LongLongTable}, and partial results
+ * of a parallel reduction are merged by folding the smaller table into the
+ * larger one.
+ *
+ * <p>The following are examples of using the predefined primitive collectors:
+ *
+ * <pre>{@code
+ * // Histogram of ages in [0, 128)
+ * long[] histogram = people.stream()
+ *   .mapToInt(Person::getAge)
+ *   .collect(PrimitiveCollectors.intHistogram(128));
+ *
+ * // Total bytes per customer id
+ * PrimitiveCollectors.LongLongTable bytesByCustomer = requests
+ *   .mapToLong(Request::packed)
+ *   .parallel()
+ *   .collect(PrimitiveCollectors.longGroupingBySum(r -> r >>> 32, r -> r & 0xffffffffL));
+ * }</pre>
+ *
+ * @see IntStream#collect(IntCollector)
+ * @see LongStream#collect(LongCollector)
+ * @see DoubleStream#collect(DoubleCollector)
+ */
+public final class PrimitiveCollectors {
+
+    private PrimitiveCollectors() { }
+
+    /**
+     * A mutable reduction of {@code int} elements into a container of type
+     * {@code A}, transformed into a result of type {@code R}; the analogue of
+     * {@link Collector} for {@link IntStream}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the result type
+     */
+    public interface IntCollector<A, R> {
+        /** Returns a function that creates a new mutable result container. */
+        Supplier<A> supplier();
+
+        /** Returns a function that folds a value into a result container. */
+        ObjIntConsumer<A> accumulator();
+
+        /**
+         * Returns a function that merges two partial results, which may fold
+         * either argument into the other and return it.
+         */
+        BinaryOperator<A> combiner();
+
+        /** Returns a function that transforms the container into the result. */
+        Function<A, R> finisher();
+
+        /**
+         * Returns a new {@code IntCollector} described by the given functions.
+         */
+        static <A, R> IntCollector<A, R> of(Supplier<A> supplier,
+                                            ObjIntConsumer<A> accumulator,
+                                            BinaryOperator<A> combiner,
+                                            Function<A, R> finisher) {
+            return new IntCollectorImpl<>(Objects.requireNonNull(supplier),
+                                          Objects.requireNonNull(accumulator),
+                                          Objects.requireNonNull(combiner),
+                                          Objects.requireNonNull(finisher));
+        }
+    }
+
+    /**
+     * A mutable reduction of {@code long} elements; the analogue of
+     * {@link Collector} for {@link LongStream}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the result type
+     */
+    public interface LongCollector<A, R> {
+        /** Returns a function that creates a new mutable result container. */
+        Supplier<A> supplier();
+
+        /** Returns a function that folds a value into a result container. */
+        ObjLongConsumer<A> accumulator();
+
+        /**
+         * Returns a function that merges two partial results, which may fold
+         * either argument into the other and return it.
+         */
+        BinaryOperator<A> combiner();
+
+        /** Returns a function that transforms the container into the result. */
+        Function<A, R> finisher();
+
+        /**
+         * Returns a new {@code LongCollector} described by the given functions.
+         */
+        static <A, R> LongCollector<A, R> of(Supplier<A> supplier,
+                                             ObjLongConsumer<A> accumulator,
+                                             BinaryOperator<A> combiner,
+                                             Function<A, R> finisher) {
+            return new LongCollectorImpl<>(Objects.requireNonNull(supplier),
+                                           Objects.requireNonNull(accumulator),
+                                           Objects.requireNonNull(combiner),
+                                           Objects.requireNonNull(finisher));
+        }
+    }
+
+    /**
+     * A mutable reduction of {@code double} elements; the analogue of
+     * {@link Collector} for {@link DoubleStream}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the result type
+     */
+    public interface DoubleCollector<A, R> {
+        /** Returns a function that creates a new mutable result container. */
+        Supplier<A> supplier();
+
+        /** Returns a function that folds a value into a result container. */
+        ObjDoubleConsumer<A> accumulator();
+
+        /**
+         * Returns a function that merges two partial results, which may fold
+         * either argument into the other and return it.
+         */
+        BinaryOperator<A> combiner();
+
+        /** Returns a function that transforms the container into the result. */
+        Function<A, R> finisher();
+
+        /**
+         * Returns a new {@code DoubleCollector} described by the given
+         * functions.
+         */
+        static <A, R> DoubleCollector<A, R> of(Supplier<A> supplier,
+                                               ObjDoubleConsumer<A> accumulator,
+                                               BinaryOperator<A> combiner,
+                                               Function<A, R> finisher) {
+            return new DoubleCollectorImpl<>(Objects.requireNonNull(supplier),
+                                             Objects.requireNonNull(accumulator),
+                                             Objects.requireNonNull(combiner),
+                                             Objects.requireNonNull(finisher));
+        }
+    }
+
+    static final class IntCollectorImpl<A, R> implements IntCollector<A, R> {
+        private final Supplier<A> supplier;
+        private final ObjIntConsumer<A> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+
+        IntCollectorImpl(Supplier<A> supplier, ObjIntConsumer<A> accumulator,
+                         BinaryOperator<A> combiner, Function<A, R> finisher) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+        }
+
+        @Override public Supplier<A> supplier() { return supplier; }
+        @Override public ObjIntConsumer<A> accumulator() { return accumulator; }
+        @Override public BinaryOperator<A> combiner() { return combiner; }
+        @Override public Function<A, R> finisher() { return finisher; }
+    }
+
+    static final class LongCollectorImpl<A, R> implements LongCollector<A, R> {
+        private final Supplier<A> supplier;
+        private final ObjLongConsumer<A> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+
+        LongCollectorImpl(Supplier<A> supplier, ObjLongConsumer<A> accumulator,
+                          BinaryOperator<A> combiner, Function<A, R> finisher) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+        }
+
+        @Override public Supplier<A> supplier() { return supplier; }
+        @Override public ObjLongConsumer<A> accumulator() { return accumulator; }
+        @Override public BinaryOperator<A> combiner() { return combiner; }
+        @Override public Function<A, R> finisher() { return finisher; }
+    }
+
+    static final class DoubleCollectorImpl<A, R> implements DoubleCollector<A, R> {
+        private final Supplier<A> supplier;
+        private final ObjDoubleConsumer<A> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+
+        DoubleCollectorImpl(Supplier<A> supplier, ObjDoubleConsumer<A> accumulator,
+                            BinaryOperator<A> combiner, Function<A, R> finisher) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+        }
+
+        @Override public Supplier<A> supplier() { return supplier; }
+        @Override public ObjDoubleConsumer<A> accumulator() { return accumulator; }
+        @Override public BinaryOperator<A> combiner() { return combiner; }
+        @Override public Function<A, R> finisher() { return finisher; }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> Function<A, A> castingIdentity() {
+        return (Function<A, A>) IDENTITY;
+    }
+
+    private static final Function<Object, Object> IDENTITY = i -> i;
+
+    private static long[] addAll(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++)
+            a[i] += b[i];
+        return a;
+    }
+
+    private static double[] addAll(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i++)
+            a[i] += b[i];
+        return a;
+    }
+
+    /**
+     * Shared combiner for table-valued reductions: folds the smaller table
+     * into the larger one.
+     */
+    private static BinaryOperator<LongLongTable> tableMerger(LongBinaryOperator op) {
+        return (a, b) -> {
+            if (a.size() < b.size()) {
+                LongLongTable t = a; a = b; b = t;
+            }
+            a.mergeAll(b, op);
+            return a;
+        };
+    }
+
+    // int
+
+    /**
+     * Returns an {@code IntCollector} that counts the occurrences of each
+     * value in {@code [0, size)} into a {@code long[size]}.
+     *
+     * @param size the number of buckets
+     * @return a histogram collector
+     * @throws IllegalArgumentException if {@code size} is negative
+     * @throws ArrayIndexOutOfBoundsException during the reduction, if a value
+     *         is outside {@code [0, size)}
+     */
+    public static IntCollector<?, long[]> intHistogram(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("size < 0");
+        return new IntCollectorImpl<long[], long[]>(
+                () -> new long[size],
+                (a, v) -> a[v]++,
+                PrimitiveCollectors::addAll,
+                castingIdentity());
+    }
+
+    /**
+     * Returns an {@code IntCollector} that counts the occurrences of each
+     * distinct value.
+     *
+     * @return a table from each distinct value to its number of occurrences
+     */
+    public static IntCollector<?, LongLongTable> intCounting() {
+        return new IntCollectorImpl<LongLongTable, LongLongTable>(
+                LongLongTable::new,
+                (t, v) -> t.add(v, 1L),
+                tableMerger(null),
+                castingIdentity());
+    }
+
+    /**
+     * Returns an {@code IntCollector} that groups values by {@code classifier}
+     * and sums {@code mapper} over each group.
+     *
+     * @param classifier the function mapping a value to its key
+     * @param mapper the function mapping a value to the amount to add
+     * @return a table from each key to the sum over its group
+     */
+    public static IntCollector<?, LongLongTable>
+    intGroupingBySum(IntUnaryOperator classifier, IntToLongFunction mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new IntCollectorImpl<LongLongTable, LongLongTable>(
+                LongLongTable::new,
+                (t, v) -> t.add(classifier.applyAsInt(v), mapper.applyAsLong(v)),
+                tableMerger(null),
+                castingIdentity());
+    }
+
+    /**
+     * Returns an {@code IntCollector} that partitions values by
+     * {@code predicate} and sums {@code mapper} over each partition.
+     *
+     * @return a {@code long[2]} whose element 0 is the sum over the values
+     *         not matching the predicate, and element 1 the sum over those
+     *         matching it
+     */
+    public static IntCollector<?, long[]>
+    intPartitioningBySum(IntPredicate predicate, IntToLongFunction mapper) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(mapper);
+        return new IntCollectorImpl<long[], long[]>(
+                () -> new long[2],
+                (a, v) -> a[predicate.test(v) ? 1 : 0] += mapper.applyAsLong(v),
+                PrimitiveCollectors::addAll,
+                castingIdentity());
+    }
+
+    /**
+     * Returns an {@code IntCollector} that maps each value to a key and a
+     * value, merging the values of equal keys with {@code mergeFunction}.
+     *
+     * @return a table from each key to its merged value
+     */
+    public static IntCollector<?, LongLongTable>
+    intToMap(IntUnaryOperator keyMapper, IntToLongFunction valueMapper,
+             LongBinaryOperator mergeFunction) {
+        Objects.requireNonNull(keyMapper);
+        Objects.requireNonNull(valueMapper);
+        Objects.requireNonNull(mergeFunction);
+        return new IntCollectorImpl<LongLongTable, LongLongTable>(
+                LongLongTable::new,
+                (t, v) -> t.merge(keyMapper.applyAsInt(v), valueMapper.applyAsLong(v), mergeFunction),
+                tableMerger(mergeFunction),
+                castingIdentity());
+    }
+
+    // long
+
+    /**
+     * Returns a {@code LongCollector} that counts the occurrences of each
+     * distinct value.
+     *
+     * @return a table from each distinct value to its number of occurrences
+     */
+    public static LongCollector<?, LongLongTable> longCounting() {
+        return new LongCollectorImpl<LongLongTable, LongLongTable>(
+                LongLongTable::new,
+                (t, v) -> t.add(v, 1L),
+                tableMerger(null),
+                castingIdentity());
+    }
+
+    /**
+     * Returns a {@code LongCollector} that groups values by {@code classifier}
+     * and sums {@code mapper} over each group.
+     *
+     * @return a table from each key to the sum over its group
+     */
+    public static LongCollector<?, LongLongTable>
+    longGroupingBySum(LongUnaryOperator classifier, LongUnaryOperator mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new LongCollectorImpl<LongLongTable, LongLongTable>(
+                LongLongTable::new,
+                (t, v) -> t.add(classifier.applyAsLong(v), mapper.applyAsLong(v)),
+                tableMerger(null),
+                castingIdentity());
+    }
+
+    /**
+     * Returns a {@code LongCollector} that partitions values by
+     * {@code predicate} and sums {@code mapper} over each partition.
+     *
+     * @return a {@code long[2]} whose element 0 is the sum over the values
+     *         not matching the predicate, and element 1 the sum over those
+     *         matching it
+     */
+    public static LongCollector<?, long[]>
+    longPartitioningBySum(LongPredicate predicate, LongUnaryOperator mapper) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(mapper);
+        return new LongCollectorImpl<long[], long[]>(
+                () -> new long[2],
+                (a, v) -> a[predicate.test(v) ? 1 : 0] += mapper.applyAsLong(v),
+                PrimitiveCollectors::addAll,
+                castingIdentity());
+    }
+
+    /**
+     * Returns a {@code LongCollector} that maps each value to a key and a
+     * value, merging the values of equal keys with {@code mergeFunction}.
+     *
+     * @return a table from each key to its merged value
+     */
+    public static LongCollector<?, LongLongTable>
+    longToMap(LongUnaryOperator keyMapper, LongUnaryOperator valueMapper,
+              LongBinaryOperator mergeFunction) {
+        Objects.requireNonNull(keyMapper);
+        Objects.requireNonNull(valueMapper);
+        Objects.requireNonNull(mergeFunction);
+        return new LongCollectorImpl<LongLongTable, LongLongTable>(
+                LongLongTable::new,
+                (t, v) -> t.merge(keyMapper.applyAsLong(v), valueMapper.applyAsLong(v), mergeFunction),
+                tableMerger(mergeFunction),
+                castingIdentity());
+    }
+
+    // double
+
+    /**
+     * Returns a {@code DoubleCollector} that counts the values falling into
+     * each of {@code size} buckets, as chosen by {@code bucket}.
+     *
+     * @throws ArrayIndexOutOfBoundsException during the reduction, if
+     *         {@code bucket} returns a value outside {@code [0, size)}
+     */
+    public static DoubleCollector<?, long[]>
+    doubleHistogram(int size, DoubleToIntFunction bucket) {
+        if (size < 0)
+            throw new IllegalArgumentException("size < 0");
+        Objects.requireNonNull(bucket);
+        return new DoubleCollectorImpl<long[], long[]>(
+                () -> new long[size],
+                (a, v) -> a[bucket.applyAsInt(v)]++,
+                PrimitiveCollectors::addAll,
+                castingIdentity());
+    }
+
+    /**
+     * Returns a {@code DoubleCollector} that partitions values by
+     * {@code predicate} and sums {@code mapper} over each partition.  Unlike
+     * {@link Collectors#summingDouble}, the sums are not compensated.
+     *
+     * @return a {@code double[2]} whose element 0 is the sum over the values
+     *         not matching the predicate, and element 1 the sum over those
+     *         matching it
+     */
+    public static DoubleCollector<?, double[]>
+    doublePartitioningBySum(DoublePredicate predicate, DoubleUnaryOperator mapper) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(mapper);
+        return new DoubleCollectorImpl<double[], double[]>(
+                () -> new double[2],
+                (a, v) -> a[predicate.test(v) ? 1 : 0] += mapper.applyAsDouble(v),
+                PrimitiveCollectors::addAll,
+                castingIdentity());
+    }
+
+    /**
+     * An open-addressing hash table from {@code long} keys to {@code long}
+     * values, produced by the grouping collectors of this class.  Instances
+     * are not thread-safe; once returned from a reduction they are not
+     * modified further.
+     */
+    public static final class LongLongTable {
+        private static final int MIN_CAPACITY = 16;
+
+        private long[] keys;
+        private long[] vals;
+        private int size;
+        // Key 0 marks free slots, so its mapping is held separately
+        private boolean hasZero;
+        private long zeroVal;
+
+        LongLongTable() {
+            keys = new long[MIN_CAPACITY];
+            vals = new long[MIN_CAPACITY];
+        }
+
+        private static int hash(long k) {
+            long h = k * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        /**
+         * Returns the slot holding key k, or the free slot where it would be
+         * inserted.
+         */
+        private int slot(long k) {
+            long[] ks = keys;
+            int m = ks.length - 1;
+            int i = hash(k) & m;
+            long c;
+            while ((c = ks[i]) != 0L && c != k)
+                i = (i + 1) & m;
+            return i;
+        }
+
+        void add(long k, long d) {
+            if (k == 0L) {
+                if (!hasZero) {
+                    hasZero = true;
+                    size++;
+                }
+                zeroVal += d;
+                return;
+            }
+            int i = slot(k);
+            if (keys[i] == 0L) {
+                keys[i] = k;
+                vals[i] = d;
+                if (++size > (keys.length >>> 1) + (keys.length >>> 2))
+                    resize();
+            } else
+                vals[i] += d;
+        }
+
+        void merge(long k, long v, LongBinaryOperator op) {
+            if (op == null) {
+                add(k, v);
+                return;
+            }
+            if (k == 0L) {
+                if (hasZero)
+                    zeroVal = op.applyAsLong(zeroVal, v);
+                else {
+                    hasZero = true;
+                    zeroVal = v;
+                    size++;
+                }
+                return;
+            }
+            int i = slot(k);
+            if (keys[i] == 0L) {
+                keys[i] = k;
+                vals[i] = v;
+                if (++size > (keys.length >>> 1) + (keys.length >>> 2))
+                    resize();
+            } else
+                vals[i] = op.applyAsLong(vals[i], v);
+        }
+
+        /**
+         * Folds all mappings of t into this table, combining the values of
+         * equal keys with op, or by addition if op is null.
+         */
+        void mergeAll(LongLongTable t, LongBinaryOperator op) {
+            if (t.hasZero)
+                merge(0L, t.zeroVal, op);
+            long[] ks = t.keys, vs = t.vals;
+            for (int i = 0; i < ks.length; i++) {
+                long k;
+                if ((k = ks[i]) != 0L)
+                    merge(k, vs[i], op);
+            }
+        }
+
+        private void resize() {
+            long[] oks = keys, ovs = vals;
+            int n = oks.length << 1;
+            keys = new long[n];
+            vals = new long[n];
+            for (int i = 0; i < oks.length; i++) {
+                long k;
+                if ((k = oks[i]) != 0L) {
+                    int j = slot(k);
+                    keys[j] = k;
+                    vals[j] = ovs[i];
+                }
+            }
+        }
+
+        /** Returns the number of keys in this table. */
+        public int size() {
+            return size;
+        }
+
+        /** Returns true if this table contains no keys. */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /** Returns true if this table contains the given key. */
+        public boolean containsKey(long key) {
+            return (key == 0L) ? hasZero : keys[slot(key)] != 0L;
+        }
+
+        /**
+         * Returns the value of the given key, or {@code defaultValue} if this
+         * table does not contain it.
+         */
+        public long getOrDefault(long key, long defaultValue) {
+            if (key == 0L)
+                return hasZero ? zeroVal : defaultValue;
+            int i = slot(key);
+            return (keys[i] != 0L) ? vals[i] : defaultValue;
+        }
+
+        /** Returns the keys of this table, in no particular order. */
+        public long[] keys() {
+            long[] a = new long[size];
+            int n = 0;
+            if (hasZero)
+                a[n++] = 0L;
+            for (long k : keys) {
+                if (k != 0L)
+                    a[n++] = k;
+            }
+            return a;
+        }
+
+        /** Performs the given action for each mapping of this table. */
+        public void forEach(ConcurrentLongLongMap.LongLongConsumer action) {
+            Objects.requireNonNull(action);
+            if (hasZero)
+                action.accept(0L, zeroVal);
+            long[] ks = keys, vs = vals;
+            for (int i = 0; i < ks.length; i++) {
+                long k;
+                if ((k = ks[i]) != 0L)
+                    action.accept(k, vs[i]);
+            }
+        }
+
+        /**
+         * Returns a new {@link ConcurrentLongLongMap} holding the mappings of
+         * this table whose values are not the map's missing value.
+         */
+        public ConcurrentLongLongMap toConcurrentMap(long missingValue) {
+            ConcurrentLongLongMap m = new ConcurrentLongLongMap(size, missingValue);
+            forEach((k, v) -> {
+                if (v != missingValue)
+                    m.put(k, v);
+            });
+            return m;
+        }
+
+        @Override
+        public String toString() {
+            long[] ks = keys();
+            Arrays.sort(ks);
+            StringBuilder sb = new StringBuilder().append('{');
+            for (int i = 0; i < ks.length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                sb.append(ks[i]).append('=').append(getOrDefault(ks[i], 0L));
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package jdk.internal.math;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Writes the shortest decimal that rounds to a {@code double} directly into
+ * a caller-supplied {@code byte[]}, {@code char[]} or {@link ByteBuffer},
+ * without allocating.
+ *
+ * <p> The decimal is selected with the Schubfach algorithm (R. Giulietti,
+ * "The Schubfach way to render doubles"): among the decimals that round to
+ * the value, pick one with the fewest digits, and among those the one
+ * closest to the value, breaking ties towards an even last digit.  The
+ * digits are then laid out like {@link Double#toString(double)}, that is in
+ * plain notation for magnitudes in [10<sup>-3</sup>, 10<sup>7</sup>) and in
+ * computerized scientific notation otherwise.  For a few values this gives
+ * a shorter result than {@code Double.toString}, which is not guaranteed to
+ * be the shortest; both always parse back to the same {@code double}.
+ *
+ * <p> Unlike {@link FloatingDecimal}, no thread-local buffers and no
+ * {@link FDBigInteger} arithmetic are involved: every value is handled with
+ * two 64x128 bit multiplications against a table of powers of ten.
+ */
+public final class DoubleToDecimal {
+
+    /** The maximum number of characters written for a {@code double} */
+    public static final int MAX_CHARS = 24;
+
+    static final int P = 53;                     // precision
+    static final int Q_MIN = -1074;              // exponent of Double.MIN_VALUE
+    static final long C_MIN = 1L << (P - 1);     // significand of normal values
+    static final int BQ_MASK = 0x7ff;
+    static final long T_MASK = C_MIN - 1;
+    static final int C_TINY = 3;                 // subnormals below this get one more digit
+    static final int H = 17;                     // maximum number of significant digits
+
+    // Range of decimal exponents covered by the power of ten table
+    static final int K_MIN = -324;
+    static final int K_MAX = 292;
+
+    static final long MASK_63 = (1L << 63) - 1;
+
+    private DoubleToDecimal() {}
+
+    /**
+     * Writes the decimal representation of v into dst starting at index and
+     * returns the number of characters written.
+     *
+     * @throws IndexOutOfBoundsException if the representation does not fit,
+     *         in which case nothing is written
+     */
+    public static int toBytes(double v, byte[] dst, int index) {
+        return toDecimal(v, Objects.requireNonNull(dst), index, dst.length);
+    }
+
+    /**
+     * Writes the decimal representation of v into dst starting at index and
+     * returns the number of characters written.
+     *
+     * @throws IndexOutOfBoundsException if the representation does not fit,
+     *         in which case nothing is written
+     */
+    public static int toChars(double v, char[] dst, int index) {
+        return toDecimal(v, Objects.requireNonNull(dst), index, dst.length);
+    }
+
+    /**
+     * Writes the decimal representation of v as ASCII bytes into dst starting
+     * at the absolute index and returns the number of bytes written.  The
+     * position of the buffer is not changed.
+     *
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     *         below the limit of the buffer, in which case nothing is written
+     */
+    public static int toBytes(double v, ByteBuffer dst, int index) {
+        if (dst.hasArray()) {
+            Objects.checkIndex(index, dst.limit() + 1);
+            return toDecimal(v, dst.array(), dst.arrayOffset() + index,
+                             dst.arrayOffset() + dst.limit());
+        }
+        return toDecimal(v, dst, index, dst.limit());
+    }
+
+    private static int toDecimal(double v, Object dst, int index, int limit) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int)(bits >>> (P - 1)) & BQ_MASK;
+        if (bq < BQ_MASK) {
+            boolean neg = bits < 0;
+            if (bq != 0) {
+                // normal value: v = c 2^q, with C_MIN <= c < 2 C_MIN
+                int mq = -Q_MIN + 1 - bq;
+                long c = C_MIN | t;
+                if (0 < mq & mq < P) {
+                    // small integers are exact and need no search
+                    long f = c >> mq;
+                    if (f << mq == c)
+                        return write(neg, f, 0, dst, index, limit);
+                }
+                return toDecimal(neg, -mq, c, 0, dst, index, limit);
+            }
+            if (t != 0) {
+                // subnormal value
+                return (t < C_TINY)
+                    ? toDecimal(neg, Q_MIN, 10 * t, -1, dst, index, limit)
+                    : toDecimal(neg, Q_MIN, t, 0, dst, index, limit);
+            }
+            return writeString(neg ? "-0.0" : "0.0", dst, index, limit);
+        }
+        if (t != 0)
+            return writeString("NaN", dst, index, limit);
+        return writeString(bits > 0 ? "Infinity" : "-Infinity", dst, index, limit);
+    }
+
+    private static int toDecimal(boolean neg, int q, long c, int dk,
+                                 Object dst, int index, int limit) {
+        /*
+         * The rounding interval of v = c 2^q is [cbl, cbr] 2^(q-2), closed
+         * if c is even.  Scale it by 10^-k with k chosen so that the interval
+         * contains at most one integer multiple of 10 and a few integers, and
+         * round the scaled values, which is all the precision needed.
+         */
+        int out = (int)c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // the interval is asymmetric at a power of two
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long[] g = G.TABLE;
+        int gi = (k - K_MIN) << 1;
+        long g1 = g[gi];
+        long g0 = g[gi + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less first: sp10 = 10 floor(s / 10)
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return write(neg, upin ? sp10 : tp10, k, dst, index, limit);
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return write(neg, uin ? s : t, k + dk, dst, index, limit);
+
+        // both candidates in the interval, take the closest, even on ties
+        long cmp = vb - (s + t << 1);
+        return write(neg, (cmp < 0 || cmp == 0 && (s & 0x1) == 0) ? s : t,
+                     k + dk, dst, index, limit);
+    }
+
+    /*
+     * Computes rop(cp g 2^-127), where g = g1 2^63 + g0, and rop rounds to
+     * odd: the result is truncated, with the least significant bit set if
+     * the truncated part is not zero.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    // floor(e log10(2)), for |e| <= 5456721
+    static int flog10pow2(int e) {
+        return (int)(e * 661_971_961_083L >> 41);
+    }
+
+    // floor(e log10(2) + log10(3/4)), for |e| <= 2114567
+    static int flog10threeQuartersPow2(int e) {
+        return (int)(e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    // floor(e log2(10)), for |e| <= 1838394
+    static int flog2pow10(int e) {
+        return (int)(e * 913_124_641_741L >> 38);
+    }
+
+    // the higher 63 bits of g for 10^k, used alone for floats
+    static long g1(int k) {
+        return G.TABLE[(k - K_MIN) << 1];
+    }
+
+    /**
+     * Powers of ten: for each k in [K_MIN, K_MAX], 10^-k = beta 2^r with
+     * 2^125 <= beta < 2^126, and g = floor(beta) + 1 is stored as its higher
+     * 63 bits followed by its lower 63 bits.  Computed once, on first use.
+     */
+    private static final class G {
+        static final long[] TABLE = new long[(K_MAX - K_MIN + 1) << 1];
+
+        static {
+            for (int k = K_MIN; k <= K_MAX; k++) {
+                BigInteger beta;
+                if (k <= 0) {
+                    BigInteger n = BigInteger.TEN.pow(-k);
+                    int r = n.bitLength() - 126;
+                    beta = (r > 0) ? n.shiftRight(r) : n.shiftLeft(-r);
+                } else {
+                    BigInteger d = BigInteger.TEN.pow(k);
+                    beta = BigInteger.ONE.shiftLeft(d.bitLength() + 125).divide(d);
+                }
+                BigInteger g = beta.add(BigInteger.ONE);
+                int i = (k - K_MIN) << 1;
+                TABLE[i] = g.shiftRight(63).longValue();
+                TABLE[i + 1] = g.longValue() & MASK_63;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------->
+
+    /**
+     * Lays out v = f 10^e like Double.toString and returns the length.
+     * Shared with FloatToDecimal.
+     */
+    static int write(boolean neg, long f, int e, Object dst, int index, int limit) {
+        // 去掉末尾的0，n为有效数字位数
+        while (f >= 10 && f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int n = 1;
+        for (long p = 10; n < 19 && p <= f; p *= 10)
+            n++;
+        int de = e + n;  // v = 0.d1d2...dn 10^de
+
+        int sign = neg ? 1 : 0;
+        int len;
+        if (0 < de && de <= 7) {
+            len = sign + de + 1 + Math.max(n - de, 1);
+        } else if (-3 < de && de <= 0) {
+            len = sign + 2 - de + n;
+        } else {
+            int x = de - 1;
+            int xlen = (x < 0) ? 1 : 0;
+            x = Math.abs(x);
+            xlen += (x < 10) ? 1 : (x < 100) ? 2 : 3;
+            len = sign + 2 + Math.max(n - 1, 1) + 1 + xlen;
+        }
+        Objects.checkFromIndexSize(index, len, limit);
+
+        int p = index + len;
+        if (0 < de && de <= 7) {
+            if (n <= de) {
+                put(dst, --p, '0');
+                put(dst, --p, '.');
+                for (int i = n; i < de; i++)
+                    put(dst, --p, '0');
+                p = putDigits(dst, p, f, n);
+            } else {
+                for (int i = n - de; i > 0; i--) {
+                    put(dst, --p, (int)('0' + f % 10));
+                    f /= 10;
+                }
+                put(dst, --p, '.');
+                p = putDigits(dst, p, f, de);
+            }
+        } else if (-3 < de && de <= 0) {
+            p = putDigits(dst, p, f, n);
+            for (int i = de; i < 0; i++)
+                put(dst, --p, '0');
+            put(dst, --p, '.');
+            put(dst, --p, '0');
+        } else {
+            int x = de - 1;
+            int ax = Math.abs(x);
+            do {
+                put(dst, --p, '0' + ax % 10);
+                ax /= 10;
+            } while (ax != 0);
+            if (x < 0)
+                put(dst, --p, '-');
+            put(dst, --p, 'E');
+            if (n == 1) {
+                put(dst, --p, '0');
+            } else {
+                for (int i = n - 1; i > 0; i--) {
+                    put(dst, --p, (int)('0' + f % 10));
+                    f /= 10;
+                }
+            }
+            put(dst, --p, '.');
+            put(dst, --p, (int)('0' + f));
+        }
+        if (neg)
+            put(dst, --p, '-');
+        return len;
+    }
+
+    // Writes the count low digits of f backwards, ending before p
+    private static int putDigits(Object dst, int p, long f, int count) {
+        for (int i = 0; i < count; i++) {
+            put(dst, --p, (int)('0' + f % 10));
+            f /= 10;
+        }
+        return p;
+    }
+
+    static int writeString(String s, Object dst, int index, int limit) {
+        int len = s.length();
+        Objects.checkFromIndexSize(index, len, limit);
+        for (int i = 0; i < len; i++)
+            put(dst, index + i, s.charAt(i));
+        return len;
+    }
+
+    private static void put(Object dst, int i, int c) {
+        if (dst instanceof byte[])
+            ((byte[])dst)[i] = (byte)c;
+        else if (dst instanceof char[])
+            ((char[])dst)[i] = (char)c;
+        else
+            ((ByteBuffer)dst).put(i, (byte)c);
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package jdk.internal.math;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Parses decimal floating-point strings without allocating, falling back
+ * to {@link FloatingDecimal} for anything it cannot decide.
+ *
+ * <p> The input is scanned once, keeping at most 19 significant digits in a
+ * {@code long} together with a decimal exponent.  Small exact values are
+ * converted with a single floating-point multiplication or division
+ * (Clinger's fast path); the rest use the Eisel-Lemire algorithm
+ * (D. Lemire, "Number Parsing at a Gigabyte per Second"), which multiplies
+ * the digits by a 128-bit approximation of the power of five and can tell
+ * from the discarded bits whether the rounding is certain.  When it is not,
+ * when more than 19 significant digits are present and they matter, or when
+ * the input is not a plain decimal number (hexadecimal, {@code NaN},
+ * {@code Infinity}, malformed input), the string is handed to
+ * {@code FloatingDecimal}, so results and exceptions are the same as
+ * {@link Double#parseDouble(String)} has always produced.
+ */
+public final class FastDoubleParser {
+
+    // Returned by the scanner when the input must go through FloatingDecimal.
+    // The fast path never produces NaN.
+    private static final double FAIL = Double.NaN;
+
+    private static final long NO_BITS = -1L;
+
+    // Range of the power of five table
+    static final int SMALLEST_POWER_OF_FIVE = -342;
+    static final int LARGEST_POWER_OF_FIVE = 308;
+
+    private static final double[] DOUBLE_POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POWERS = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private FastDoubleParser() {}
+
+    /**
+     * Parses s[beginIndex, endIndex) like {@link Double#parseDouble(String)}.
+     */
+    public static double parseDouble(CharSequence s, int beginIndex, int endIndex) {
+        Objects.checkFromToIndex(beginIndex, endIndex, s.length());
+        double d = parse(s, beginIndex, endIndex, false);
+        if (d == d)
+            return d;
+        return FloatingDecimal.parseDouble(s.subSequence(beginIndex, endIndex).toString());
+    }
+
+    /**
+     * Parses the ISO-8859-1 bytes b[beginIndex, endIndex) like
+     * {@link Double#parseDouble(String)}.
+     */
+    public static double parseDouble(byte[] b, int beginIndex, int endIndex) {
+        Objects.checkFromToIndex(beginIndex, endIndex, b.length);
+        double d = parse(b, beginIndex, endIndex, false);
+        if (d == d)
+            return d;
+        return FloatingDecimal.parseDouble(
+                new String(b, beginIndex, endIndex - beginIndex, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Parses s[beginIndex, endIndex) like {@link Float#parseFloat(String)}.
+     */
+    public static float parseFloat(CharSequence s, int beginIndex, int endIndex) {
+        Objects.checkFromToIndex(beginIndex, endIndex, s.length());
+        double d = parse(s, beginIndex, endIndex, true);
+        if (d == d)
+            return (float)d;
+        return FloatingDecimal.parseFloat(s.subSequence(beginIndex, endIndex).toString());
+    }
+
+    /**
+     * Parses the ISO-8859-1 bytes b[beginIndex, endIndex) like
+     * {@link Float#parseFloat(String)}.
+     */
+    public static float parseFloat(byte[] b, int beginIndex, int endIndex) {
+        Objects.checkFromToIndex(beginIndex, endIndex, b.length);
+        double d = parse(b, beginIndex, endIndex, true);
+        if (d == d)
+            return (float)d;
+        return FloatingDecimal.parseFloat(
+                new String(b, beginIndex, endIndex - beginIndex, StandardCharsets.ISO_8859_1));
+    }
+
+    private static int charAt(Object s, int i) {
+        return (s instanceof byte[]) ? ((byte[])s)[i] & 0xff : ((CharSequence)s).charAt(i);
+    }
+
+    /**
+     * Scans [from, to) with the grammar accepted by FloatingDecimal for
+     * decimal input and converts it, returning FAIL if FloatingDecimal has
+     * to decide.  For floats the result is the float value widened.
+     */
+    private static double parse(Object s, int from, int to, boolean single) {
+        // 同String.trim()
+        while (from < to && charAt(s, from) <= ' ')
+            from++;
+        while (to > from && charAt(s, to - 1) <= ' ')
+            to--;
+        if (from == to)
+            return FAIL;
+
+        int i = from;
+        int c = charAt(s, i);
+        boolean neg = false;
+        if (c == '-' || c == '+') {
+            neg = c == '-';
+            if (++i == to)
+                return FAIL;
+        }
+
+        // 最多保留19位有效数字，w按无符号数处理
+        long w = 0;
+        int nd = 0;
+        int exp = 0;
+        boolean truncated = false;
+        boolean dot = false;
+        boolean any = false;
+        for (; i < to; i++) {
+            c = charAt(s, i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (nd < 19) {
+                    if (w != 0 || c != '0') {
+                        w = w * 10 + (c - '0');
+                        nd++;
+                    }
+                    if (dot)
+                        exp--;
+                } else {
+                    truncated |= c != '0';
+                    if (!dot)
+                        exp++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (!any)
+            return FAIL;
+
+        if (i < to && (c == 'e' || c == 'E')) {
+            if (++i == to)
+                return FAIL;
+            c = charAt(s, i);
+            boolean eneg = false;
+            if (c == '-' || c == '+') {
+                eneg = c == '-';
+                if (++i == to)
+                    return FAIL;
+            }
+            int e = 0;
+            int start = i;
+            for (; i < to; i++) {
+                c = charAt(s, i);
+                if (c < '0' || c > '9')
+                    break;
+                if (e < 100_000)
+                    e = e * 10 + (c - '0');
+            }
+            if (i == start || e >= 100_000)
+                return FAIL;
+            exp += eneg ? -e : e;
+        }
+        if (i < to) {
+            // 只允许一个类型后缀
+            if (i != to - 1 || (c != 'f' && c != 'F' && c != 'd' && c != 'D'))
+                return FAIL;
+        }
+
+        if (w == 0)
+            return neg ? -0.0 : 0.0;
+
+        double v;
+        if (single) {
+            if (!truncated && -10 <= exp && exp <= 10 && (w >>> 24) == 0) {
+                float f = (float)w;
+                v = (exp < 0) ? f / FLOAT_POWERS[-exp] : f * FLOAT_POWERS[exp];
+            } else {
+                long bits = toBits(w, exp, truncated, 23, -127, 0xff, -17, 10, -65, 38);
+                if (bits == NO_BITS)
+                    return FAIL;
+                v = Float.intBitsToFloat((int)bits);
+            }
+        } else {
+            if (!truncated && -22 <= exp && exp <= 22 && (w >>> 53) == 0) {
+                double d = (double)w;
+                v = (exp < 0) ? d / DOUBLE_POWERS[-exp] : d * DOUBLE_POWERS[exp];
+            } else {
+                long bits = toBits(w, exp, truncated, 52, -1023, 0x7ff, -4, 23, -342, 308);
+                if (bits == NO_BITS)
+                    return FAIL;
+                v = Double.longBitsToDouble(bits);
+            }
+        }
+        return neg ? -v : v;
+    }
+
+    /*
+     * Truncated digits put the exact value between w and w + 1 units, so
+     * the result is only certain if both round the same way.
+     */
+    private static long toBits(long w, int q, boolean truncated, int mbits, int minExp,
+                               int infPower, int minRte, int maxRte, int minPow, int maxPow) {
+        long bits = eiselLemire(w, q, mbits, minExp, infPower, minRte, maxRte, minPow, maxPow);
+        if (truncated && bits != NO_BITS
+                && bits != eiselLemire(w + 1, q, mbits, minExp, infPower, minRte, maxRte, minPow, maxPow))
+            return NO_BITS;
+        return bits;
+    }
+
+    /**
+     * Returns the bits of the binary value nearest to w 10^q, w taken as
+     * unsigned and non-zero, with mbits explicit mantissa bits, or NO_BITS
+     * if the approximation does not determine the rounding.
+     */
+    private static long eiselLemire(long w, int q, int mbits, int minExp, int infPower,
+                                    int minRte, int maxRte, int minPow, int maxPow) {
+        if (q < minPow)
+            return 0L;
+        if (q > maxPow)
+            return (long)infPower << mbits;
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        // w 5^q 的高128位近似，只在需要时计算第二个乘积
+        long[] t = Powers.FIVE;
+        int idx = (q - SMALLEST_POWER_OF_FIVE) << 1;
+        long hi = unsignedMultiplyHigh(w, t[idx]);
+        long lo = w * t[idx];
+        long precisionMask = -1L >>> (mbits + 3);
+        if ((hi & precisionMask) == precisionMask) {
+            long hi2 = unsignedMultiplyHigh(w, t[idx + 1]);
+            lo += hi2;
+            if (Long.compareUnsigned(hi2, lo) > 0)
+                hi++;
+            if (lo == -1L && (q < -27 || q > 55))
+                return NO_BITS;
+        }
+
+        int upperbit = (int)(hi >>> 63);
+        int shift = upperbit + 64 - mbits - 3;
+        long mantissa = hi >>> shift;
+        int power2 = power(q) + upperbit - lz - minExp;
+        if (power2 <= 0) {
+            // subnormal
+            if (-power2 + 1 >= 64)
+                return 0L;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = (mantissa < (1L << mbits)) ? 0 : 1;
+            return mantissa | (long)power2 << mbits;
+        }
+
+        // exactly halfway: only possible when 5^q is exact, round to even
+        if (Long.compareUnsigned(lo, 1) <= 0 && q >= minRte && q <= maxRte
+                && (mantissa & 3) == 1 && (mantissa << shift) == hi)
+            mantissa &= ~1L;
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << mbits)) {
+            mantissa = 1L << mbits;
+            power2++;
+        }
+        mantissa &= ~(1L << mbits);
+        if (power2 >= infPower)
+            return (long)infPower << mbits;
+        return mantissa | (long)power2 << mbits;
+    }
+
+    // floor(q log2(10)) + 63
+    private static int power(int q) {
+        return (((152170 + 65536) * q) >> 16) + 63;
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * 128-bit approximations of 5^q for q in [SMALLEST_POWER_OF_FIVE,
+     * LARGEST_POWER_OF_FIVE], normalized so that the top bit is set, stored
+     * as the higher 64 bits followed by the lower 64 bits.  Positive powers
+     * are truncated, negative ones rounded up.  Computed once, on first use.
+     */
+    private static final class Powers {
+        static final long[] FIVE =
+                new long[(LARGEST_POWER_OF_FIVE - SMALLEST_POWER_OF_FIVE + 1) << 1];
+
+        static {
+            BigInteger five = BigInteger.valueOf(5);
+            for (int q = SMALLEST_POWER_OF_FIVE; q <= LARGEST_POWER_OF_FIVE; q++) {
+                BigInteger c;
+                if (q >= 0) {
+                    c = five.pow(q);
+                    int bl = c.bitLength();
+                    c = (bl > 128) ? c.shiftRight(bl - 128) : c.shiftLeft(128 - bl);
+                } else {
+                    BigInteger p = five.pow(-q);
+                    int z = p.bitLength();
+                    int b = (q >= -27) ? z + 127 : 2 * z + 128;
+                    c = BigInteger.ONE.shiftLeft(b).divide(p).add(BigInteger.ONE);
+                    int bl = c.bitLength();
+                    if (bl > 128)
+                        c = c.shiftRight(bl - 128);
+                }
+                int i = (q - SMALLEST_POWER_OF_FIVE) << 1;
+                FIVE[i] = c.shiftRight(64).longValue();
+                FIVE[i + 1] = c.longValue();
+            }
+        }
+    }
+}
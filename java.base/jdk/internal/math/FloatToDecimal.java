@@ -0,0 +1,156 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package jdk.internal.math;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static jdk.internal.math.DoubleToDecimal.flog10pow2;
+import static jdk.internal.math.DoubleToDecimal.flog10threeQuartersPow2;
+import static jdk.internal.math.DoubleToDecimal.flog2pow10;
+import static jdk.internal.math.DoubleToDecimal.writeString;
+
+/**
+ * Writes the shortest decimal that rounds to a {@code float} directly into
+ * a caller-supplied buffer, laid out like {@link Float#toString(float)}.
+ * This is the {@code float} counterpart of {@link DoubleToDecimal}, which
+ * it shares the power of ten table and the layout code with; only the upper
+ * 63 bits of each power are needed here.
+ */
+public final class FloatToDecimal {
+
+    /** The maximum number of characters written for a {@code float} */
+    public static final int MAX_CHARS = 15;
+
+    static final int P = 24;                     // precision
+    static final int Q_MIN = -149;               // exponent of Float.MIN_VALUE
+    static final int C_MIN = 1 << (P - 1);       // significand of normal values
+    static final int BQ_MASK = 0xff;
+    static final int T_MASK = C_MIN - 1;
+    static final int C_TINY = 8;                 // subnormals below this get one more digit
+
+    static final long MASK_32 = (1L << 32) - 1;
+
+    private FloatToDecimal() {}
+
+    /**
+     * Writes the decimal representation of v into dst starting at index and
+     * returns the number of characters written.
+     *
+     * @throws IndexOutOfBoundsException if the representation does not fit,
+     *         in which case nothing is written
+     */
+    public static int toBytes(float v, byte[] dst, int index) {
+        return toDecimal(v, Objects.requireNonNull(dst), index, dst.length);
+    }
+
+    /**
+     * Writes the decimal representation of v into dst starting at index and
+     * returns the number of characters written.
+     *
+     * @throws IndexOutOfBoundsException if the representation does not fit,
+     *         in which case nothing is written
+     */
+    public static int toChars(float v, char[] dst, int index) {
+        return toDecimal(v, Objects.requireNonNull(dst), index, dst.length);
+    }
+
+    /**
+     * Writes the decimal representation of v as ASCII bytes into dst starting
+     * at the absolute index and returns the number of bytes written.  The
+     * position of the buffer is not changed.
+     *
+     * @throws IndexOutOfBoundsException if the representation does not fit
+     *         below the limit of the buffer, in which case nothing is written
+     */
+    public static int toBytes(float v, ByteBuffer dst, int index) {
+        if (dst.hasArray()) {
+            Objects.checkIndex(index, dst.limit() + 1);
+            return toDecimal(v, dst.array(), dst.arrayOffset() + index,
+                             dst.arrayOffset() + dst.limit());
+        }
+        return toDecimal(v, dst, index, dst.limit());
+    }
+
+    private static int toDecimal(float v, Object dst, int index, int limit) {
+        int bits = Float.floatToRawIntBits(v);
+        int t = bits & T_MASK;
+        int bq = (bits >>> (P - 1)) & BQ_MASK;
+        if (bq < BQ_MASK) {
+            boolean neg = bits < 0;
+            if (bq != 0) {
+                int mq = -Q_MIN + 1 - bq;
+                int c = C_MIN | t;
+                if (0 < mq & mq < P) {
+                    int f = c >> mq;
+                    if (f << mq == c)
+                        return DoubleToDecimal.write(neg, f, 0, dst, index, limit);
+                }
+                return toDecimal(neg, -mq, c, 0, dst, index, limit);
+            }
+            if (t != 0) {
+                return (t < C_TINY)
+                    ? toDecimal(neg, Q_MIN, 10 * t, -1, dst, index, limit)
+                    : toDecimal(neg, Q_MIN, t, 0, dst, index, limit);
+            }
+            return writeString(neg ? "-0.0" : "0.0", dst, index, limit);
+        }
+        if (t != 0)
+            return writeString("NaN", dst, index, limit);
+        return writeString(bits > 0 ? "Infinity" : "-Infinity", dst, index, limit);
+    }
+
+    // See DoubleToDecimal.toDecimal(boolean, int, long, int, ...)
+    private static int toDecimal(boolean neg, int q, int c, int dk,
+                                 Object dst, int index, int limit) {
+        int out = c & 0x1;
+        long cb = (long)c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+
+        long g = DoubleToDecimal.g1(k) + 1;
+
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            // sp10 = 10 floor(s / 10)
+            int sp10 = 10 * (int)(s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return DoubleToDecimal.write(neg, upin ? sp10 : tp10, k, dst, index, limit);
+        }
+
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return DoubleToDecimal.write(neg, uin ? s : t, k + dk, dst, index, limit);
+
+        int cmp = vb - (s + t << 1);
+        return DoubleToDecimal.write(neg, (cmp < 0 || cmp == 0 && (s & 0x1) == 0) ? s : t,
+                                     k + dk, dst, index, limit);
+    }
+
+    // rop(cp g 2^-95), rounded to odd
+    private static int rop(long g, long cp) {
+        long x1 = Math.multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int)(vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+}
@@ -231,6 +231,7 @@ module java.base {
     exports sun.nio.ch to
         java.management,
         jdk.crypto.cryptoki,
+        jdk.jfr,
         jdk.net,
         jdk.sctp;
     exports sun.nio.cs to jdk.charsets;
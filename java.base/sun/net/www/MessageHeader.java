@@ -46,6 +46,10 @@ class MessageHeader {
     private String values[];
     private int nkeys;
 
+    /* Header names repeat across every message; parsed names are
+       shared through this table instead of being copied each time. */
+    private static final Interner.OfString NAMES = new Interner.OfString();
+
     public MessageHeader () {
         grow();
     }
@@ -527,7 +531,7 @@ class MessageHeader {
                 k = null;
                 keyend = 0;
             } else {
-                k = String.copyValueOf(s, 0, keyend);
+                k = NAMES.intern(s, 0, keyend);
                 if (keyend < len && s[keyend] == ':')
                     keyend++;
                 while (keyend < len && s[keyend] <= ' ')
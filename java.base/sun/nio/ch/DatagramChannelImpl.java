@@ -593,6 +593,132 @@ class DatagramChannelImpl
         return written;
     }
 
+    /**
+     * Receives a batch of datagrams holding the read lock once.  There is no
+     * native recvmmsg binding here, so the datagrams are received one system
+     * call each; in blocking mode the socket is polled before each datagram
+     * after the first so that the batch never waits for more.  An I/O error
+     * after the first datagram ends the batch without being thrown, as for a
+     * gathering write, so the datagrams already received are not lost.
+     */
+    @Override
+    public int receive(ByteBuffer[] dsts, SocketAddress[] sources,
+                       int offset, int length)
+        throws IOException
+    {
+        Objects.checkFromIndexSize(offset, length, dsts.length);
+        Objects.checkFromIndexSize(offset, length, sources.length);
+        for (int i = offset; i < offset + length; i++) {
+            if (dsts[i].isReadOnly())
+                throw new IllegalArgumentException("Read-only buffer");
+        }
+        // each datagram must be checked against the security manager
+        if (System.getSecurityManager() != null && !isConnected())
+            return super.receive(dsts, sources, offset, length);
+
+        readLock.lock();
+        try {
+            boolean blocking = isBlocking();
+            int count = 0;
+            int n = 0;
+            try {
+                SocketAddress remote = beginRead(blocking, false);
+                boolean connected = (remote != null);
+                while (count < length) {
+                    try {
+                        if (count > 0 && blocking && Net.poll(fd, Net.POLLIN, 0) == 0)
+                            break;
+                        do {
+                            n = receive(fd, dsts[offset + count], connected);
+                        } while ((n == IOStatus.INTERRUPTED) && isOpen());
+                    } catch (IOException x) {
+                        if (count == 0)
+                            throw x;
+                        // the error, if it persists, is thrown by the next call
+                        n = 0;
+                        break;
+                    }
+                    if (n < 0)
+                        break;
+                    assert sender != null;
+                    sources[offset + count] = sender;
+                    count++;
+                }
+                return count;
+            } finally {
+                endRead(blocking, count > 0);
+                assert IOStatus.check(n);
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Sends a batch of datagrams holding the write lock once, one system
+     * call per datagram.  An I/O error after the first datagram ends the
+     * batch without being thrown, as for a gathering write, so that the
+     * datagrams already sent are counted.
+     */
+    @Override
+    public int send(ByteBuffer[] srcs, SocketAddress[] targets,
+                    int offset, int length)
+        throws IOException
+    {
+        Objects.checkFromIndexSize(offset, length, srcs.length);
+        Objects.checkFromIndexSize(offset, length, targets.length);
+        // each target must be checked against the security manager
+        if (System.getSecurityManager() != null)
+            return super.send(srcs, targets, offset, length);
+        InetSocketAddress[] isas = new InetSocketAddress[length];
+        for (int i = 0; i < length; i++) {
+            Objects.requireNonNull(srcs[offset + i]);
+            isas[i] = Net.checkAddress(targets[offset + i], family);
+        }
+
+        writeLock.lock();
+        try {
+            boolean blocking = isBlocking();
+            int count = 0;
+            int n = 0;
+            try {
+                SocketAddress remote = beginWrite(blocking, false);
+                if (remote != null) {
+                    // connected
+                    for (int i = 0; i < length; i++) {
+                        if (!targets[offset + i].equals(remote))
+                            throw new AlreadyConnectedException();
+                    }
+                }
+                while (count < length) {
+                    ByteBuffer src = srcs[offset + count];
+                    try {
+                        do {
+                            n = (remote != null)
+                                ? IOUtil.write(fd, src, -1, nd)
+                                : send(fd, src, isas[count]);
+                        } while ((n == IOStatus.INTERRUPTED) && isOpen());
+                    } catch (IOException x) {
+                        if (count == 0)
+                            throw x;
+                        // the error, if it persists, is thrown by the next call
+                        n = 0;
+                        break;
+                    }
+                    if (n < 0)
+                        break;
+                    count++;
+                }
+                return count;
+            } finally {
+                endWrite(blocking, count > 0);
+                assert IOStatus.check(n);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     @Override
     public int read(ByteBuffer buf) throws IOException {
         Objects.requireNonNull(buf);
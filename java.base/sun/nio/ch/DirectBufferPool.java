@@ -0,0 +1,370 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package sun.nio.ch;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.internal.access.JavaNioAccess;
+import jdk.internal.misc.TerminatingThreadLocal;
+import sun.security.action.GetPropertyAction;
+
+/**
+ * A pool of the temporary direct buffers used to perform I/O on heap
+ * buffers.
+ *
+ * <p> Buffers come in power of two size classes, from 1K up to the limit
+ * given by {@code jdk.nio.maxCachedBufferSize} (4M by default, at most 1G);
+ * a request is served with a buffer of the smallest class that fits.  As
+ * that may reserve up to twice the requested size, larger requests get an
+ * unpooled buffer of exactly the requested size that is freed on release.  Each thread
+ * first looks in its own cache, which holds up to {@code IOV_MAX} buffers
+ * so that a scatter/gather operation can be repeated without allocating.
+ * Buffers that do not fit in the thread's cache, and the buffers of
+ * terminating threads, go to a shared arena that other threads take from
+ * before allocating.  The arena holds at most
+ * {@code jdk.nio.maxSharedCachedBufferSize} bytes (16M by default); what
+ * does not fit is freed immediately rather than left to the collector.
+ *
+ * <p> Hits, misses and the memory held are counted and reported through
+ * the {@code direct-temporary} buffer pool MXBean and the
+ * {@code jdk.DirectBufferPoolStatistics} JFR event.
+ */
+public final class DirectBufferPool {
+
+    // Smallest size class, 1K
+    private static final int MIN_SHIFT = 10;
+
+    // Largest size class, 1G
+    private static final int MAX_SHIFT = 30;
+
+    // The number of buffers each thread may keep
+    private static final int THREAD_CACHE_SIZE = IOUtil.IOV_MAX;
+
+    // Default largest size class, 4M
+    private static final int DEFAULT_MAX_SHIFT = 22;
+
+    // The max size of a pooled buffer, in bytes
+    private static final long MAX_CACHED_BUFFER_SIZE
+        = Math.min(getLongProperty("jdk.nio.maxCachedBufferSize", 1L << DEFAULT_MAX_SHIFT),
+                   1L << MAX_SHIFT);
+
+    // The max number of bytes held by the shared arena
+    private static final long MAX_SHARED_SIZE
+        = getLongProperty("jdk.nio.maxSharedCachedBufferSize", 16L << 20);
+
+    // Number of size classes, possibly zero if pooling is disabled
+    private static final int NUM_CLASSES = (MAX_CACHED_BUFFER_SIZE < (1L << MIN_SHIFT))
+        ? 0
+        : 64 - Long.numberOfLeadingZeros(MAX_CACHED_BUFFER_SIZE) - MIN_SHIFT;
+
+    // -- Statistics --
+
+    private static final LongAdder threadHits = new LongAdder();
+    private static final LongAdder sharedHits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder frees = new LongAdder();
+
+    // Buffers allocated for the pool and not yet freed, and their size
+    private static final AtomicLong count = new AtomicLong();
+    private static final AtomicLong totalCapacity = new AtomicLong();
+
+    // Bytes held by the shared arena
+    private static final AtomicLong sharedBytes = new AtomicLong();
+
+    private DirectBufferPool() { }
+
+    private static long getLongProperty(String name, long def) {
+        String s = GetPropertyAction.privilegedGetProperty(name);
+        if (s != null) {
+            try {
+                long m = Long.parseLong(s);
+                if (m >= 0)
+                    return m;
+            } catch (NumberFormatException e) {
+                // if the string is not well formed, ignore the system property
+            }
+        }
+        return def;
+    }
+
+    /**
+     * Returns the size class for the given size, or -1 if buffers of this
+     * size are not pooled.
+     */
+    private static int sizeClass(int size) {
+        if (size <= (1 << MIN_SHIFT))
+            return (NUM_CLASSES > 0) ? 0 : -1;
+        int c = 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+        return (c < NUM_CLASSES) ? c : -1;
+    }
+
+    /**
+     * Returns the size class of a buffer obtained from this pool, or -1 if
+     * it was not allocated as a pooled buffer.
+     */
+    private static int sizeClassOf(ByteBuffer buf) {
+        int cap = buf.capacity();
+        int c = sizeClass(cap);
+        return (c >= 0 && cap == (1 << (c + MIN_SHIFT))) ? c : -1;
+    }
+
+    // -- Thread cache --
+
+    /**
+     * A per-thread cache of buffers, a stack per size class.
+     */
+    private static class ThreadCache {
+        private final ByteBuffer[][] stacks = new ByteBuffer[NUM_CLASSES][];
+        private final int[] counts = new int[NUM_CLASSES];
+        private int total;
+
+        ByteBuffer poll(int c) {
+            int n = counts[c];
+            if (n == 0)
+                return null;
+            ByteBuffer[] stack = stacks[c];
+            ByteBuffer buf = stack[--n];
+            stack[n] = null;
+            counts[c] = n;
+            total--;
+            return buf;
+        }
+
+        boolean offer(int c, ByteBuffer buf) {
+            if (total >= THREAD_CACHE_SIZE)
+                return false;
+            ByteBuffer[] stack = stacks[c];
+            int n = counts[c];
+            if (stack == null || n == stack.length) {
+                ByteBuffer[] ns = new ByteBuffer[Math.min(Math.max(n << 1, 4),
+                                                          THREAD_CACHE_SIZE)];
+                if (stack != null)
+                    System.arraycopy(stack, 0, ns, 0, n);
+                stacks[c] = stack = ns;
+            }
+            stack[n] = buf;
+            counts[c] = n + 1;
+            total++;
+            return true;
+        }
+    }
+
+    private static final ThreadLocal<ThreadCache> threadCache = new TerminatingThreadLocal<>() {
+        @Override
+        protected ThreadCache initialValue() {
+            return new ThreadCache();
+        }
+        @Override
+        protected void threadTerminated(ThreadCache cache) { // will never be null
+            // hand the buffers over to threads that are still running
+            for (int c = 0; c < NUM_CLASSES; c++) {
+                ByteBuffer buf;
+                while ((buf = cache.poll(c)) != null) {
+                    if (!offerShared(c, buf))
+                        discard(buf);
+                }
+            }
+        }
+    };
+
+    // -- Shared arena --
+
+    /**
+     * A stack of buffers of one size class, shared by all threads.
+     */
+    private static class Arena {
+        private ByteBuffer[] buffers = new ByteBuffer[4];
+        private int count;
+
+        synchronized ByteBuffer poll() {
+            if (count == 0)
+                return null;
+            ByteBuffer buf = buffers[--count];
+            buffers[count] = null;
+            return buf;
+        }
+
+        synchronized void push(ByteBuffer buf) {
+            if (count == buffers.length) {
+                ByteBuffer[] nb = new ByteBuffer[count << 1];
+                System.arraycopy(buffers, 0, nb, 0, count);
+                buffers = nb;
+            }
+            buffers[count++] = buf;
+        }
+    }
+
+    private static final Arena[] arenas = new Arena[NUM_CLASSES];
+    static {
+        for (int c = 0; c < NUM_CLASSES; c++)
+            arenas[c] = new Arena();
+    }
+
+    private static ByteBuffer pollShared(int c) {
+        if (sharedBytes.get() == 0)
+            return null;
+        ByteBuffer buf = arenas[c].poll();
+        if (buf != null)
+            sharedBytes.addAndGet(-buf.capacity());
+        return buf;
+    }
+
+    private static boolean offerShared(int c, ByteBuffer buf) {
+        int cap = buf.capacity();
+        long n;
+        do {
+            n = sharedBytes.get();
+            if (n + cap > MAX_SHARED_SIZE)
+                return false;
+        } while (!sharedBytes.compareAndSet(n, n + cap));
+        arenas[c].push(buf);
+        return true;
+    }
+
+    // -- Allocation --
+
+    /**
+     * Returns a direct buffer with position zero and limit {@code size}.
+     */
+    static ByteBuffer get(int size) {
+        int c = sizeClass(size);
+        if (c < 0) {
+            misses.increment();
+            return ByteBuffer.allocateDirect(size);
+        }
+        ByteBuffer buf = threadCache.get().poll(c);
+        if (buf != null) {
+            threadHits.increment();
+        } else if ((buf = pollShared(c)) != null) {
+            sharedHits.increment();
+        } else {
+            misses.increment();
+            int cap = 1 << (c + MIN_SHIFT);
+            buf = ByteBuffer.allocateDirect(cap);
+            count.incrementAndGet();
+            totalCapacity.addAndGet(cap);
+        }
+        buf.clear();
+        buf.limit(size);
+        return buf;
+    }
+
+    /**
+     * Returns a direct buffer with position zero and limit {@code size},
+     * whose address is a multiple of {@code alignment}.  The buffer is a
+     * slice of a pooled buffer and may be released like any other.
+     */
+    static ByteBuffer getAligned(int size, int alignment) {
+        ByteBuffer buf = get(size + alignment - 1);
+        buf.limit(buf.capacity());
+        ByteBuffer slice = buf.alignedSlice(alignment);
+        slice.limit(size);
+        return slice;
+    }
+
+    /**
+     * Returns a buffer obtained from {@code get} or {@code getAligned} to
+     * the pool, or frees it if the pool is full.
+     */
+    static void release(ByteBuffer buf) {
+        buf = root(buf);
+        int c = sizeClassOf(buf);
+        if (c < 0) {
+            free(buf);
+            return;
+        }
+        if (!threadCache.get().offer(c, buf) && !offerShared(c, buf))
+            discard(buf);
+    }
+
+    // Frees a pooled buffer that does not fit in the pool
+    private static void discard(ByteBuffer buf) {
+        frees.increment();
+        count.decrementAndGet();
+        totalCapacity.addAndGet(-buf.capacity());
+        free(buf);
+    }
+
+    // Aligned buffers are slices, the pooled buffer is their attachment
+    private static ByteBuffer root(ByteBuffer buf) {
+        DirectBuffer db = (DirectBuffer)buf;
+        while (db.cleaner() == null && db.attachment() instanceof DirectBuffer) {
+            db = (DirectBuffer)db.attachment();
+        }
+        return (ByteBuffer)db;
+    }
+
+    /**
+     * Frees the memory for the given direct buffer
+     */
+    private static void free(ByteBuffer buf) {
+        ((DirectBuffer)buf).cleaner().clean();
+    }
+
+    // -- Monitoring --
+
+    /**
+     * Returns the buffer pool that reports the buffers allocated for this
+     * pool, both cached and in use.  They are also included in the
+     * {@code direct} buffer pool.
+     */
+    public static JavaNioAccess.BufferPool getBufferPool() {
+        return new JavaNioAccess.BufferPool() {
+            @Override
+            public String getName() {
+                return "direct-temporary";
+            }
+            @Override
+            public long getCount() {
+                return bufferCount();
+            }
+            @Override
+            public long getTotalCapacity() {
+                return bufferCapacity();
+            }
+            @Override
+            public long getMemoryUsed() {
+                return bufferCapacity();
+            }
+        };
+    }
+
+    /** Returns the number of pooled buffers, cached or in use */
+    public static long bufferCount() {
+        return count.get();
+    }
+
+    /** Returns the total capacity of the pooled buffers, cached or in use */
+    public static long bufferCapacity() {
+        return totalCapacity.get();
+    }
+
+    /** Returns the number of requests served from the thread's cache */
+    public static long threadCacheHits() {
+        return threadHits.sum();
+    }
+
+    /** Returns the number of requests served from the shared arena */
+    public static long sharedCacheHits() {
+        return sharedHits.sum();
+    }
+
+    /** Returns the number of requests that allocated a new buffer */
+    public static long misses() {
+        return misses.sum();
+    }
+
+    /** Returns the number of pooled buffers freed because the pool was full */
+    public static long frees() {
+        return frees.sum();
+    }
+
+    /** Returns the number of bytes held by the shared arena */
+    public static long sharedBytes() {
+        return sharedBytes.get();
+    }
+}
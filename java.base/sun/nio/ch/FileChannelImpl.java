@@ -34,6 +34,7 @@ import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.FileLockInterruptionException;
@@ -42,6 +43,10 @@ import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import jdk.internal.access.JavaIOFileDescriptorAccess;
 import jdk.internal.access.JavaNioAccess;
@@ -94,6 +99,10 @@ public class FileChannelImpl
     // Cleanable with an action which closes this channel's file descriptor
     private final Cleanable closer;
 
+    // Mapping kept by transferTo for the next call, see transferWindow
+    private final Object transferWindowLock = new Object();
+    private TransferWindow transferWindow;
+
     private static class Closer implements Runnable {
         private final FileDescriptor fd;
 
@@ -183,6 +192,10 @@ public class FileChannelImpl
         // signal any threads blocked on this channel
         threads.signalAndWait();
 
+        // release the cached transfer mapping, one in use is released by
+        // the thread using it
+        dropTransferWindow();
+
         if (parent != null) {
 
             // Close the fd via the parent stream's close method.  The parent
@@ -266,6 +279,7 @@ public class FileChannelImpl
         ensureOpen();
         if (!writable)
             throw new NonWritableChannelException();
+        dropTransferWindow();
         synchronized (positionLock) {
             if (direct)
                 Util.checkChannelPositionAligned(position(), alignment);
@@ -296,6 +310,7 @@ public class FileChannelImpl
         ensureOpen();
         if (!writable)
             throw new NonWritableChannelException();
+        dropTransferWindow();
         synchronized (positionLock) {
             if (direct)
                 Util.checkChannelPositionAligned(position(), alignment);
@@ -397,6 +412,7 @@ public class FileChannelImpl
             throw new IllegalArgumentException("Negative size");
         if (!writable)
             throw new NonWritableChannelException();
+        dropTransferWindow();
         synchronized (positionLock) {
             int rv = -1;
             long p = -1;
@@ -570,6 +586,105 @@ public class FileChannelImpl
     // Maximum size to map when using a mapped buffer
     private static final long MAPPED_TRANSFER_SIZE = 8L*1024L*1024L;
 
+    /**
+     * A read-only mapping of part of the file used to transfer to a trusted
+     * channel.
+     */
+    private static final class TransferWindow {
+        final MappedByteBuffer buf;
+        final long position;            // file position of the first byte
+        final WritableByteChannel target;
+        long resume;                    // file position a retry starts at
+
+        TransferWindow(MappedByteBuffer buf, long position,
+                       WritableByteChannel target) {
+            this.buf = buf;
+            this.position = position;
+            this.target = target;
+        }
+
+        // True if this is the retry of the partial write that kept it
+        boolean resumes(long pos, long size, WritableByteChannel target) {
+            return target == this.target && pos == resume
+                && pos + size <= position + buf.capacity();
+        }
+
+        // Returns the buffer with its position and limit set to the range
+        ByteBuffer select(long pos, long size) {
+            int off = (int)(pos - position);
+            buf.limit(off + (int)size).position(off);
+            return buf;
+        }
+    }
+
+    /**
+     * Returns a mapping that covers [position, position + size), for the
+     * exclusive use of the caller until it is passed to
+     * releaseTransferWindow.  A transfer to a non-blocking channel typically
+     * writes less than was asked for and is then repeated from where it
+     * stopped, so a mapping left after a partial write is kept for the
+     * retry, that is a transfer to the same target starting where the write
+     * stopped, instead of mapping and unmapping the file on every call.
+     *
+     * The kept mapping is unmapped by the next transfer to another target or
+     * from another position, by any write or truncate, and by close.  If the
+     * caller abandons the target after a partial write, up to
+     * MAPPED_TRANSFER_SIZE bytes therefore stay mapped until one of these
+     * happens, and on Windows no other handle can truncate the file in the
+     * meantime; the mapping is never held past the life of this channel.
+     */
+    private TransferWindow transferWindow(long position, long size,
+                                          WritableByteChannel target)
+        throws IOException
+    {
+        TransferWindow w;
+        synchronized (transferWindowLock) {
+            w = transferWindow;
+            transferWindow = null;
+        }
+        if (w != null) {
+            if (w.resumes(position, size, target))
+                return w;
+            unmap(w.buf);
+        }
+        return new TransferWindow(map(MapMode.READ_ONLY, position, size),
+                                  position, target);
+    }
+
+    /**
+     * Unmaps the mapping kept before, then keeps the given mapping for the
+     * next transfer if keep is true and this channel is open, or unmaps it.
+     */
+    private void releaseTransferWindow(TransferWindow w, boolean keep) {
+        TransferWindow unused;
+        synchronized (transferWindowLock) {
+            unused = transferWindow;
+            if (keep && isOpen()) {
+                transferWindow = w;
+                w = null;
+            } else {
+                transferWindow = null;
+            }
+        }
+        if (unused != null)
+            unmap(unused.buf);
+        if (w != null)
+            unmap(w.buf);
+    }
+
+    /**
+     * Unmaps the mapping kept for the next transfer, if any.
+     */
+    private void dropTransferWindow() {
+        TransferWindow w;
+        synchronized (transferWindowLock) {
+            if ((w = transferWindow) == null)
+                return;
+            transferWindow = null;
+        }
+        unmap(w.buf);
+    }
+
     private long transferToTrustedChannel(long position, long count,
                                           WritableByteChannel target)
         throws IOException
@@ -583,10 +698,14 @@ public class FileChannelImpl
         while (remaining > 0L) {
             long size = Math.min(remaining, MAPPED_TRANSFER_SIZE);
             try {
-                MappedByteBuffer dbb = map(MapMode.READ_ONLY, position, size);
+                TransferWindow w = transferWindow(position, size, target);
+                boolean partial = false;
                 try {
                     // ## Bug: Closing this channel will not terminate the write
-                    int n = target.write(dbb);
+                    int n = target.write(w.select(position, size));
+                    // keep the mapping only for the retry of a partial write
+                    partial = isSelChImpl && n < size;
+                    w.resume = position + n;
                     assert n >= 0;
                     remaining -= n;
                     if (isSelChImpl) {
@@ -596,7 +715,7 @@ public class FileChannelImpl
                     assert n > 0;
                     position += n;
                 } finally {
-                    unmap(dbb);
+                    releaseTransferWindow(w, partial);
                 }
             } catch (ClosedByInterruptException e) {
                 // target closed by interrupt as ClosedByInterruptException needs
@@ -686,6 +805,214 @@ public class FileChannelImpl
         return transferToArbitraryChannel(position, icount, target);
     }
 
+    // Number of mapped segments that a multi-range transfer keeps in flight
+    private static final int TRANSFER_DEPTH = 4;
+
+    /**
+     * Transfers the ranges through a pipeline of mapped segments, at most
+     * MAPPED_TRANSFER_SIZE each.  The segments after the one that is being
+     * written are loaded by tasks on the executor, so the writer seldom
+     * waits for the disk.  Each segment is sent with a direct transfer when
+     * the kernel supports it, otherwise by writing the mapping.  Mapped
+     * buffers are only passed to trusted channels, other targets get the
+     * default implementation.
+     */
+    @Override
+    public <A> void transferTo(long[] positions,
+                               long[] counts,
+                               WritableByteChannel target,
+                               Executor executor,
+                               A attachment,
+                               CompletionHandler<Long,? super A> handler)
+    {
+        if (!(target instanceof FileChannelImpl || target instanceof SelChImpl)) {
+            super.transferTo(positions, counts, target, executor, attachment, handler);
+            return;
+        }
+        long[] ps = positions.clone();
+        long[] cs = counts.clone();
+        if (ps.length != cs.length)
+            throw new IllegalArgumentException();
+        for (int i = 0; i < ps.length; i++) {
+            if (ps[i] < 0 || cs[i] < 0 || ps[i] + cs[i] < 0)
+                throw new IllegalArgumentException();
+        }
+        Objects.requireNonNull(handler);
+        executor.execute(new RangeTransfer<>(ps, cs, target, executor,
+                                             attachment, handler));
+    }
+
+    /**
+     * A mapped segment of a multi-range transfer.  Running it loads the
+     * mapping; it must not be unmapped while that is in progress.
+     */
+    private static final class Segment implements Runnable {
+        final long position;
+        final MappedByteBuffer buf;
+        private int state;              // 0: mapped, 1: loading, 2: loaded or released
+
+        Segment(long position, MappedByteBuffer buf) {
+            this.position = position;
+            this.buf = buf;
+        }
+
+        public void run() {
+            synchronized (this) {
+                if (state != 0)
+                    return;
+                state = 1;
+            }
+            try {
+                buf.load();
+            } finally {
+                synchronized (this) {
+                    state = 2;
+                    notifyAll();
+                }
+            }
+        }
+
+        // Waits for a load in progress, if any, prevents a later one and unmaps
+        void release() {
+            boolean interrupted = false;
+            synchronized (this) {
+                while (state == 1) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                state = 2;
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            unmap(buf);
+        }
+    }
+
+    private final class RangeTransfer<A> implements Runnable {
+        private final long[] positions;
+        private final long[] counts;
+        private final WritableByteChannel target;
+        private final Executor executor;
+        private final A attachment;
+        private final CompletionHandler<Long,? super A> handler;
+
+        // Segments mapped and not yet written, in file order
+        private final ArrayDeque<Segment> inflight = new ArrayDeque<>(TRANSFER_DEPTH);
+
+        private long fileSize;
+        private int range;              // index of the next range to map
+        private long next;              // position of the next segment to map
+        private long end;               // end of the range being mapped
+
+        RangeTransfer(long[] positions, long[] counts,
+                      WritableByteChannel target, Executor executor,
+                      A attachment, CompletionHandler<Long,? super A> handler)
+        {
+            this.positions = positions;
+            this.counts = counts;
+            this.target = target;
+            this.executor = executor;
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+
+        public void run() {
+            long total = 0;
+            Throwable exc = null;
+            try {
+                ensureOpen();
+                if (!target.isOpen())
+                    throw new ClosedChannelException();
+                if (!readable)
+                    throw new NonReadableChannelException();
+                if (target instanceof FileChannelImpl &&
+                    !((FileChannelImpl)target).writable)
+                    throw new NonWritableChannelException();
+                fileSize = size();
+                Segment seg;
+                while ((seg = nextSegment()) != null) {
+                    int size = seg.buf.capacity();
+                    int n;
+                    try {
+                        n = write(seg);
+                    } finally {
+                        seg.release();
+                    }
+                    total += n;
+                    if (n < size)
+                        break;
+                }
+            } catch (Throwable x) {
+                exc = x;
+            } finally {
+                Segment seg;
+                while ((seg = inflight.poll()) != null)
+                    seg.release();
+            }
+            // Only fail if no bytes have been written
+            if (exc != null && (total == 0 || !(exc instanceof IOException))) {
+                handler.failed(exc, attachment);
+            } else {
+                handler.completed(total, attachment);
+            }
+        }
+
+        /**
+         * Maps segments until TRANSFER_DEPTH are in flight and returns the
+         * first, or null if the ranges are done.
+         */
+        private Segment nextSegment() throws IOException {
+            while (inflight.size() < TRANSFER_DEPTH) {
+                while (next >= end && range < positions.length) {
+                    next = positions[range];
+                    end = Math.min(next + counts[range], fileSize);
+                    range++;
+                }
+                if (next >= end)
+                    break;
+                long size = Math.min(end - next, MAPPED_TRANSFER_SIZE);
+                Segment seg = new Segment(next, map(MapMode.READ_ONLY, next, size));
+                inflight.add(seg);
+                next += size;
+                try {
+                    executor.execute(seg);
+                } catch (RejectedExecutionException e) {
+                    // not loaded ahead, the write faults the pages in
+                }
+            }
+            return inflight.poll();
+        }
+
+        /**
+         * Writes the segment to the target, returning the number of bytes
+         * written.  Fewer bytes are written only if the target accepts no
+         * more.
+         */
+        private int write(Segment seg) throws IOException {
+            ByteBuffer bb = seg.buf;
+            int size = bb.capacity();
+            int written = 0;
+            while (written < size) {
+                long n = transferToDirectly(seg.position + written,
+                                            size - written, target);
+                if (n < 0)
+                    break;      // not supported, write the mapping
+                if (n == 0)
+                    return written;
+                written += (int)n;
+            }
+            bb.position(written);
+            while (bb.hasRemaining()) {
+                if (target.write(bb) == 0)
+                    break;
+            }
+            return bb.position();
+        }
+    }
+
     private long transferFromFileChannel(FileChannelImpl src,
                                          long position, long count)
         throws IOException
@@ -828,6 +1155,7 @@ public class FileChannelImpl
         if (direct)
             Util.checkChannelPositionAligned(position, alignment);
         ensureOpen();
+        dropTransferWindow();
         if (nd.needsPositionLock()) {
             synchronized (positionLock) {
                 return writeInternal(src, position);
@@ -873,10 +1201,10 @@ public class FileChannelImpl
 
         private volatile long address;
         private final long size;
-        private final int cap;
+        private final long cap;
         private final FileDescriptor fd;
 
-        private Unmapper(long address, long size, int cap,
+        private Unmapper(long address, long size, long cap,
                          FileDescriptor fd)
         {
             assert (address != 0);
@@ -927,6 +1255,56 @@ public class FileChannelImpl
 
     public MappedByteBuffer map(MapMode mode, long position, long size)
         throws IOException
+    {
+        checkMapArguments(mode, position, size);
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Size exceeds Integer.MAX_VALUE");
+        int imode = toMapMode(mode);
+
+        Unmapper um = mapInternal(imode, position, size);
+        if (um == null && size != 0)
+            return null;    // closed, and not interruptible
+        boolean readOnly = (!writable) || (imode == MAP_RO);
+        if (um == null) {
+            // a valid file descriptor is not required
+            FileDescriptor dummy = new FileDescriptor();
+            if (readOnly)
+                return Util.newMappedByteBufferR(0, 0, dummy, null);
+            else
+                return Util.newMappedByteBuffer(0, 0, dummy, null);
+        }
+        int isize = (int)size;
+        long addr = um.address + position % allocationGranularity;
+        if (readOnly) {
+            return Util.newMappedByteBufferR(isize, addr, um.fd, um);
+        } else {
+            return Util.newMappedByteBuffer(isize, addr, um.fd, um);
+        }
+    }
+
+    /**
+     * Maps a region of this channel's file like {@link #map map} does, but
+     * without the limit of {@code Integer.MAX_VALUE} bytes, and returns it
+     * as a {@link MappedRegion} that is unmapped when it is closed.
+     */
+    public MappedRegion mapRegion(MapMode mode, long position, long size)
+        throws IOException
+    {
+        checkMapArguments(mode, position, size);
+        int imode = toMapMode(mode);
+
+        Unmapper um = mapInternal(imode, position, size);
+        if (um == null && size != 0)
+            throw new ClosedChannelException();
+        boolean readOnly = (!writable) || (imode == MAP_RO);
+        if (um == null)
+            return new MappedRegion(0, 0, readOnly, null, null);
+        long addr = um.address + position % allocationGranularity;
+        return new MappedRegion(addr, size, readOnly, um.fd, um);
+    }
+
+    private void checkMapArguments(MapMode mode, long position, long size)
+        throws IOException
     {
         ensureOpen();
         if (mode == null)
@@ -937,9 +1315,10 @@ public class FileChannelImpl
             throw new IllegalArgumentException("Negative size");
         if (position + size < 0)
             throw new IllegalArgumentException("Position + size overflow");
-        if (size > Integer.MAX_VALUE)
-            throw new IllegalArgumentException("Size exceeds Integer.MAX_VALUE");
+    }
 
+    // Returns the native mode for the given map mode, checking the access
+    private int toMapMode(MapMode mode) {
         int imode = -1;
         if (mode == MapMode.READ_ONLY)
             imode = MAP_RO;
@@ -952,7 +1331,18 @@ public class FileChannelImpl
             throw new NonWritableChannelException();
         if (!readable)
             throw new NonReadableChannelException();
+        return imode;
+    }
 
+    /**
+     * Maps [position, position + size) of the file, extending the file if
+     * needed.  Returns the Unmapper that owns the mapping, which starts at
+     * the granularity-aligned address below the one for position, or null
+     * if size is zero and nothing was mapped.
+     */
+    private Unmapper mapInternal(int imode, long position, long size)
+        throws IOException
+    {
         long addr = -1;
         int ti = -1;
         try {
@@ -962,7 +1352,6 @@ public class FileChannelImpl
                 return null;
 
             long mapSize;
-            int pagePosition;
             synchronized (positionLock) {
                 long filesize;
                 do {
@@ -986,15 +1375,10 @@ public class FileChannelImpl
 
                 if (size == 0) {
                     addr = 0;
-                    // a valid file descriptor is not required
-                    FileDescriptor dummy = new FileDescriptor();
-                    if ((!writable) || (imode == MAP_RO))
-                        return Util.newMappedByteBufferR(0, 0, dummy, null);
-                    else
-                        return Util.newMappedByteBuffer(0, 0, dummy, null);
+                    return null;
                 }
 
-                pagePosition = (int)(position % allocationGranularity);
+                long pagePosition = position % allocationGranularity;
                 long mapPosition = position - pagePosition;
                 mapSize = size + pagePosition;
                 try {
@@ -1030,19 +1414,7 @@ public class FileChannelImpl
 
             assert (IOStatus.checkAll(addr));
             assert (addr % allocationGranularity == 0);
-            int isize = (int)size;
-            Unmapper um = new Unmapper(addr, mapSize, isize, mfd);
-            if ((!writable) || (imode == MAP_RO)) {
-                return Util.newMappedByteBufferR(isize,
-                                                 addr + pagePosition,
-                                                 mfd,
-                                                 um);
-            } else {
-                return Util.newMappedByteBuffer(isize,
-                                                addr + pagePosition,
-                                                mfd,
-                                                um);
-            }
+            return new Unmapper(addr, mapSize, size, mfd);
         } finally {
             threads.remove(ti);
             endBlocking(IOStatus.checkAll(addr));
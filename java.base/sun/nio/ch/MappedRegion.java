@@ -0,0 +1,646 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package sun.nio.ch;
+
+import java.io.FileDescriptor;
+import java.lang.ref.Cleaner.Cleanable;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import jdk.internal.misc.Unsafe;
+import jdk.internal.ref.CleanerFactory;
+
+/**
+ * A region of a file mapped into memory, addressed with {@code long}
+ * offsets and unmapped when it is closed.
+ *
+ * <p> A region is created by {@link FileChannelImpl#mapRegion
+ * FileChannelImpl.mapRegion} and, unlike a {@link MappedByteBuffer}, may be
+ * larger than 2G.  It has no position or limit: every access names its
+ * offset, so a region may be used by several threads at once.  Multi-byte
+ * values are read and written in the region's byte order, which is
+ * big-endian unless a view with another order is created with {@link
+ * #withOrder withOrder}.
+ *
+ * <p> {@link #close close} unmaps the file at once rather than when the
+ * region is collected.  Accesses that are in progress when it is invoked
+ * complete first; later accesses, and accesses through slices and views of
+ * the region, which share its mapping, throw {@code IllegalStateException}.
+ * A region that is not closed is unmapped when it and all its slices and
+ * views have become unreachable.
+ */
+public final class MappedRegion implements AutoCloseable {
+
+    private static final Unsafe UNSAFE = Unsafe.getUnsafe();
+
+    // Largest part of the region that force and load hand to a buffer
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    /**
+     * The mapping shared by a region and its slices and views, with the
+     * count of the accesses in progress.  The count is striped over
+     * separate cache lines, selected by thread id, so that threads reading
+     * the same region do not contend on it.
+     */
+    private static final class Mapping {
+        // longs per stripe, one stripe per 128 bytes
+        private static final int STRIDE = 16;
+
+        private static final int STRIPES;
+        static {
+            int n = Runtime.getRuntime().availableProcessors() << 1;
+            STRIPES = Integer.highestOneBit(Math.min(Math.max(n, 2), 64) - 1) << 1;
+        }
+
+        private final long[] counts = new long[(STRIPES + 1) * STRIDE];
+        private final FileDescriptor fd;
+        private final Cleanable cleanable;
+        private volatile boolean closed;
+
+        Mapping(FileDescriptor fd, Runnable unmapper) {
+            this.fd = fd;
+            this.cleanable = (unmapper != null)
+                ? CleanerFactory.cleaner().register(this, unmapper)
+                : null;
+        }
+
+        // Offset of the count for the current thread, the first stripe is
+        // kept away from the array header
+        private static long stripeOffset() {
+            int i = (int)Thread.currentThread().getId() & (STRIPES - 1);
+            return Unsafe.ARRAY_LONG_BASE_OFFSET
+                + (long)(i + 1) * STRIDE * Unsafe.ARRAY_LONG_INDEX_SCALE;
+        }
+
+        /**
+         * Counts an access and returns the token for end, or throws if the
+         * mapping is closed.
+         */
+        long begin() {
+            long off = stripeOffset();
+            UNSAFE.getAndAddLong(counts, off, 1);
+            if (closed) {
+                UNSAFE.getAndAddLong(counts, off, -1);
+                throw new IllegalStateException("Region is closed");
+            }
+            return off;
+        }
+
+        void end(long off) {
+            UNSAFE.getAndAddLong(counts, off, -1);
+            // the mapping must stay reachable until the access is complete
+            Reference.reachabilityFence(this);
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed)
+                    return;
+                closed = true;
+            }
+            // an access that counted itself before closed was set must be
+            // allowed to complete, later ones see closed and back out
+            for (int i = 1; i <= STRIPES; i++) {
+                long off = Unsafe.ARRAY_LONG_BASE_OFFSET
+                    + (long)i * STRIDE * Unsafe.ARRAY_LONG_INDEX_SCALE;
+                int spins = 0;
+                while (UNSAFE.getLongVolatile(counts, off) != 0) {
+                    if (++spins < 100) {
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            }
+            if (cleanable != null)
+                cleanable.clean();
+        }
+    }
+
+    private final Mapping mapping;
+    private final long address;
+    private final long size;
+    private final boolean readOnly;
+    private final boolean bigEndian;
+
+    /**
+     * Creates a region for a new mapping.  The unmapper is run once, when
+     * the region is closed or becomes unreachable; it is null if nothing is
+     * mapped, for an empty region.
+     */
+    MappedRegion(long address, long size, boolean readOnly,
+                 FileDescriptor fd, Runnable unmapper)
+    {
+        this(new Mapping(fd, unmapper), address, size, readOnly, true);
+    }
+
+    private MappedRegion(Mapping mapping, long address, long size,
+                         boolean readOnly, boolean bigEndian)
+    {
+        this.mapping = mapping;
+        this.address = address;
+        this.size = size;
+        this.readOnly = readOnly;
+        this.bigEndian = bigEndian;
+    }
+
+    /**
+     * Returns the size of this region, in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Tells whether this region is read-only.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Tells whether this region is open, that is, whether neither it nor
+     * a region that shares its mapping has been closed.
+     */
+    public boolean isOpen() {
+        return !mapping.isClosed();
+    }
+
+    /**
+     * Returns the byte order used to read and write multi-byte values.
+     */
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Returns a view of this region that reads and writes multi-byte
+     * values in the given byte order.
+     */
+    public MappedRegion withOrder(ByteOrder order) {
+        boolean be = (Objects.requireNonNull(order) == ByteOrder.BIG_ENDIAN);
+        if (be == bigEndian)
+            return this;
+        return new MappedRegion(mapping, address, size, readOnly, be);
+    }
+
+    /**
+     * Returns the part of this region of the given length that starts at
+     * the given offset.  The slice shares the mapping of this region, and
+     * its byte order.
+     *
+     * @throws IndexOutOfBoundsException if the slice is not within this region
+     */
+    public MappedRegion slice(long offset, long length) {
+        checkBounds(offset, length);
+        return new MappedRegion(mapping, address + offset, length, readOnly,
+                                bigEndian);
+    }
+
+    /**
+     * Returns a read-only view of this region.
+     */
+    public MappedRegion asReadOnly() {
+        if (readOnly)
+            return this;
+        return new MappedRegion(mapping, address, size, true, bigEndian);
+    }
+
+    /**
+     * Unmaps the file, waiting for accesses in progress to complete.  This
+     * closes all the regions that share the mapping.  If the region is
+     * already closed then invoking this method has no effect.
+     */
+    @Override
+    public void close() {
+        mapping.close();
+    }
+
+    // -- Checks --
+
+    private void checkBounds(long offset, long length) {
+        if ((offset | length) < 0 || offset > size - length)
+            throw new IndexOutOfBoundsException(
+                "Range [" + offset + ", " + offset + " + " + length +
+                ") out of bounds for length " + size);
+    }
+
+    // Returns the address of [offset, offset + length)
+    private long addressFor(long offset, int length) {
+        if (offset < 0 || offset > size - length)
+            throw new IndexOutOfBoundsException(
+                "Offset " + offset + " out of bounds for length " + size);
+        return address + offset;
+    }
+
+    private long writableAddressFor(long offset, int length) {
+        if (readOnly)
+            throw new ReadOnlyBufferException();
+        return addressFor(offset, length);
+    }
+
+    // -- Single values --
+
+    /**
+     * Reads the byte at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the offset is not within this region
+     * @throws IllegalStateException if this region is closed
+     */
+    public byte getByte(long offset) {
+        long a = addressFor(offset, 1);
+        long s = mapping.begin();
+        try {
+            return UNSAFE.getByte(a);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Writes the byte at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the offset is not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void putByte(long offset, byte value) {
+        long a = writableAddressFor(offset, 1);
+        long s = mapping.begin();
+        try {
+            UNSAFE.putByte(a, value);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Reads the two bytes at the given offset as a {@code short}.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws IllegalStateException if this region is closed
+     */
+    public short getShort(long offset) {
+        long a = addressFor(offset, 2);
+        long s = mapping.begin();
+        try {
+            return UNSAFE.getShortUnaligned(null, a, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Writes a {@code short} as two bytes at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void putShort(long offset, short value) {
+        long a = writableAddressFor(offset, 2);
+        long s = mapping.begin();
+        try {
+            UNSAFE.putShortUnaligned(null, a, value, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Reads the two bytes at the given offset as a {@code char}.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws IllegalStateException if this region is closed
+     */
+    public char getChar(long offset) {
+        long a = addressFor(offset, 2);
+        long s = mapping.begin();
+        try {
+            return UNSAFE.getCharUnaligned(null, a, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Writes a {@code char} as two bytes at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void putChar(long offset, char value) {
+        long a = writableAddressFor(offset, 2);
+        long s = mapping.begin();
+        try {
+            UNSAFE.putCharUnaligned(null, a, value, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Reads the four bytes at the given offset as an {@code int}.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws IllegalStateException if this region is closed
+     */
+    public int getInt(long offset) {
+        long a = addressFor(offset, 4);
+        long s = mapping.begin();
+        try {
+            return UNSAFE.getIntUnaligned(null, a, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Writes an {@code int} as four bytes at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void putInt(long offset, int value) {
+        long a = writableAddressFor(offset, 4);
+        long s = mapping.begin();
+        try {
+            UNSAFE.putIntUnaligned(null, a, value, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Reads the eight bytes at the given offset as a {@code long}.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws IllegalStateException if this region is closed
+     */
+    public long getLong(long offset) {
+        long a = addressFor(offset, 8);
+        long s = mapping.begin();
+        try {
+            return UNSAFE.getLongUnaligned(null, a, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Writes a {@code long} as eight bytes at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void putLong(long offset, long value) {
+        long a = writableAddressFor(offset, 8);
+        long s = mapping.begin();
+        try {
+            UNSAFE.putLongUnaligned(null, a, value, bigEndian);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Reads the four bytes at the given offset as a {@code float}.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws IllegalStateException if this region is closed
+     */
+    public float getFloat(long offset) {
+        return Float.intBitsToFloat(getInt(offset));
+    }
+
+    /**
+     * Writes a {@code float} as four bytes at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void putFloat(long offset, float value) {
+        putInt(offset, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Reads the eight bytes at the given offset as a {@code double}.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws IllegalStateException if this region is closed
+     */
+    public double getDouble(long offset) {
+        return Double.longBitsToDouble(getLong(offset));
+    }
+
+    /**
+     * Writes a {@code double} as eight bytes at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the value is not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void putDouble(long offset, double value) {
+        putLong(offset, Double.doubleToRawLongBits(value));
+    }
+
+    // -- Bulk copies --
+
+    /**
+     * Copies {@code length} bytes starting at the given offset into the
+     * array.
+     *
+     * @throws IndexOutOfBoundsException if the bytes are not within this
+     *         region or the array
+     * @throws IllegalStateException if this region is closed
+     */
+    public void get(long offset, byte[] dst, int off, int length) {
+        Objects.checkFromIndexSize(off, length, dst.length);
+        long a = addressFor(offset, length);
+        long s = mapping.begin();
+        try {
+            UNSAFE.copyMemory(null, a, dst,
+                              Unsafe.ARRAY_BYTE_BASE_OFFSET + off, length);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Copies {@code length} bytes from the array into this region, starting
+     * at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the bytes are not within this
+     *         region or the array
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void put(long offset, byte[] src, int off, int length) {
+        Objects.checkFromIndexSize(off, length, src.length);
+        long a = writableAddressFor(offset, length);
+        long s = mapping.begin();
+        try {
+            UNSAFE.copyMemory(src, Unsafe.ARRAY_BYTE_BASE_OFFSET + off,
+                              null, a, length);
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    /**
+     * Copies the bytes starting at the given offset into the buffer, as
+     * many as it has remaining, and advances the buffer's position.
+     *
+     * @throws IndexOutOfBoundsException if the bytes are not within this region
+     * @throws ReadOnlyBufferException if the buffer is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void get(long offset, ByteBuffer dst) {
+        if (dst.isReadOnly())
+            throw new ReadOnlyBufferException();
+        int pos = dst.position();
+        int length = dst.limit() - pos;
+        long a = addressFor(offset, length);
+        long s = mapping.begin();
+        try {
+            if (dst.isDirect()) {
+                UNSAFE.copyMemory(a, ((DirectBuffer)dst).address() + pos,
+                                  length);
+            } else {
+                UNSAFE.copyMemory(null, a, dst.array(),
+                                  Unsafe.ARRAY_BYTE_BASE_OFFSET
+                                      + dst.arrayOffset() + pos,
+                                  length);
+            }
+        } finally {
+            mapping.end(s);
+            Reference.reachabilityFence(dst);
+        }
+        dst.position(pos + length);
+    }
+
+    /**
+     * Copies the remaining bytes of the buffer into this region, starting
+     * at the given offset, and advances the buffer's position.
+     *
+     * @throws IndexOutOfBoundsException if the bytes are not within this region
+     * @throws ReadOnlyBufferException if this region is read-only
+     * @throws IllegalStateException if this region is closed
+     */
+    public void put(long offset, ByteBuffer src) {
+        int pos = src.position();
+        int length = src.limit() - pos;
+        long a = writableAddressFor(offset, length);
+        if (!src.isDirect() && !src.hasArray()) {
+            // read-only heap buffer
+            byte[] b = new byte[length];
+            src.duplicate().get(b);
+            put(offset, b, 0, length);
+            src.position(pos + length);
+            return;
+        }
+        long s = mapping.begin();
+        try {
+            if (src.isDirect()) {
+                UNSAFE.copyMemory(((DirectBuffer)src).address() + pos, a,
+                                  length);
+            } else {
+                UNSAFE.copyMemory(src.array(),
+                                  Unsafe.ARRAY_BYTE_BASE_OFFSET
+                                      + src.arrayOffset() + pos,
+                                  null, a, length);
+            }
+        } finally {
+            mapping.end(s);
+            Reference.reachabilityFence(src);
+        }
+        src.position(pos + length);
+    }
+
+    /**
+     * Copies {@code length} bytes starting at the given offset to the given
+     * region, starting at {@code dstOffset}.  The ranges may overlap.
+     *
+     * @throws IndexOutOfBoundsException if the bytes are not within either
+     *         region
+     * @throws ReadOnlyBufferException if the destination region is read-only
+     * @throws IllegalStateException if either region is closed
+     */
+    public void copyTo(long offset, MappedRegion dst, long dstOffset, long length) {
+        checkBounds(offset, length);
+        if (dst.readOnly)
+            throw new ReadOnlyBufferException();
+        dst.checkBounds(dstOffset, length);
+        long s = mapping.begin();
+        try {
+            long ds = dst.mapping.begin();
+            try {
+                UNSAFE.copyMemory(address + offset, dst.address + dstOffset,
+                                  length);
+            } finally {
+                dst.mapping.end(ds);
+            }
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    // -- Paging --
+
+    /**
+     * Forces changes made to this region to be written to the storage
+     * device, as {@link MappedByteBuffer#force()} does.  If this region was
+     * not mapped in read/write mode then invoking this method has no effect.
+     *
+     * @throws IllegalStateException if this region is closed
+     */
+    public void force() {
+        forEachChunk(MappedByteBuffer::force);
+    }
+
+    /**
+     * Loads the content of this region into physical memory, as {@link
+     * MappedByteBuffer#load()} does.
+     *
+     * @throws IllegalStateException if this region is closed
+     */
+    public void load() {
+        forEachChunk(MappedByteBuffer::load);
+    }
+
+    private void forEachChunk(Consumer<MappedByteBuffer> action) {
+        long s = mapping.begin();
+        try {
+            for (long off = 0; off < size; off += CHUNK_SIZE) {
+                int len = (int)Math.min(size - off, CHUNK_SIZE);
+                // a view without a cleaner, it does not own the memory
+                action.accept(Util.newMappedByteBuffer(len, address + off,
+                                                       mapping.fd, null));
+            }
+        } finally {
+            mapping.end(s);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedRegion[size=" + size
+            + (readOnly ? ", read-only" : "")
+            + (isOpen() ? "" : ", closed") + "]";
+    }
+}
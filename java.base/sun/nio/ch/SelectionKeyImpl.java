@@ -49,6 +49,13 @@ public final class SelectionKeyImpl
                     VarHandle.class,
                     SelectionKeyImpl.class, int.class);
 
+    private static final VarHandle UPDATEPENDING =
+            ConstantBootstraps.fieldVarHandle(
+                    MethodHandles.lookup(),
+                    "updatePending",
+                    VarHandle.class,
+                    SelectionKeyImpl.class, boolean.class);
+
     private final SelChImpl channel;
     private final SelectorImpl selector;
 
@@ -61,6 +68,11 @@ public final class SelectionKeyImpl
     // index of key in pollfd array, used by some Selector implementations
     private int index;
 
+    // true while the key is queued for an update of its interest ops, and
+    // the next key in the queue, used by some Selector implementations
+    private volatile boolean updatePending;
+    SelectionKeyImpl nextUpdate;
+
     SelectionKeyImpl(SelChImpl ch, SelectorImpl sel) {
         channel = ch;
         selector = sel;
@@ -176,6 +188,22 @@ public final class SelectionKeyImpl
         return registeredEvents;
     }
 
+    /**
+     * Marks the key as queued for an update, returning false if it was
+     * already queued.
+     */
+    boolean markUpdatePending() {
+        return !updatePending && !(boolean) UPDATEPENDING.getAndSet(this, true);
+    }
+
+    /**
+     * Marks the key as no longer queued.  The selector reads the interest
+     * ops after this, so a change that finds the key still queued is not lost.
+     */
+    void clearUpdatePending() {
+        updatePending = false;
+    }
+
     int getIndex() {
         return index;
     }
@@ -26,6 +26,9 @@
 package sun.nio.ch;
 
 import java.io.IOException;
+import java.lang.invoke.ConstantBootstraps;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.Pipe;
 import java.nio.channels.SelectionKey;
@@ -34,7 +37,6 @@ import java.nio.channels.spi.SelectorProvider;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -93,21 +95,90 @@ class WindowsSelectorImpl extends SelectorImpl {
     // File descriptors corresponding to source and sink
     private final int wakeupSourceFd, wakeupSinkFd;
 
-    // Maps file descriptors to their indices in  pollArray
-    private static final class FdMap extends HashMap<Integer, MapEntry> {
-        static final long serialVersionUID = 0L;
+    // Maps file descriptors to their indices in  pollArray. Open addressing
+    // with linear probing, so that looking up a ready descriptor does not
+    // box it.
+    private static final class FdMap {
+        private int[] fds = new int[16];
+        private MapEntry[] entries = new MapEntry[16];
+        private int size;
+
+        private static int hash(int fd) {
+            int h = fd * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
         private MapEntry get(int desc) {
-            return get(Integer.valueOf(desc));
+            int mask = entries.length - 1;
+            for (int i = hash(desc) & mask; ; i = (i + 1) & mask) {
+                MapEntry e = entries[i];
+                if (e == null || fds[i] == desc)
+                    return e;
+            }
+        }
+
+        private boolean containsKey(int desc) {
+            return get(desc) != null;
         }
+
         private MapEntry put(SelectionKeyImpl ski) {
-            return put(Integer.valueOf(ski.getFDVal()), new MapEntry(ski));
+            if ((size + 1) << 2 > entries.length * 3)
+                resize();
+            int fd = ski.getFDVal();
+            int mask = entries.length - 1;
+            int i = hash(fd) & mask;
+            for (; entries[i] != null; i = (i + 1) & mask) {
+                if (fds[i] == fd) {
+                    MapEntry x = entries[i];
+                    entries[i] = new MapEntry(ski);
+                    return x;
+                }
+            }
+            fds[i] = fd;
+            entries[i] = new MapEntry(ski);
+            size++;
+            return null;
         }
+
         private MapEntry remove(SelectionKeyImpl ski) {
-            Integer fd = Integer.valueOf(ski.getFDVal());
-            MapEntry x = get(fd);
-            if ((x != null) && (x.ski.channel() == ski.channel()))
-                return remove(fd);
-            return null;
+            int fd = ski.getFDVal();
+            int mask = entries.length - 1;
+            int i = hash(fd) & mask;
+            MapEntry x;
+            while ((x = entries[i]) != null && fds[i] != fd)
+                i = (i + 1) & mask;
+            if (x == null || x.ski.channel() != ski.channel())
+                return null;
+            // shift back the entries that probed past the removed one
+            size--;
+            for (int j = (i + 1) & mask; entries[j] != null; j = (j + 1) & mask) {
+                int h = hash(fds[j]) & mask;
+                if ((j > i) ? (h <= i || h > j) : (h <= i && h > j)) {
+                    fds[i] = fds[j];
+                    entries[i] = entries[j];
+                    i = j;
+                }
+            }
+            entries[i] = null;
+            return x;
+        }
+
+        private void resize() {
+            int[] oldFds = fds;
+            MapEntry[] oldEntries = entries;
+            int n = oldEntries.length << 1;
+            fds = new int[n];
+            entries = new MapEntry[n];
+            for (int k = 0; k < oldEntries.length; k++) {
+                MapEntry e = oldEntries[k];
+                if (e != null) {
+                    int i = hash(oldFds[k]) & (n - 1);
+                    while (entries[i] != null)
+                        i = (i + 1) & (n - 1);
+                    fds[i] = oldFds[k];
+                    entries[i] = e;
+                }
+            }
         }
     }
 
@@ -130,10 +201,21 @@ class WindowsSelectorImpl extends SelectorImpl {
     private final Object interruptLock = new Object();
     private volatile boolean interruptTriggered;
 
-    // pending new registrations/updates, queued by implRegister and setEventOps
+    // pending new registrations, queued by implRegister
     private final Object updateLock = new Object();
     private final Deque<SelectionKeyImpl> newKeys = new ArrayDeque<>();
-    private final Deque<SelectionKeyImpl> updateKeys = new ArrayDeque<>();
+
+    // Keys whose interest ops changed since the last selection operation,
+    // pushed by setEventOps without locking onto a stack linked through
+    // SelectionKeyImpl.nextUpdate. A key is pushed at most once per
+    // selection operation however often its interest ops change.
+    private static final VarHandle UPDATEKEYS =
+            ConstantBootstraps.fieldVarHandle(
+                    MethodHandles.lookup(),
+                    "updateKeys",
+                    VarHandle.class,
+                    WindowsSelectorImpl.class, SelectionKeyImpl.class);
+    private volatile SelectionKeyImpl updateKeys;
 
 
     WindowsSelectorImpl(SelectorProvider sp) throws IOException {
@@ -204,9 +286,8 @@ class WindowsSelectorImpl extends SelectorImpl {
     private void processUpdateQueue() {
         assert Thread.holdsLock(this);
 
+        SelectionKeyImpl ski;
         synchronized (updateLock) {
-            SelectionKeyImpl ski;
-
             // new registrations
             while ((ski = newKeys.pollFirst()) != null) {
                 if (ski.isValid()) {
@@ -214,22 +295,30 @@ class WindowsSelectorImpl extends SelectorImpl {
                     channelArray[totalChannels] = ski;
                     ski.setIndex(totalChannels);
                     pollWrapper.putEntry(totalChannels, ski);
+                    // the change of interest ops may have been processed
+                    // before the key was added
+                    pollWrapper.putEventOps(totalChannels, ski.translateInterestOps());
                     totalChannels++;
                     MapEntry previous = fdMap.put(ski);
                     assert previous == null;
                 }
             }
+        }
 
-            // changes to interest ops
-            while ((ski = updateKeys.pollFirst()) != null) {
-                int events = ski.translateInterestOps();
-                int fd = ski.getFDVal();
-                if (ski.isValid() && fdMap.containsKey(fd)) {
-                    int index = ski.getIndex();
-                    assert index >= 0 && index < totalChannels;
-                    pollWrapper.putEventOps(index, events);
-                }
+        // changes to interest ops
+        ski = (SelectionKeyImpl) UPDATEKEYS.getAndSet(this, null);
+        while (ski != null) {
+            SelectionKeyImpl next = ski.nextUpdate;
+            ski.nextUpdate = null;
+            ski.clearUpdatePending();
+            int events = ski.translateInterestOps();
+            int fd = ski.getFDVal();
+            if (ski.isValid() && fdMap.containsKey(fd)) {
+                int index = ski.getIndex();
+                assert index >= 0 && index < totalChannels;
+                pollWrapper.putEventOps(index, events);
             }
+            ski = next;
         }
     }
 
@@ -613,8 +702,12 @@ class WindowsSelectorImpl extends SelectorImpl {
     @Override
     public void setEventOps(SelectionKeyImpl ski) {
         ensureOpen();
-        synchronized (updateLock) {
-            updateKeys.addLast(ski);
+        if (ski.markUpdatePending()) {
+            SelectionKeyImpl head;
+            do {
+                head = updateKeys;
+                ski.nextUpdate = head;
+            } while (!UPDATEKEYS.compareAndSet(this, head, ski));
         }
     }
 
@@ -223,6 +223,9 @@ public class StreamDecoder extends Reader
     private CharsetDecoder decoder;
     private ByteBuffer bb;
 
+    // 解码器无状态且ASCII字节原样对应，implRead可以绕过decoder直接复制ASCII
+    private boolean asciiFast;
+
     // Exactly one of these is non-null
     private InputStream in;
     private ReadableByteChannel ch;
@@ -251,6 +254,7 @@ public class StreamDecoder extends Reader
         bb = ByteBuffer.allocate(DEFAULT_BYTE_BUFFER_SIZE);
         }
         bb.flip();                      // So that bb is initially empty
+        asciiFast = isAsciiFast(dec, bb);
     }
 
     StreamDecoder(ReadableByteChannel ch, CharsetDecoder dec, int mbc) {
@@ -264,6 +268,7 @@ public class StreamDecoder extends Reader
                                      ? MIN_BYTE_BUFFER_SIZE
                                      : mbc));
         bb.flip();
+        asciiFast = isAsciiFast(dec, bb);
     }
 
     private int readBytes() throws IOException {
@@ -308,6 +313,19 @@ public class StreamDecoder extends Reader
         // to deal with it here.
         assert (end - off > 1);
 
+        // Copy the buffered run of ASCII bytes without going through the
+        // decoder, bb always starts at a character boundary
+        int copied = 0;
+        if (asciiFast && bb.hasRemaining()) {
+            int pos = bb.position();
+            copied = UTF_8.decodeASCII(bb.array(), bb.arrayOffset() + pos,
+                                       cbuf, off, Math.min(bb.remaining(), end - off));
+            bb.position(pos + copied);
+            off += copied;
+            if (end - off < 2 || (copied > 0 && !bb.hasRemaining() && !inReady()))
+                return copied;
+        }
+
         CharBuffer cb = CharBuffer.wrap(cbuf, off, end - off);
         if (cb.position() != 0)
         // Ensure that cb[0] == cbuf[off]
@@ -321,7 +339,7 @@ public class StreamDecoder extends Reader
                 break;
             if (!cb.hasRemaining())
                 break;
-            if ((cb.position() > 0) && !inReady())
+            if ((copied + cb.position() > 0) && !inReady())
                 break;          // Block at most once
             int n = readBytes();
             if (n < 0) {
@@ -344,12 +362,22 @@ public class StreamDecoder extends Reader
         decoder.reset();
         }
 
-        if (cb.position() == 0) {
+        if (copied + cb.position() == 0) {
             if (eof)
                 return -1;
             assert false;
         }
-        return cb.position();
+        return copied + cb.position();
+    }
+
+    /*
+     * The built-in decoders of these charsets map ASCII bytes to the same
+     * chars and keep no state between calls.
+     */
+    static boolean isAsciiFast(CharsetDecoder dec, ByteBuffer bb) {
+        Charset cs = dec.charset();
+        return bb.hasArray() && dec.getClass().getClassLoader() == null
+            && (cs == UTF_8.INSTANCE || cs == ISO_8859_1.INSTANCE || cs == US_ASCII.INSTANCE);
     }
 
     String encodingName() {
@@ -183,6 +183,9 @@ public class StreamEncoder extends Writer
     private char leftoverChar;
     private CharBuffer lcb = null;
 
+    // 编码器无状态且ASCII字符原样对应，implWrite可以绕过encoder直接复制ASCII
+    private boolean asciiFast;
+
     private StreamEncoder(OutputStream out, Object lock, Charset cs) {
         this(out, lock,
          cs.newEncoder()
@@ -206,6 +209,7 @@ public class StreamEncoder extends Writer
             if (ch == null) {
         bb = ByteBuffer.allocate(DEFAULT_BYTE_BUFFER_SIZE);
         }
+        asciiFast = isAsciiFast(enc, bb);
     }
 
     private StreamEncoder(WritableByteChannel ch, CharsetEncoder enc, int mbc) {
@@ -216,6 +220,17 @@ public class StreamEncoder extends Writer
         this.bb = ByteBuffer.allocate(mbc < 0
                                   ? DEFAULT_BYTE_BUFFER_SIZE
                                   : mbc);
+        asciiFast = isAsciiFast(enc, bb);
+    }
+
+    /*
+     * The built-in encoders of these charsets map chars below U+0080 to the
+     * same bytes and keep no state between calls.
+     */
+    static boolean isAsciiFast(CharsetEncoder enc, ByteBuffer bb) {
+        Charset cs = enc.charset();
+        return bb.hasArray() && bb.capacity() > 0 && enc.getClass().getClassLoader() == null
+            && (cs == UTF_8.INSTANCE || cs == ISO_8859_1.INSTANCE || cs == US_ASCII.INSTANCE);
     }
 
     private void writeBytes() throws IOException {
@@ -277,6 +292,24 @@ public class StreamEncoder extends Writer
     void implWrite(char cbuf[], int off, int len)
         throws IOException
     {
+        if (asciiFast && !haveLeftoverChar) {
+            // Copy runs of ASCII chars straight into bb, stopping at the
+            // first char that needs the encoder
+            int end = off + len;
+            while (off < end) {
+                int pos = bb.position();
+                int n = UTF_8.encodeASCII(cbuf, off, bb.array(), bb.arrayOffset() + pos,
+                                          Math.min(end - off, bb.remaining()));
+                bb.position(pos + n);
+                off += n;
+                if (bb.hasRemaining())
+                    break;
+                writeBytes();
+            }
+            if (off == end)
+                return;
+            len = end - off;
+        }
         CharBuffer cb = CharBuffer.wrap(cbuf, off, len);
         implWrite(cb);
     }
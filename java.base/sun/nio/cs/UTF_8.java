@@ -33,6 +33,7 @@ import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import jdk.internal.misc.Unsafe;
 
 /* Legal UTF-8 Byte Sequences
  *
@@ -74,6 +75,54 @@ public final class UTF_8 extends Unicode {
         return new Encoder(this);
     }
 
+    private static final Unsafe U = Unsafe.getUnsafe();
+
+    /**
+     * Returns the number of ASCII bytes at the start of sa[sp, sp + len),
+     * checking 8 bytes per step.
+     */
+    static int asciiRun(byte[] sa, int sp, int len) {
+        int i = 0;
+        for (; i + 8 <= len; i += 8) {
+            if ((U.getLongUnaligned(sa, Unsafe.ARRAY_BYTE_BASE_OFFSET + sp + i)
+                 & 0x8080808080808080L) != 0)
+                break;
+        }
+        while (i < len && sa[sp + i] >= 0)
+            i++;
+        return i;
+    }
+
+    /**
+     * Copies the run of ASCII bytes at the start of sa[sp, sp + len) to
+     * da[dp, ...) and returns its length.  Valid for any ASCII-compatible,
+     * stateless decoder.
+     */
+    static int decodeASCII(byte[] sa, int sp, char[] da, int dp, int len) {
+        int n = asciiRun(sa, sp, len);
+        for (int i = 0; i < n; i++)
+            da[dp + i] = (char)sa[sp + i];
+        return n;
+    }
+
+    /**
+     * Copies the run of chars below U+0080 at the start of sa[sp, sp + len)
+     * to da[dp, ...) and returns its length, checking 4 chars per step.
+     */
+    static int encodeASCII(char[] sa, int sp, byte[] da, int dp, int len) {
+        int n = 0;
+        for (; n + 4 <= len; n += 4) {
+            if ((U.getLongUnaligned(sa, Unsafe.ARRAY_CHAR_BASE_OFFSET + ((long)(sp + n) << 1))
+                 & 0xff80ff80ff80ff80L) != 0)
+                break;
+        }
+        while (n < len && sa[sp + n] < '\u0080')
+            n++;
+        for (int i = 0; i < n; i++)
+            da[dp + i] = (byte)sa[sp + i];
+        return n;
+    }
+
     static final void updatePositions(Buffer src, int sp,
                                               Buffer dst, int dp) {
         src.position(sp - src.arrayOffset());
@@ -229,19 +278,19 @@ public final class UTF_8 extends Unicode {
             char[] da = dst.array();
             int dp = dst.arrayOffset() + dst.position();
             int dl = dst.arrayOffset() + dst.limit();
-            int dlASCII = dp + Math.min(sl - sp, dl - dp);
-
             // ASCII only loop
-            while (dp < dlASCII && sa[sp] >= 0)
-                da[dp++] = (char) sa[sp++];
+            int n = decodeASCII(sa, sp, da, dp, Math.min(sl - sp, dl - dp));
+            sp += n;
+            dp += n;
             while (sp < sl) {
                 int b1 = sa[sp];
                 if (b1 >= 0) {
-                    // 1 byte, 7 bits: 0xxxxxxx
+                    // 1 byte, 7 bits: 0xxxxxxx, copy the whole run
                     if (dp >= dl)
                         return xflow(src, sp, sl, dst, dp, 1);
-                    da[dp++] = (char) b1;
-                    sp++;
+                    n = decodeASCII(sa, sp, da, dp, Math.min(sl - sp, dl - dp));
+                    sp += n;
+                    dp += n;
                 } else if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
                     // 2 bytes, 11 bits: 110xxxxx 10xxxxxx
                     //                   [C2..DF] [80..BF]
@@ -462,18 +511,20 @@ public final class UTF_8 extends Unicode {
             byte[] da = dst.array();
             int dp = dst.arrayOffset() + dst.position();
             int dl = dst.arrayOffset() + dst.limit();
-            int dlASCII = dp + Math.min(sl - sp, dl - dp);
-
             // ASCII only loop
-            while (dp < dlASCII && sa[sp] < '\u0080')
-                da[dp++] = (byte) sa[sp++];
+            int n = encodeASCII(sa, sp, da, dp, Math.min(sl - sp, dl - dp));
+            sp += n;
+            dp += n;
             while (sp < sl) {
                 char c = sa[sp];
                 if (c < 0x80) {
-                    // Have at most seven bits
+                    // Have at most seven bits, copy the whole run
                     if (dp >= dl)
                         return overflow(src, sp, dst, dp);
-                    da[dp++] = (byte)c;
+                    n = encodeASCII(sa, sp, da, dp, Math.min(sl - sp, dl - dp));
+                    sp += n;
+                    dp += n;
+                    continue;
                 } else if (c < 0x800) {
                     // 2 bytes, 11 bits
                     if (dl - dp < 2)
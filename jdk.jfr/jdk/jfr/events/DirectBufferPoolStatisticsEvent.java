@@ -0,0 +1,51 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package jdk.jfr.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.internal.Type;
+
+@Name(Type.EVENT_NAME_PREFIX + "DirectBufferPoolStatistics")
+@Label("Direct Buffer Pool Statistics")
+@Category({ "Java Application", "Statistics" })
+@Description("Temporary direct buffers used for I/O on heap buffers")
+@StackTrace(false)
+public final class DirectBufferPoolStatisticsEvent extends AbstractJDKEvent {
+
+    @Label("Thread Cache Hits")
+    @Description("Number of requests served from the cache of the requesting thread")
+    public long threadCacheHits;
+
+    @Label("Shared Cache Hits")
+    @Description("Number of requests served from the cache shared by all threads")
+    public long sharedCacheHits;
+
+    @Label("Misses")
+    @Description("Number of requests that allocated a new buffer")
+    public long misses;
+
+    @Label("Frees")
+    @Description("Number of pooled buffers freed because the caches were full")
+    public long frees;
+
+    @Label("Buffers")
+    @Description("Number of pooled buffers, cached or in use")
+    public long count;
+
+    @Label("Total Capacity")
+    @Description("Total capacity of the pooled buffers, cached or in use")
+    @DataAmount
+    public long totalCapacity;
+
+    @Label("Shared Cache Size")
+    @Description("Total capacity of the buffers in the shared cache")
+    @DataAmount
+    public long sharedCacheSize;
+}
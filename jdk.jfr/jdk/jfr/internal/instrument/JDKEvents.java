@@ -31,6 +31,7 @@ import java.util.List;
 import jdk.jfr.Event;
 import jdk.jfr.events.ActiveRecordingEvent;
 import jdk.jfr.events.ActiveSettingEvent;
+import jdk.jfr.events.DirectBufferPoolStatisticsEvent;
 import jdk.jfr.events.ErrorThrownEvent;
 import jdk.jfr.events.ExceptionStatisticsEvent;
 import jdk.jfr.events.ExceptionThrownEvent;
@@ -50,6 +51,7 @@ import jdk.jfr.internal.Logger;
 import jdk.jfr.internal.RequestEngine;
 import jdk.jfr.internal.SecuritySupport;
 import jdk.jfr.internal.Utils;
+import sun.nio.ch.DirectBufferPool;
 
 public final class JDKEvents {
 
@@ -68,6 +70,7 @@ public final class JDKEvents {
         SocketWriteEvent.class,
         ExceptionThrownEvent.class,
         ExceptionStatisticsEvent.class,
+        DirectBufferPoolStatisticsEvent.class,
         ErrorThrownEvent.class,
         ActiveSettingEvent.class,
         ActiveRecordingEvent.class,
@@ -91,6 +94,7 @@ public final class JDKEvents {
     private static final Class<?>[] targetClasses = new Class<?>[instrumentationClasses.length];
     private static final JVM jvm = JVM.getJVM();
     private static final Runnable emitExceptionStatistics = JDKEvents::emitExceptionStatistics;
+    private static final Runnable emitDirectBufferPoolStatistics = JDKEvents::emitDirectBufferPoolStatistics;
     private static boolean initializationTriggered;
 
     @SuppressWarnings("unchecked")
@@ -105,6 +109,7 @@ public final class JDKEvents {
                 }
                 initializationTriggered = true;
                 RequestEngine.addTrustedJDKHook(ExceptionStatisticsEvent.class, emitExceptionStatistics);
+                RequestEngine.addTrustedJDKHook(DirectBufferPoolStatisticsEvent.class, emitDirectBufferPoolStatistics);
             }
         } catch (Exception e) {
             Logger.log(LogTag.JFR_SYSTEM, LogLevel.WARN, "Could not initialize JDK events. " + e.getMessage());
@@ -135,6 +140,18 @@ public final class JDKEvents {
         t.commit();
     }
 
+    private static void emitDirectBufferPoolStatistics() {
+        DirectBufferPoolStatisticsEvent t = new DirectBufferPoolStatisticsEvent();
+        t.threadCacheHits = DirectBufferPool.threadCacheHits();
+        t.sharedCacheHits = DirectBufferPool.sharedCacheHits();
+        t.misses = DirectBufferPool.misses();
+        t.frees = DirectBufferPool.frees();
+        t.count = DirectBufferPool.bufferCount();
+        t.totalCapacity = DirectBufferPool.bufferCapacity();
+        t.sharedCacheSize = DirectBufferPool.sharedBytes();
+        t.commit();
+    }
+
     @SuppressWarnings("deprecation")
     public static byte[] retransformCallback(Class<?> klass, byte[] oldBytes) throws Throwable {
         if (java.lang.Throwable.class == klass) {
@@ -159,5 +176,6 @@ public final class JDKEvents {
 
     public static void remove() {
         RequestEngine.removeHook(JDKEvents::emitExceptionStatistics);
+        RequestEngine.removeHook(emitDirectBufferPoolStatistics);
     }
 }
@@ -0,0 +1,48 @@
+/*
+ * @test
+ * @summary A failed compose stage is seen by later pipeline steps as a CompletionException,
+ *          whether the stage was already complete or completed after the pipeline suspended
+ * @run main PipelineComposeException
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class PipelineComposeException {
+
+    static final CompletableFuture.Pipeline<Integer, Throwable> PIPELINE =
+        CompletableFuture.<Integer>pipeline()
+            .<Integer>thenCompose(v -> STAGE)
+            .handle((v, ex) -> ex);
+
+    static CompletableFuture<Integer> STAGE;
+
+    public static void main(String[] args) throws Exception {
+        RuntimeException failure = new IllegalStateException("compose failed");
+
+        // immediate path: the composed stage has already failed
+        STAGE = CompletableFuture.failedFuture(failure);
+        Throwable immediate = PIPELINE.apply(CompletableFuture.completedFuture(1)).join();
+        check(immediate, failure, "immediate");
+
+        // resumed path: the composed stage fails after the pipeline has suspended on it
+        STAGE = new CompletableFuture<>();
+        CompletableFuture<Throwable> resumed = PIPELINE.apply(CompletableFuture.completedFuture(1));
+        if (resumed.isDone())
+            throw new AssertionError("pipeline did not suspend on the compose stage");
+        STAGE.completeExceptionally(failure);
+        check(resumed.join(), failure, "resumed");
+
+        // both paths agree with the equivalent chain of CompletableFuture stages
+        Throwable chained = CompletableFuture.completedFuture(1)
+            .thenCompose(v -> CompletableFuture.<Integer>failedFuture(failure))
+            .handle((v, ex) -> ex)
+            .join();
+        check(chained, failure, "chained");
+    }
+
+    static void check(Throwable seen, Throwable failure, String path) {
+        if (!(seen instanceof CompletionException) || seen.getCause() != failure)
+            throw new AssertionError(path + ": expected CompletionException caused by " + failure + ", got " + seen);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * @test
+ * @summary When a failed source skips apply and compose steps of a pipeline, later handle and
+ *          exceptionally steps see a CompletionException, as with chained CompletableFuture stages
+ * @run main PipelineSkippedStepException
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class PipelineSkippedStepException {
+
+    public static void main(String[] args) throws Exception {
+        RuntimeException failure = new IllegalStateException("source failed");
+
+        // apply then handle, source already failed
+        Throwable handled = CompletableFuture.<Integer>pipeline()
+            .thenApply(v -> v + 1)
+            .handle((v, ex) -> ex)
+            .apply(CompletableFuture.failedFuture(failure))
+            .join();
+        check(handled, failure, "apply/handle");
+
+        // apply then exceptionally, source fails after the pipeline is started
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+        CompletableFuture<Throwable> seen = new CompletableFuture<>();
+        CompletableFuture<Integer> result = CompletableFuture.<Integer>pipeline()
+            .thenApply(v -> v + 1)
+            .exceptionally(ex -> { seen.complete(ex); return 0; })
+            .apply(source);
+        source.completeExceptionally(failure);
+        if (result.join() != 0)
+            throw new AssertionError("apply/exceptionally: exceptionally step did not run");
+        check(seen.join(), failure, "apply/exceptionally");
+
+        // compose then handle
+        Throwable composed = CompletableFuture.<Integer>pipeline()
+            .<Integer>thenCompose(v -> CompletableFuture.completedFuture(v + 1))
+            .handle((v, ex) -> ex)
+            .apply(CompletableFuture.failedFuture(failure))
+            .join();
+        check(composed, failure, "compose/handle");
+
+        // both agree with the equivalent chain of CompletableFuture stages
+        Throwable chained = CompletableFuture.<Integer>failedFuture(failure)
+            .thenApply(v -> v + 1)
+            .handle((v, ex) -> ex)
+            .join();
+        check(chained, failure, "chained");
+
+        // join on a pipeline ending in a skipped step throws the same exception as the chain
+        CompletableFuture<Integer> skipped = CompletableFuture.<Integer>pipeline()
+            .thenApply(v -> v + 1)
+            .apply(CompletableFuture.failedFuture(failure));
+        try {
+            skipped.join();
+            throw new AssertionError("join: expected CompletionException");
+        } catch (CompletionException ex) {
+            if (ex.getCause() != failure)
+                throw new AssertionError("join: unexpected cause " + ex.getCause());
+        }
+    }
+
+    static void check(Throwable seen, Throwable failure, String path) {
+        if (!(seen instanceof CompletionException) || seen.getCause() != failure)
+            throw new AssertionError(path + ": expected CompletionException caused by " + failure + ", got " + seen);
+    }
+}